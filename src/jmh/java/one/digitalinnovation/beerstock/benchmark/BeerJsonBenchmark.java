@@ -0,0 +1,81 @@
+package one.digitalinnovation.beerstock.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.dto.BeerRows;
+import one.digitalinnovation.beerstock.entity.Beer;
+import one.digitalinnovation.beerstock.json.BeerJsonWriter;
+import one.digitalinnovation.beerstock.mapper.BeerMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Serializes beer lists with an {@link ObjectMapper} configured the way Spring MVC configures its own, and compares
+ * the listing path from entities: mapping them to DTOs for Jackson against writing them with the
+ * {@link BeerJsonWriter}. Both listing benchmarks write into the same reused stream, as a response would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BeerJsonBenchmark {
+
+    @Param({"1", "100", "1000"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private List<BeerDTO> beerDTOs;
+    private BeerRows beerRows;
+    private ByteArrayOutputStream outputStream;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        beerDTOs = BenchmarkBeers.beerDTOs(size);
+        List<Beer> beers = beerDTOs.stream()
+                .map(BeerMapper.INSTANCE::toModel)
+                .collect(Collectors.toList());
+        beerRows = new BeerRows(beers, beers.stream().mapToInt(Beer::getQuantity).toArray());
+        outputStream = new ByteArrayOutputStream(size * 128);
+    }
+
+    @Benchmark
+    public byte[] writeBeerList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(beerDTOs);
+    }
+
+    @Benchmark
+    public int mapAndWriteBeerRows() throws IOException {
+        outputStream.reset();
+        objectMapper.writeValue(outputStream, beerRows.toDTOs());
+        return outputStream.size();
+    }
+
+    @Benchmark
+    public int writeBeerRows() throws IOException {
+        outputStream.reset();
+        try (BeerJsonWriter writer = BeerJsonWriter.to(outputStream)) {
+            writer.writeArray(beerRows);
+        }
+        return outputStream.size();
+    }
+}
@@ -0,0 +1,97 @@
+package one.digitalinnovation.beerstock.benchmark;
+
+import one.digitalinnovation.beerstock.BeerstockApplication;
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.entity.Beer;
+import one.digitalinnovation.beerstock.exception.BeerNotFoundException;
+import one.digitalinnovation.beerstock.exception.BeerStockExceededException;
+import one.digitalinnovation.beerstock.mapper.BeerMapper;
+import one.digitalinnovation.beerstock.repository.BeerRepository;
+import one.digitalinnovation.beerstock.service.BeerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the service against the embedded H2 database of a non-web application context, seeded with
+ * {@link #BEERS} beers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BeerServiceBenchmark {
+
+    private static final int BEERS = 1000;
+    private static final int PAGE_SIZE = 100;
+    private static final int INCREMENT_HEADROOM = 1_000_000_000;
+
+    private ConfigurableApplicationContext context;
+    private BeerService beerService;
+
+    private String knownName;
+    private Long hotBeerId;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(BeerstockApplication.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .properties("logging.level.root=warn",
+                        "spring.datasource.url=jdbc:h2:mem:beerstock-benchmark;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+                .run();
+        beerService = context.getBean(BeerService.class);
+
+        BeerRepository beerRepository = context.getBean(BeerRepository.class);
+        List<Beer> beers = BenchmarkBeers.beerDTOs(BEERS).stream()
+                .map(beerDTO -> {
+                    Beer beer = BeerMapper.INSTANCE.toModel(beerDTO);
+                    beer.setId(null);
+                    return beer;
+                })
+                .collect(Collectors.toList());
+        beers.get(0).setMax(INCREMENT_HEADROOM);
+        beers.get(0).setQuantity(0);
+        List<Beer> savedBeers = beerRepository.saveAll(beers);
+        hotBeerId = savedBeers.get(0).getId();
+        knownName = savedBeers.get(BEERS / 2).getName();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<BeerDTO> listAll() {
+        return beerService.listAll(null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public BeerDTO findByName() throws BeerNotFoundException {
+        return beerService.findByName(knownName);
+    }
+
+    @Benchmark
+    public BeerDTO increment() throws BeerNotFoundException, BeerStockExceededException {
+        return beerService.increment(hotBeerId, 1);
+    }
+}
@@ -0,0 +1,96 @@
+package one.digitalinnovation.beerstock.benchmark;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.dto.QuantityDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the formats the API negotiates, each through an {@link ObjectMapper} configured the way Spring MVC
+ * configures its converters: encoding and decoding a beer list, as listings and service clients do, and a
+ * {@link QuantityDTO}, the body of every stock change. The payload sizes are printed when each trial is set up.
+ */
+@Slf4j
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BeerWireFormatBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"1", "100", "1000"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private JavaType beerListType;
+    private List<BeerDTO> beerDTOs;
+    private QuantityDTO quantityDTO;
+    private byte[] encodedBeers;
+    private byte[] encodedQuantity;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = mapperFor(format);
+        beerListType = objectMapper.getTypeFactory().constructCollectionType(List.class, BeerDTO.class);
+        beerDTOs = BenchmarkBeers.beerDTOs(size);
+        quantityDTO = QuantityDTO.builder()
+                .quantity(10)
+                .build();
+        encodedBeers = objectMapper.writeValueAsBytes(beerDTOs);
+        encodedQuantity = objectMapper.writeValueAsBytes(quantityDTO);
+        log.info("{}: {} beers in {} bytes, quantity in {} bytes",
+                format, size, encodedBeers.length, encodedQuantity.length);
+    }
+
+    @Benchmark
+    public byte[] encodeBeerList() throws IOException {
+        return objectMapper.writeValueAsBytes(beerDTOs);
+    }
+
+    @Benchmark
+    public List<BeerDTO> decodeBeerList() throws IOException {
+        return objectMapper.readValue(encodedBeers, beerListType);
+    }
+
+    @Benchmark
+    public byte[] encodeQuantity() throws IOException {
+        return objectMapper.writeValueAsBytes(quantityDTO);
+    }
+
+    @Benchmark
+    public QuantityDTO decodeQuantity() throws IOException {
+        return objectMapper.readValue(encodedQuantity, QuantityDTO.class);
+    }
+
+    private static ObjectMapper mapperFor(String format) {
+        switch (format) {
+            case "cbor":
+                return Jackson2ObjectMapperBuilder.cbor().build();
+            case "smile":
+                return Jackson2ObjectMapperBuilder.smile().build();
+            default:
+                return Jackson2ObjectMapperBuilder.json().build();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package one.digitalinnovation.beerstock.benchmark;
+
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.enums.BeerType;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Deterministic beers shared by the benchmarks, so runs on different commits measure the same data.
+ */
+final class BenchmarkBeers {
+
+    private static final BeerType[] TYPES = BeerType.values();
+
+    private BenchmarkBeers() {
+    }
+
+    static BeerDTO beerDTO(int index) {
+        return BeerDTO.builder()
+                .id((long) index + 1)
+                .name("Benchmark Beer " + index)
+                .brand("Brand " + index % 20)
+                .max(500)
+                .quantity(index % 100)
+                .type(TYPES[index % TYPES.length])
+                .build();
+    }
+
+    static List<BeerDTO> beerDTOs(int size) {
+        return IntStream.range(0, size)
+                .mapToObj(BenchmarkBeers::beerDTO)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,30 @@
+package one.digitalinnovation.beerstock.cluster;
+
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * Tells other nodes that a beer changed. A {@code null} version means the change can't be versioned, like a
+ * deletion or a stock flush, and every cached copy of the beer must go. A stock flush is also marked as
+ * {@code stockOnly}, since the beer's name and brand did not change.
+ */
+@Value
+@AllArgsConstructor
+public class BeerInvalidation {
+
+    Long id;
+
+    String name;
+
+    Long version;
+
+    boolean stockOnly;
+
+    public BeerInvalidation(Long id, String name, Long version) {
+        this(id, name, version, false);
+    }
+
+    public static BeerInvalidation ofStock(Long id, String name) {
+        return new BeerInvalidation(id, name, null, true);
+    }
+}
@@ -0,0 +1,14 @@
+package one.digitalinnovation.beerstock.cluster;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries beer invalidations between the nodes of a deployment. Implementations deliver a published invalidation
+ * to the subscribers of every other node, never back to the node that published it.
+ */
+public interface InvalidationChannel {
+
+    void publish(BeerInvalidation invalidation);
+
+    void subscribe(Consumer<BeerInvalidation> subscriber);
+}
@@ -0,0 +1,39 @@
+package one.digitalinnovation.beerstock.cluster;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-JVM channel. Every channel attached to the same {@link Hub} acts as one node, which lets tests run several
+ * nodes side by side. A channel with a hub of its own is a single node deployment and publishes to nobody.
+ */
+public class LoopbackInvalidationChannel implements InvalidationChannel {
+
+    private final Hub hub;
+    private final List<Consumer<BeerInvalidation>> subscribers = new CopyOnWriteArrayList<>();
+
+    public LoopbackInvalidationChannel(Hub hub) {
+        this.hub = hub;
+        hub.channels.add(this);
+    }
+
+    @Override
+    public void publish(BeerInvalidation invalidation) {
+        for (LoopbackInvalidationChannel channel : hub.channels) {
+            if (channel != this) {
+                channel.subscribers.forEach(subscriber -> subscriber.accept(invalidation));
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<BeerInvalidation> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    public static class Hub {
+
+        private final List<LoopbackInvalidationChannel> channels = new CopyOnWriteArrayList<>();
+    }
+}
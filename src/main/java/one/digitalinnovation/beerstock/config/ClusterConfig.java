@@ -0,0 +1,17 @@
+package one.digitalinnovation.beerstock.config;
+
+import one.digitalinnovation.beerstock.cluster.InvalidationChannel;
+import one.digitalinnovation.beerstock.cluster.LoopbackInvalidationChannel;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ClusterConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "beerstock.cluster.invalidation-channel", havingValue = "loopback", matchIfMissing = true)
+    public InvalidationChannel loopbackInvalidationChannel() {
+        return new LoopbackInvalidationChannel(new LoopbackInvalidationChannel.Hub());
+    }
+}
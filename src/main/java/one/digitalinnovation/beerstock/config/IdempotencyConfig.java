@@ -0,0 +1,44 @@
+package one.digitalinnovation.beerstock.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import one.digitalinnovation.beerstock.idempotency.IdempotencyFilter;
+import one.digitalinnovation.beerstock.idempotency.IdempotencyStore;
+import one.digitalinnovation.beerstock.idempotency.InMemoryIdempotencyStore;
+import one.digitalinnovation.beerstock.idempotency.JpaIdempotencyStore;
+import one.digitalinnovation.beerstock.repository.IdempotencyKeyRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class IdempotencyConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "beerstock.idempotency.store", havingValue = "memory", matchIfMissing = true)
+    public IdempotencyStore inMemoryIdempotencyStore(@Value("${beerstock.idempotency.maximum-size:10000}") long maximumSize,
+                                                     @Value("${beerstock.idempotency.expire-after:24h}") Duration expireAfter) {
+        return new InMemoryIdempotencyStore(maximumSize, expireAfter);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "beerstock.idempotency.store", havingValue = "jpa")
+    public IdempotencyStore jpaIdempotencyStore(IdempotencyKeyRepository idempotencyKeyRepository,
+                                                @Value("${beerstock.idempotency.expire-after:24h}") Duration expireAfter) {
+        return new JpaIdempotencyStore(idempotencyKeyRepository, expireAfter);
+    }
+
+    @Bean
+    public FilterRegistrationBean<IdempotencyFilter> idempotencyFilter(IdempotencyStore idempotencyStore,
+                                                                       MeterRegistry meterRegistry) {
+        FilterRegistrationBean<IdempotencyFilter> registration =
+                new FilterRegistrationBean<>(new IdempotencyFilter(idempotencyStore, meterRegistry));
+        registration.addUrlPatterns("/api/v1/beers", "/api/v1/beers/*");
+        return registration;
+    }
+}
@@ -0,0 +1,53 @@
+package one.digitalinnovation.beerstock.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import one.digitalinnovation.beerstock.json.BufferingJackson2HttpMessageConverter;
+import org.apache.coyote.ProtocolHandler;
+import org.apache.coyote.http11.AbstractHttp11Protocol;
+import org.apache.coyote.http2.Http2Protocol;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.web.embedded.tomcat.TomcatConnectorCustomizer;
+import org.springframework.boot.web.server.Ssl;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+/**
+ * Serves HTTP/2 over cleartext (h2c) next to HTTP/1.1 and makes the compression threshold of the {@code production}
+ * profile hold for JSON bodies.
+ * <p>
+ * Spring Boot 2.3 only adds Tomcat's HTTP/2 protocol to connectors that use TLS, so without TLS it is added here, with
+ * the compression settings Boot gave the HTTP/1.1 protocol. Clients switch to it with an {@code Upgrade: h2c} request
+ * or by speaking HTTP/2 from the start.
+ */
+@Configuration
+@Profile("production")
+public class ProductionConfig {
+
+    @Bean
+    public TomcatConnectorCustomizer h2cConnectorCustomizer(ServerProperties serverProperties) {
+        return connector -> {
+            Ssl ssl = serverProperties.getSsl();
+            if (!serverProperties.getHttp2().isEnabled() || (ssl != null && ssl.isEnabled())) {
+                return;
+            }
+            Http2Protocol http2Protocol = new Http2Protocol();
+            ProtocolHandler protocolHandler = connector.getProtocolHandler();
+            if (protocolHandler instanceof AbstractHttp11Protocol) {
+                AbstractHttp11Protocol<?> http11Protocol = (AbstractHttp11Protocol<?>) protocolHandler;
+                http2Protocol.setCompression(http11Protocol.getCompression());
+                http2Protocol.setCompressionMinSize(http11Protocol.getCompressionMinSize());
+                http2Protocol.setCompressibleMimeType(http11Protocol.getCompressibleMimeType());
+            }
+            connector.addUpgradeProtocol(http2Protocol);
+        };
+    }
+
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper,
+                                                                                   ServerProperties serverProperties) {
+        return new BufferingJackson2HttpMessageConverter(objectMapper,
+                (int) serverProperties.getCompression().getMinResponseSize().toBytes());
+    }
+}
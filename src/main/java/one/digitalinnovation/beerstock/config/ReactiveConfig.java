@@ -0,0 +1,141 @@
+package one.digitalinnovation.beerstock.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import io.r2dbc.spi.ConnectionFactory;
+import one.digitalinnovation.beerstock.controller.BeerController;
+import org.reactivestreams.Publisher;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.data.r2dbc.connectionfactory.R2dbcTransactionManager;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.util.MimeType;
+import org.springframework.web.reactive.accept.HeaderContentTypeResolver;
+import org.springframework.web.reactive.accept.RequestedContentTypeResolverBuilder;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+@Profile("reactive")
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class ReactiveConfig implements WebFluxConfigurer {
+
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType(BeerController.APPLICATION_NDJSON_VALUE);
+    private static final List<MediaType> JSON_FIRST = Arrays.asList(MediaType.APPLICATION_JSON, MediaType.ALL);
+
+    /**
+     * Serves on Netty. Boot would pick Tomcat, which is on the classpath for the servlet stack.
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    /**
+     * Boot drops its JDBC data source as soon as R2DBC is configured, but JPA still creates the schema and feeds the
+     * name index, the ledger and the invalidation listener, so the data source is declared here.
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * Runs R2DBC statements in one transaction. The transaction manager is not a bean, so {@code @Transactional}
+     * keeps resolving to the JPA one.
+     */
+    @Bean
+    public TransactionalOperator r2dbcTransactionalOperator(ConnectionFactory connectionFactory) {
+        return TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+    }
+
+    /**
+     * Lets the JSON encoder write {@code application/x-ndjson} as one document per line, flushed as elements
+     * arrive, like it already does for {@code application/stream+json}. Ordered after Boot's Jackson customizer,
+     * which would otherwise replace this encoder.
+     */
+    @Bean
+    @Order(1)
+    public CodecCustomizer ndjsonCodecCustomizer(ObjectMapper objectMapper) {
+        return configurer -> {
+            Jackson2JsonEncoder encoder = new Jackson2JsonEncoder(objectMapper,
+                    MediaType.APPLICATION_JSON, new MediaType("application", "*+json"), APPLICATION_NDJSON);
+            encoder.setStreamingMediaTypes(Arrays.asList(MediaType.APPLICATION_STREAM_JSON, APPLICATION_NDJSON));
+            configurer.defaultCodecs().jackson2JsonEncoder(encoder);
+        };
+    }
+
+    /**
+     * Lets service clients send and accept CBOR like on the servlet stack. WebFlux registers Smile when it is on the
+     * classpath but leaves CBOR out, and puts custom codecs ahead of its own, see
+     * {@link #configureContentTypeResolver(RequestedContentTypeResolverBuilder)}.
+     */
+    @Bean
+    public CodecCustomizer cborCodecCustomizer() {
+        ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+        return configurer -> {
+            configurer.customCodecs().register(new Jackson2CborDecoder(cborMapper, MediaType.APPLICATION_CBOR));
+            configurer.customCodecs().register(new CborArrayEncoder(cborMapper));
+        };
+    }
+
+    /**
+     * Keeps JSON the default representation: a request that accepts any media type, or sends no {@code Accept},
+     * prefers JSON over the CBOR writer listed ahead of it.
+     */
+    @Override
+    public void configureContentTypeResolver(RequestedContentTypeResolverBuilder builder) {
+        HeaderContentTypeResolver headerResolver = new HeaderContentTypeResolver();
+        builder.resolver(exchange -> {
+            List<MediaType> requested = headerResolver.resolveMediaTypes(exchange);
+            return requested.size() == 1 && MediaType.ALL.equals(requested.get(0)) ? JSON_FIRST : requested;
+        });
+    }
+
+    /**
+     * Encodes a {@code Flux} body as one CBOR array, the way the JSON encoder writes a JSON array, since the CBOR
+     * encoder only encodes single values.
+     */
+    private static class CborArrayEncoder extends Jackson2CborEncoder {
+
+        private CborArrayEncoder(ObjectMapper cborMapper) {
+            super(cborMapper, MediaType.APPLICATION_CBOR);
+        }
+
+        @Override
+        public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory, ResolvableType elementType,
+                                       MimeType mimeType, Map<String, Object> hints) {
+            if (inputStream instanceof Mono) {
+                return Mono.from(inputStream)
+                        .map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints))
+                        .flux();
+            }
+            ResolvableType listType = ResolvableType.forClassWithGenerics(List.class, elementType);
+            return Flux.from(inputStream)
+                    .collectList()
+                    .map(values -> encodeValue(values, bufferFactory, listType, mimeType, hints))
+                    .flux();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package one.digitalinnovation.beerstock.config;
+
+import lombok.extern.slf4j.Slf4j;
+import one.digitalinnovation.beerstock.threads.VirtualThreads;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Runs servlet requests, and the JPA calls they make, on virtual threads instead of Tomcat's bounded worker pool,
+ * so concurrency is limited by the connection pool rather than by {@code server.tomcat.threads.max}. Streaming
+ * responses are written from virtual threads too. Needs Java 21 or later; older runtimes keep platform threads.
+ */
+@Slf4j
+@Configuration
+@Profile("virtual-threads")
+public class VirtualThreadConfig implements WebMvcConfigurer {
+
+    private final ExecutorService virtualThreadExecutor;
+
+    public VirtualThreadConfig() {
+        this.virtualThreadExecutor = VirtualThreads.newPerTaskExecutor().orElse(null);
+        if (virtualThreadExecutor == null) {
+            log.warn("Virtual threads need Java 21 or later, running on Java {}; requests stay on platform threads",
+                    Runtime.version().feature());
+        }
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> {
+            if (virtualThreadExecutor != null) {
+                protocolHandler.setExecutor(virtualThreadExecutor);
+            }
+        };
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        if (virtualThreadExecutor != null) {
+            configurer.setTaskExecutor(new ConcurrentTaskExecutor(virtualThreadExecutor));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (virtualThreadExecutor != null) {
+            virtualThreadExecutor.shutdown();
+        }
+    }
+}
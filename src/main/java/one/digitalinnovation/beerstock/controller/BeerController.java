@@ -1,14 +1,30 @@
 package one.digitalinnovation.beerstock.controller;
 
 import lombok.AllArgsConstructor;
+import one.digitalinnovation.beerstock.dto.BatchItemResultDTO;
 import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.dto.BeerQuantityDTO;
+import one.digitalinnovation.beerstock.dto.BeerRows;
+import one.digitalinnovation.beerstock.dto.BeerSearchDTO;
+import one.digitalinnovation.beerstock.dto.BeerSummaryDTO;
 import one.digitalinnovation.beerstock.dto.QuantityDTO;
+import one.digitalinnovation.beerstock.dto.InventoryStatsDTO;
+import one.digitalinnovation.beerstock.dto.ReorderSuggestionDTO;
+import one.digitalinnovation.beerstock.dto.StockEventDTO;
+import one.digitalinnovation.beerstock.dto.TaggedBeerDTO;
 import one.digitalinnovation.beerstock.exception.BeerAlreadyRegisteredException;
 import one.digitalinnovation.beerstock.exception.BeerNotFoundException;
 import one.digitalinnovation.beerstock.exception.BeerStockExceededException;
+import one.digitalinnovation.beerstock.exception.InvalidBeerFieldException;
+import one.digitalinnovation.beerstock.json.BeerJsonWriter;
+import one.digitalinnovation.beerstock.repository.BeerSearchRepository;
 import one.digitalinnovation.beerstock.service.BeerService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -16,17 +32,37 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/v1/beers")
+@Profile("!reactive")
 @AllArgsConstructor(onConstructor = @__(@Autowired))
 public class BeerController implements BeerControllerDocs {
 
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    private static final String DEFAULT_PAGE_SIZE = "100";
+    private static final String DEFAULT_SUGGESTIONS = "10";
+    private static final int STREAM_FLUSH_INTERVAL = 100;
+    private static final String DEFAULT_CHANGES_WAIT_SECONDS = "25";
+    private static final int MAX_CHANGES_WAIT_SECONDS = 60;
+
     private final BeerService beerService;
 
     @PostMapping
@@ -35,14 +71,125 @@ public class BeerController implements BeerControllerDocs {
         return beerService.createBeer(beerDTO);
     }
 
+    @PostMapping("/batch")
+    public List<BatchItemResultDTO> createBeers(@RequestBody List<BeerDTO> beerDTOs) {
+        return beerService.createAll(beerDTOs);
+    }
+
     @GetMapping("/{name}")
-    public BeerDTO findByName(@PathVariable String name) throws BeerNotFoundException {
-        return beerService.findByName(name);
+    public ResponseEntity<BeerDTO> findByName(@PathVariable String name, WebRequest request) throws BeerNotFoundException {
+        TaggedBeerDTO taggedBeer = beerService.findTaggedByName(name);
+        String entityTag = weak(taggedBeer.getEntityTag());
+        if (request.checkNotModified(entityTag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(entityTag)
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(taggedBeer.getBeer());
     }
 
     @GetMapping
-    public List<BeerDTO> listBeers() {
-        return beerService.listAll();
+    public ResponseEntity<BeerRows> listBeers(@RequestParam(required = false) Long afterId,
+                                                   @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size,
+                                                   WebRequest request) {
+        String entityTag = weak(beerService.catalogTag());
+        if (request.checkNotModified(entityTag)) {
+            return null;
+        }
+        BeerRows beers = beerService.listRows(afterId, size);
+        return pageOf(beers, beers.size(), beers.lastId(), size, entityTag);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<BeerSummaryDTO>> searchBeers(BeerSearchDTO search,
+                                                            @RequestParam(required = false) Set<String> fields,
+                                                            @RequestParam(required = false) Long afterId,
+                                                            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size) throws InvalidBeerFieldException {
+        Set<String> requestedFields = fields == null || fields.isEmpty() ? BeerSearchRepository.SEARCH_FIELDS : fields;
+        List<BeerSummaryDTO> beers = beerService.search(search, requestedFields, afterId, size);
+        Long lastId = beers.isEmpty() ? null : beers.get(beers.size() - 1).getId();
+        return pageOf(beers, beers.size(), lastId, size, null);
+    }
+
+    @GetMapping("/suggest")
+    public List<BeerSummaryDTO> suggestBeers(@RequestParam String q,
+                                             @RequestParam(defaultValue = DEFAULT_SUGGESTIONS) int limit) {
+        return beerService.suggest(q, limit);
+    }
+
+    @GetMapping("/low-stock")
+    public List<ReorderSuggestionDTO> lowStockBeers(@RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+        return beerService.lowStock(limit);
+    }
+
+    @GetMapping("/stats")
+    public InventoryStatsDTO inventoryStats() {
+        return beerService.stats();
+    }
+
+    /**
+     * Tags are weak because one tag covers the JSON, CBOR and Smile representations, compressed or not. Tomcat does
+     * not compress a response carrying a strong tag.
+     */
+    private static String weak(String entityTag) {
+        return "W/\"" + entityTag + "\"";
+    }
+
+    private <T> ResponseEntity<T> pageOf(T beers, int count, Long lastId, int size, String entityTag) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (entityTag != null) {
+            // The same tag is served as JSON, CBOR or Smile, so caches keep one copy per Accept header.
+            response.eTag(entityTag).varyBy(HttpHeaders.ACCEPT);
+        }
+        if (count > 0 && count >= Math.min(size, BeerService.MAX_PAGE_SIZE)) {
+            String nextPage = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("afterId", lastId)
+                    .toUriString();
+            response.header(HttpHeaders.LINK, String.format("<%s>; rel=\"next\"", nextPage));
+        }
+        return response.body(beers);
+    }
+
+    @GetMapping(value = "/stream", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamBeers() {
+        StreamingResponseBody body = outputStream -> {
+            try (BeerJsonWriter writer = BeerJsonWriter.to(outputStream)) {
+                int[] written = {0};
+                beerService.streamRows((beer, quantity) -> {
+                    try {
+                        writer.writeBeer(beer, quantity);
+                        writer.writeRaw('\n');
+                        if (++written[0] % STREAM_FLUSH_INTERVAL == 1) {
+                            writer.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                .body(body);
+    }
+
+    @GetMapping("/changes")
+    public DeferredResult<List<StockEventDTO>> changes(@RequestParam(defaultValue = "0") long since,
+                                                       @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit,
+                                                       @RequestParam(defaultValue = DEFAULT_CHANGES_WAIT_SECONDS) int wait) {
+        int boundedWait = Math.max(0, Math.min(wait, MAX_CHANGES_WAIT_SECONDS));
+        DeferredResult<List<StockEventDTO>> result = new DeferredResult<>(TimeUnit.SECONDS.toMillis(boundedWait), Collections.emptyList());
+        CompletableFuture<List<StockEventDTO>> changes = beerService.changesSince(since, limit, boundedWait > 0);
+        result.onTimeout(() -> changes.cancel(false));
+        changes.whenComplete((events, error) -> {
+            if (error != null) {
+                result.setErrorResult(error);
+            } else {
+                result.setResult(events);
+            }
+        });
+        return result;
     }
 
     @DeleteMapping("/{id}")
@@ -55,4 +202,14 @@ public class BeerController implements BeerControllerDocs {
     public BeerDTO increment(@PathVariable Long id, @RequestBody @Valid QuantityDTO quantityDTO) throws BeerNotFoundException, BeerStockExceededException {
         return beerService.increment(id, quantityDTO.getQuantity());
     }
+
+    @PatchMapping("/batch/increment")
+    public List<BatchItemResultDTO> incrementBeers(@RequestBody List<BeerQuantityDTO> beerQuantityDTOs) {
+        return beerService.incrementAll(beerQuantityDTOs);
+    }
+
+    @PatchMapping("/{id}/decrement")
+    public BeerDTO decrement(@PathVariable Long id, @RequestBody @Valid QuantityDTO quantityDTO) throws BeerNotFoundException, BeerStockExceededException {
+        return beerService.decrement(id, quantityDTO.getQuantity());
+    }
 }
@@ -1,42 +1,116 @@
 package one.digitalinnovation.beerstock.controller;
 
 import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiImplicitParam;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
+import one.digitalinnovation.beerstock.dto.BatchItemResultDTO;
 import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.dto.BeerQuantityDTO;
+import one.digitalinnovation.beerstock.dto.BeerRows;
+import one.digitalinnovation.beerstock.dto.BeerSearchDTO;
+import one.digitalinnovation.beerstock.dto.BeerSummaryDTO;
 import one.digitalinnovation.beerstock.dto.QuantityDTO;
+import one.digitalinnovation.beerstock.dto.InventoryStatsDTO;
+import one.digitalinnovation.beerstock.dto.ReorderSuggestionDTO;
+import one.digitalinnovation.beerstock.dto.StockEventDTO;
 import one.digitalinnovation.beerstock.exception.BeerAlreadyRegisteredException;
 import one.digitalinnovation.beerstock.exception.BeerNotFoundException;
 import one.digitalinnovation.beerstock.exception.BeerStockExceededException;
+import one.digitalinnovation.beerstock.exception.InvalidBeerFieldException;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import springfox.documentation.annotations.ApiIgnore;
 
 import javax.validation.Valid;
 import java.util.List;
+import java.util.Set;
 
 @Api("Manages beer stock")
 public interface BeerControllerDocs {
 
+    String IF_NONE_MATCH_DESCRIPTION = "ETag of the copy the client already has. The response is 304 with no body while it is still current.";
+
+    String IDEMPOTENCY_KEY_DESCRIPTION = "Unique key for this request. A retry with the same key and body gets the first response back, marked with Idempotent-Replayed, instead of running again.";
+
+    @ApiImplicitParam(name = "Idempotency-Key", value = IDEMPOTENCY_KEY_DESCRIPTION, paramType = "header", dataTypeClass = String.class)
     @ApiOperation(value = "Beer creation operation")
     @ApiResponses(value = {
             @ApiResponse(code = 201, message = "Success beer creation"),
-            @ApiResponse(code = 400, message = "Missing required fields or wrong field range value.")
+            @ApiResponse(code = 400, message = "Missing required fields or wrong field range value."),
+            @ApiResponse(code = 409, message = "A request with the same Idempotency-Key is still being processed."),
+            @ApiResponse(code = 422, message = "Idempotency-Key was already used for a different request.")
     })
     BeerDTO createBeer(BeerDTO beerDTO) throws BeerAlreadyRegisteredException;
 
+    @ApiImplicitParam(name = "Idempotency-Key", value = IDEMPOTENCY_KEY_DESCRIPTION, paramType = "header", dataTypeClass = String.class)
+    @ApiOperation(value = "Beer creation operation for many beers at once")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "One result per informed beer, in request order, each one with its own status code and error message"),
+            @ApiResponse(code = 409, message = "A request with the same Idempotency-Key is still being processed."),
+            @ApiResponse(code = 422, message = "Idempotency-Key was already used for a different request.")
+    })
+    List<BatchItemResultDTO> createBeers(List<BeerDTO> beerDTOs);
+
+    @ApiImplicitParam(name = "If-None-Match", value = IF_NONE_MATCH_DESCRIPTION, paramType = "header", dataTypeClass = String.class)
     @ApiOperation(value = "Returns beer found by a given name")
     @ApiResponses(value = {
-            @ApiResponse(code = 200, message = "Success beer found in the system"),
+            @ApiResponse(code = 200, message = "Success beer found in the system, with its ETag"),
+            @ApiResponse(code = 304, message = "Beer did not change since the informed ETag."),
             @ApiResponse(code = 404, message = "Beer with given name not found.")
     })
-    BeerDTO findByName(@PathVariable String name) throws BeerNotFoundException;
+    ResponseEntity<BeerDTO> findByName(@PathVariable String name, @ApiIgnore WebRequest request) throws BeerNotFoundException;
+
+    @ApiImplicitParam(name = "If-None-Match", value = IF_NONE_MATCH_DESCRIPTION, paramType = "header", dataTypeClass = String.class)
+    @ApiOperation(value = "Returns a page of beers registered in the system, ordered by id and starting after the given cursor",
+            response = BeerDTO.class, responseContainer = "List")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Page of beers registered in the system, with the ETag of the catalog. A Link header points to the next page when there may be more."),
+            @ApiResponse(code = 304, message = "No beer changed since the informed ETag."),
+    })
+    ResponseEntity<BeerRows> listBeers(Long afterId, int size, @ApiIgnore WebRequest request);
 
-    @ApiOperation(value = "Returns a list of all beers registered in the system")
+    @ApiOperation(value = "Searches beers by brand, type and stock level, returning only the requested fields")
     @ApiResponses(value = {
-            @ApiResponse(code = 200, message = "List of all beers registered in the system"),
+            @ApiResponse(code = 200, message = "Page of matching beers ordered by id. A Link header points to the next page when there may be more."),
+            @ApiResponse(code = 400, message = "Unknown field or wrong filter value.")
     })
-    List<BeerDTO> listBeers();
+    ResponseEntity<List<BeerSummaryDTO>> searchBeers(BeerSearchDTO search, Set<String> fields, Long afterId, int size) throws InvalidBeerFieldException;
+
+    @ApiOperation(value = "Suggests beers whose name or brand words start with the given text, tolerating small typos")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Up to limit suggestions with id, name and brand, best match first"),
+    })
+    List<BeerSummaryDTO> suggestBeers(String q, int limit);
+
+    @ApiOperation(value = "Returns the beers stocked at or below their reorder point, emptiest first")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Up to limit beers with their stock, reorder point and the units that fill them up to max"),
+    })
+    List<ReorderSuggestionDTO> lowStockBeers(int limit);
+
+    @ApiOperation(value = "Returns stock totals and capacity utilization of the catalog, by beer type and by brand")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Beer count, units in stock, capacity and utilization of the catalog and of each type and brand"),
+    })
+    InventoryStatsDTO inventoryStats();
+
+    @ApiOperation(value = "Streams all beers registered in the system as newline delimited JSON")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "All beers registered in the system, one JSON document per line"),
+    })
+    ResponseEntity<StreamingResponseBody> streamBeers();
+
+    @ApiOperation(value = "Returns stock changes logged after the given offset, waiting up to wait seconds for the next ones when there are none yet")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Stock events ordered by offset, empty when the wait ran out. Resume with the offset of the last event."),
+    })
+    DeferredResult<List<StockEventDTO>> changes(long since, int limit, int wait);
 
     @ApiOperation(value = "Delete a beer found by a given valid Id")
     @ApiResponses(value = {
@@ -44,4 +118,24 @@ public interface BeerControllerDocs {
             @ApiResponse(code = 404, message = "Beer with given id not found.")
     })
     void deleteById(@PathVariable Long id) throws BeerNotFoundException;
+
+    @ApiImplicitParam(name = "Idempotency-Key", value = IDEMPOTENCY_KEY_DESCRIPTION, paramType = "header", dataTypeClass = String.class)
+    @ApiOperation(value = "Adds stock to many beers at once")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "One result per informed increment, in request order, each one with its own status code and error message"),
+            @ApiResponse(code = 409, message = "A request with the same Idempotency-Key is still being processed."),
+            @ApiResponse(code = 422, message = "Idempotency-Key was already used for a different request.")
+    })
+    List<BatchItemResultDTO> incrementBeers(List<BeerQuantityDTO> beerQuantityDTOs);
+
+    @ApiImplicitParam(name = "Idempotency-Key", value = IDEMPOTENCY_KEY_DESCRIPTION, paramType = "header", dataTypeClass = String.class)
+    @ApiOperation(value = "Takes a given quantity of a beer out of the stock")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Success beer stock decremented"),
+            @ApiResponse(code = 400, message = "Quantity to decrement is greater than the beer stock."),
+            @ApiResponse(code = 404, message = "Beer with given id not found."),
+            @ApiResponse(code = 409, message = "A request with the same Idempotency-Key is still being processed."),
+            @ApiResponse(code = 422, message = "Idempotency-Key was already used for a different request.")
+    })
+    BeerDTO decrement(@PathVariable Long id, @RequestBody QuantityDTO quantityDTO) throws BeerNotFoundException, BeerStockExceededException;
 }
@@ -0,0 +1,130 @@
+package one.digitalinnovation.beerstock.controller;
+
+import lombok.AllArgsConstructor;
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.dto.BeerSummaryDTO;
+import one.digitalinnovation.beerstock.dto.QuantityDTO;
+import one.digitalinnovation.beerstock.dto.InventoryStatsDTO;
+import one.digitalinnovation.beerstock.dto.ReorderSuggestionDTO;
+import one.digitalinnovation.beerstock.dto.StockEventDTO;
+import one.digitalinnovation.beerstock.service.ReactiveBeerService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * WebFlux variant of {@link BeerController}, active with the {@code reactive} profile. It serves the same paths,
+ * payloads and status codes for single beers; the batch and search endpoints are only served by the servlet stack.
+ */
+@RestController
+@RequestMapping("/api/v1/beers")
+@Profile("reactive")
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class ReactiveBeerController {
+
+    private static final String DEFAULT_PAGE_SIZE = "100";
+    private static final String DEFAULT_SUGGESTIONS = "10";
+    private static final String DEFAULT_CHANGES_WAIT_SECONDS = "25";
+    private static final int MAX_CHANGES_WAIT_SECONDS = 60;
+
+    private final ReactiveBeerService beerService;
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<BeerDTO> createBeer(@RequestBody @Valid BeerDTO beerDTO) {
+        return beerService.createBeer(beerDTO);
+    }
+
+    @GetMapping("/{name}")
+    public Mono<BeerDTO> findByName(@PathVariable String name) {
+        return beerService.findByName(name);
+    }
+
+    @GetMapping
+    public Mono<ResponseEntity<List<BeerDTO>>> listBeers(@RequestParam(required = false) Long afterId,
+                                                         @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size,
+                                                         ServerHttpRequest request) {
+        return beerService.listAll(afterId, size)
+                .collectList()
+                .map(beers -> {
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+                    if (!beers.isEmpty() && beers.size() >= size) {
+                        String nextPage = UriComponentsBuilder.fromHttpRequest(request)
+                                .replaceQueryParam("afterId", beers.get(beers.size() - 1).getId())
+                                .toUriString();
+                        response.header(HttpHeaders.LINK, String.format("<%s>; rel=\"next\"", nextPage));
+                    }
+                    return response.body(beers);
+                });
+    }
+
+    @GetMapping("/suggest")
+    public Flux<BeerSummaryDTO> suggestBeers(@RequestParam String q,
+                                             @RequestParam(defaultValue = DEFAULT_SUGGESTIONS) int limit) {
+        return beerService.suggest(q, limit);
+    }
+
+    @GetMapping("/low-stock")
+    public Flux<ReorderSuggestionDTO> lowStockBeers(@RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+        return beerService.lowStock(limit);
+    }
+
+    @GetMapping("/stats")
+    public Mono<InventoryStatsDTO> inventoryStats() {
+        return beerService.stats();
+    }
+
+    @GetMapping(value = "/stream", produces = BeerController.APPLICATION_NDJSON_VALUE)
+    public Flux<BeerDTO> streamBeers() {
+        return beerService.streamAll();
+    }
+
+    @GetMapping("/changes")
+    public Mono<List<StockEventDTO>> changes(@RequestParam(defaultValue = "0") long since,
+                                             @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit,
+                                             @RequestParam(defaultValue = DEFAULT_CHANGES_WAIT_SECONDS) int wait) {
+        int boundedWait = Math.max(0, Math.min(wait, MAX_CHANGES_WAIT_SECONDS));
+        Mono<List<StockEventDTO>> changes = beerService.changesSince(since, limit, boundedWait > 0).collectList();
+        if (boundedWait == 0) {
+            return changes;
+        }
+        return changes.timeout(Duration.ofSeconds(boundedWait), Mono.just(Collections.emptyList()));
+    }
+
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public Mono<Void> deleteById(@PathVariable Long id) {
+        return beerService.deleteById(id);
+    }
+
+    @PatchMapping("/{id}/increment")
+    public Mono<BeerDTO> increment(@PathVariable Long id, @RequestBody @Valid QuantityDTO quantityDTO) {
+        return beerService.increment(id, quantityDTO.getQuantity());
+    }
+
+    @PatchMapping("/{id}/decrement")
+    public Mono<BeerDTO> decrement(@PathVariable Long id, @RequestBody @Valid QuantityDTO quantityDTO) {
+        return beerService.decrement(id, quantityDTO.getQuantity());
+    }
+}
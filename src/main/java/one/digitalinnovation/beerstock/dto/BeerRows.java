@@ -0,0 +1,51 @@
+package one.digitalinnovation.beerstock.dto;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import one.digitalinnovation.beerstock.entity.Beer;
+import one.digitalinnovation.beerstock.mapper.BeerMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A page of beers as read from the database, with the quantity each one holds on this node. JSON responses are
+ * written straight from the entities by the {@code BeerRowsHttpMessageConverter}; any other converter serializes
+ * the {@link BeerDTO}s of {@link #toDTOs()}.
+ */
+public class BeerRows {
+
+    private final List<Beer> beers;
+    private final int[] quantities;
+
+    public BeerRows(List<Beer> beers, int[] quantities) {
+        this.beers = beers;
+        this.quantities = quantities;
+    }
+
+    public int size() {
+        return beers.size();
+    }
+
+    public Beer beerAt(int index) {
+        return beers.get(index);
+    }
+
+    public int quantityAt(int index) {
+        return quantities[index];
+    }
+
+    public Long lastId() {
+        return beers.isEmpty() ? null : beers.get(beers.size() - 1).getId();
+    }
+
+    @JsonValue
+    public List<BeerDTO> toDTOs() {
+        List<BeerDTO> beerDTOs = new ArrayList<>(beers.size());
+        for (int index = 0; index < beers.size(); index++) {
+            BeerDTO beerDTO = BeerMapper.INSTANCE.toDTO(beers.get(index));
+            beerDTO.setQuantity(quantities[index]);
+            beerDTOs.add(beerDTO);
+        }
+        return beerDTOs;
+    }
+}
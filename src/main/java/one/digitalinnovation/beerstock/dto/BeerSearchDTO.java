@@ -0,0 +1,24 @@
+package one.digitalinnovation.beerstock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import one.digitalinnovation.beerstock.enums.BeerType;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BeerSearchDTO {
+
+    private String brand;
+
+    private BeerType type;
+
+    private Integer minQuantity;
+
+    private Integer maxQuantity;
+
+    private boolean lowStock;
+}
@@ -0,0 +1,31 @@
+package one.digitalinnovation.beerstock.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import one.digitalinnovation.beerstock.enums.BeerType;
+
+/**
+ * Search result holding only the beer fields that were asked for; the others are left out of the JSON.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BeerSummaryDTO {
+
+    private Long id;
+
+    private String name;
+
+    private String brand;
+
+    private Integer max;
+
+    private Integer quantity;
+
+    private BeerType type;
+}
@@ -0,0 +1,22 @@
+package one.digitalinnovation.beerstock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import one.digitalinnovation.beerstock.enums.BeerType;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryStatsDTO {
+
+    private StockTotalsDTO total;
+
+    private Map<BeerType, StockTotalsDTO> byType;
+
+    private Map<String, StockTotalsDTO> byBrand;
+}
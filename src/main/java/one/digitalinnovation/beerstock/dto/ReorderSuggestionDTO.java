@@ -0,0 +1,31 @@
+package one.digitalinnovation.beerstock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import one.digitalinnovation.beerstock.enums.BeerType;
+
+/**
+ * A beer stocked at or below its reorder point, with the units that would fill it up to its max.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReorderSuggestionDTO {
+
+    private Long id;
+
+    private String name;
+
+    private BeerType type;
+
+    private Integer quantity;
+
+    private Integer max;
+
+    private Integer reorderPoint;
+
+    private Integer reorderQuantity;
+}
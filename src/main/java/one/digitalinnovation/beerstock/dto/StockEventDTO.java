@@ -0,0 +1,32 @@
+package one.digitalinnovation.beerstock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import one.digitalinnovation.beerstock.enums.StockEventType;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockEventDTO {
+
+    private Long offset;
+
+    private Long beerId;
+
+    private String beerName;
+
+    private StockEventType type;
+
+    private int delta;
+
+    private int quantity;
+
+    private long beerVersion;
+
+    private Instant occurredAt;
+}
@@ -0,0 +1,25 @@
+package one.digitalinnovation.beerstock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Stock of a group of beers: how many beers it has, the units they hold, the units they can hold and the share of
+ * that capacity in use.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockTotalsDTO {
+
+    private Long skus;
+
+    private Long quantity;
+
+    private Long capacity;
+
+    private Double utilization;
+}
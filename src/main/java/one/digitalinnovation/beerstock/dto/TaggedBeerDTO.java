@@ -0,0 +1,15 @@
+package one.digitalinnovation.beerstock.dto;
+
+import lombok.Value;
+
+/**
+ * A beer together with the weak entity tag of that same copy, before the controller adds the {@code W/} prefix, so a
+ * response never pairs a body with the tag of another version of it.
+ */
+@Value
+public class TaggedBeerDTO {
+
+    BeerDTO beer;
+
+    String entityTag;
+}
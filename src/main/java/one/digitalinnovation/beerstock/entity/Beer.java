@@ -12,15 +12,26 @@ import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.Version;
 
 @Data
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_beer_brand", columnList = "brand"),
+        @Index(name = "idx_beer_type_quantity", columnList = "type, quantity")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 public class Beer {
 
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "beer_sequence")
+    @SequenceGenerator(name = "beer_sequence", sequenceName = "beer_sequence", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -39,5 +50,9 @@ public class Beer {
     @Column(nullable = false)
     private BeerType type;
 
+    @Version
+    @Column(nullable = false)
+    private long version;
+
 
 }
@@ -0,0 +1,39 @@
+package one.digitalinnovation.beerstock.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+import java.time.Instant;
+
+@Data
+@Entity
+@Table(indexes = {
+        @Index(name = "idx_idempotency_key_created_at", columnList = "createdAt")
+})
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyKey {
+
+    @Id
+    private String idempotencyKey;
+
+    @Column(nullable = false)
+    private String fingerprint;
+
+    private Integer status;
+
+    private String contentType;
+
+    @Lob
+    private byte[] body;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,63 @@
+package one.digitalinnovation.beerstock.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import one.digitalinnovation.beerstock.enums.StockEventType;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import java.time.Instant;
+
+/**
+ * One stock change, appended in the transaction that made it. The {@code offset} is left empty on insert and
+ * handed out after commit by {@link one.digitalinnovation.beerstock.service.StockEventLog}, so offsets follow commit
+ * order and a client reading past an offset never misses an event that committed late.
+ */
+@Data
+@Entity
+@Table(indexes = {
+        @Index(name = "idx_stock_event_offset", columnList = "event_offset", unique = true)
+})
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_event_sequence")
+    @SequenceGenerator(name = "stock_event_sequence", sequenceName = "stock_event_sequence", allocationSize = 1)
+    private Long id;
+
+    @Column(name = "event_offset")
+    private Long offset;
+
+    @Column(nullable = false)
+    private Long beerId;
+
+    @Column(nullable = false)
+    private String beerName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private StockEventType type;
+
+    @Column(nullable = false)
+    private int delta;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    @Column(nullable = false)
+    private long beerVersion;
+
+    @Column(nullable = false)
+    private Instant occurredAt;
+}
@@ -0,0 +1,17 @@
+package one.digitalinnovation.beerstock.enums;
+
+/**
+ * When a write-behind stock deposit is reported as done.
+ */
+public enum StockWriteDurability {
+
+    /**
+     * As soon as it is accepted in memory; it is lost if the node dies before the next flush.
+     */
+    BUFFERED,
+
+    /**
+     * Once the flush that writes it has committed, so the caller waits for at most one flush interval.
+     */
+    FLUSHED
+}
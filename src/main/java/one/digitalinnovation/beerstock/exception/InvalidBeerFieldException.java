@@ -0,0 +1,14 @@
+package one.digitalinnovation.beerstock.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.Collection;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidBeerFieldException extends Exception {
+
+    public InvalidBeerFieldException(Collection<String> fields) {
+        super(String.format("Fields %s are not beer fields", fields));
+    }
+}
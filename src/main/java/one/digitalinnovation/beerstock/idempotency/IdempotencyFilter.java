@@ -0,0 +1,198 @@
+package one.digitalinnovation.beerstock.idempotency;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Optional;
+
+/**
+ * Makes {@code POST} and {@code PATCH} requests carrying an {@code Idempotency-Key} header safe to retry. The first
+ * request with a key runs and its response is kept in the {@link IdempotencyStore}; later requests with the same key
+ * and the same method, path, query and body get that response replayed without reaching the controller.
+ * <p>
+ * A key reused for a different request is rejected with 422, and a retry arriving while the first request still runs
+ * with 409. Only successful responses are kept: a failed request changed nothing, so its retry simply runs again.
+ */
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final String REQUESTS = "beerstock.idempotency.requests";
+
+    private final IdempotencyStore idempotencyStore;
+    private final MeterRegistry meterRegistry;
+
+    public IdempotencyFilter(IdempotencyStore idempotencyStore, MeterRegistry meterRegistry) {
+        this.idempotencyStore = idempotencyStore;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String method = request.getMethod();
+        return request.getHeader(IDEMPOTENCY_KEY_HEADER) == null
+                || !(HttpMethod.POST.matches(method) || HttpMethod.PATCH.matches(method));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String key = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            reject(response, HttpStatus.BAD_REQUEST, "invalid",
+                    "Idempotency-Key must have between 1 and " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request);
+        String fingerprint = fingerprintOf(cachedRequest);
+        Optional<IdempotencyRecord> claimed = idempotencyStore.claim(key, fingerprint);
+        if (claimed.isPresent()) {
+            replay(claimed.get(), fingerprint, response);
+            return;
+        }
+
+        ContentCachingResponseWrapper cachedResponse = new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(cachedRequest, cachedResponse);
+        } catch (IOException | ServletException | RuntimeException e) {
+            idempotencyStore.release(key);
+            throw e;
+        }
+        if (HttpStatus.valueOf(cachedResponse.getStatus()).is2xxSuccessful()) {
+            idempotencyStore.complete(key, IdempotencyRecord.builder()
+                    .fingerprint(fingerprint)
+                    .status(cachedResponse.getStatus())
+                    .contentType(cachedResponse.getContentType())
+                    .body(cachedResponse.getContentAsByteArray())
+                    .build());
+        } else {
+            idempotencyStore.release(key);
+        }
+        meterRegistry.counter(REQUESTS, "outcome", "executed").increment();
+        cachedResponse.copyBodyToResponse();
+    }
+
+    private void replay(IdempotencyRecord record, String fingerprint, HttpServletResponse response) throws IOException {
+        if (!record.getFingerprint().equals(fingerprint)) {
+            reject(response, HttpStatus.UNPROCESSABLE_ENTITY, "mismatched",
+                    "Idempotency-Key was already used for a different request");
+        } else if (!record.isCompleted()) {
+            reject(response, HttpStatus.CONFLICT, "in_progress",
+                    "A request with this Idempotency-Key is still being processed");
+        } else {
+            meterRegistry.counter(REQUESTS, "outcome", "replayed").increment();
+            response.setStatus(record.getStatus());
+            response.setHeader(REPLAYED_HEADER, "true");
+            if (record.getContentType() != null) {
+                response.setContentType(record.getContentType());
+            }
+            byte[] body = record.getBody() == null ? new byte[0] : record.getBody();
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        }
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, String outcome, String message) throws IOException {
+        meterRegistry.counter(REQUESTS, "outcome", outcome).increment();
+        response.sendError(status.value(), message);
+    }
+
+    private static String fingerprintOf(CachedBodyRequest request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(request.getMethod().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) ' ');
+            digest.update(request.getRequestURI().getBytes(StandardCharsets.UTF_8));
+            if (request.getQueryString() != null) {
+                digest.update((byte) '?');
+                digest.update(request.getQueryString().getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update((byte) '\n');
+            digest.update(request.body);
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Reads the body up front, so it can be fingerprinted before the controller reads it again.
+     */
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = StreamUtils.copyToByteArray(request.getInputStream());
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return input.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    // The body is already in memory, so all of it is available and read right away.
+                    try {
+                        readListener.onDataAvailable();
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding() == null ? StandardCharsets.UTF_8.name() : getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(), Charset.forName(encoding)));
+        }
+    }
+}
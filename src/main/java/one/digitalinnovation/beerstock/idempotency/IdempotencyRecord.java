@@ -0,0 +1,29 @@
+package one.digitalinnovation.beerstock.idempotency;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * What a store keeps for an idempotency key: the fingerprint of the request that claimed it and, once that request
+ * finished, the response it got.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    private String fingerprint;
+
+    private Integer status;
+
+    private String contentType;
+
+    private byte[] body;
+
+    public boolean isCompleted() {
+        return status != null;
+    }
+}
@@ -0,0 +1,23 @@
+package one.digitalinnovation.beerstock.idempotency;
+
+import java.util.Optional;
+
+/**
+ * Keeps the responses given to requests that carried an {@code Idempotency-Key}, for as long as clients may retry
+ * them. Keys are claimed before the request runs, so two copies of a request racing each other run only once.
+ */
+public interface IdempotencyStore {
+
+    /**
+     * Claims the key for a request with the given fingerprint. Returns empty when the key was free, in which case the
+     * caller must either {@link #complete} or {@link #release} it, or else the record left by the earlier request.
+     */
+    Optional<IdempotencyRecord> claim(String key, String fingerprint);
+
+    void complete(String key, IdempotencyRecord record);
+
+    /**
+     * Frees a claimed key whose request failed, so a retry runs again.
+     */
+    void release(String key);
+}
@@ -0,0 +1,38 @@
+package one.digitalinnovation.beerstock.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Bounded, expiring store local to this node. Retries that reach another node, or arrive after a restart, run again.
+ */
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private final Cache<String, IdempotencyRecord> records;
+
+    public InMemoryIdempotencyStore(long maximumSize, Duration expireAfter) {
+        this.records = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfter)
+                .build();
+    }
+
+    @Override
+    public Optional<IdempotencyRecord> claim(String key, String fingerprint) {
+        IdempotencyRecord claimed = IdempotencyRecord.builder().fingerprint(fingerprint).build();
+        return Optional.ofNullable(records.asMap().putIfAbsent(key, claimed));
+    }
+
+    @Override
+    public void complete(String key, IdempotencyRecord record) {
+        records.put(key, record);
+    }
+
+    @Override
+    public void release(String key) {
+        records.invalidate(key);
+    }
+}
@@ -0,0 +1,77 @@
+package one.digitalinnovation.beerstock.idempotency;
+
+import lombok.extern.slf4j.Slf4j;
+import one.digitalinnovation.beerstock.entity.IdempotencyKey;
+import one.digitalinnovation.beerstock.repository.IdempotencyKeyRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Store shared by every node on the database, surviving restarts. Claims are inserts, so the primary key decides
+ * which of two racing requests runs. Expired keys are treated as free and purged in the background.
+ */
+@Slf4j
+public class JpaIdempotencyStore implements IdempotencyStore {
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final Duration expireAfter;
+
+    public JpaIdempotencyStore(IdempotencyKeyRepository idempotencyKeyRepository, Duration expireAfter) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.expireAfter = expireAfter;
+    }
+
+    @Override
+    public Optional<IdempotencyRecord> claim(String key, String fingerprint) {
+        Optional<IdempotencyKey> existing = idempotencyKeyRepository.findById(key);
+        if (existing.isPresent() && isExpired(existing.get())) {
+            idempotencyKeyRepository.deleteById(key);
+            existing = Optional.empty();
+        }
+        if (existing.isEmpty()) {
+            try {
+                idempotencyKeyRepository.claim(key, fingerprint, Instant.now());
+                return Optional.empty();
+            } catch (DataIntegrityViolationException e) {
+                existing = idempotencyKeyRepository.findById(key);
+            }
+        }
+        return Optional.of(existing.map(JpaIdempotencyStore::toRecord)
+                .orElseGet(() -> IdempotencyRecord.builder().fingerprint(fingerprint).build()));
+    }
+
+    @Override
+    public void complete(String key, IdempotencyRecord record) {
+        idempotencyKeyRepository.complete(key, record.getStatus(), record.getContentType(), record.getBody());
+    }
+
+    @Override
+    public void release(String key) {
+        idempotencyKeyRepository.deleteById(key);
+    }
+
+    @Scheduled(fixedDelayString = "${beerstock.idempotency.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        int purged = idempotencyKeyRepository.deleteCreatedBefore(Instant.now().minus(expireAfter));
+        if (purged > 0) {
+            log.debug("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    private boolean isExpired(IdempotencyKey idempotencyKey) {
+        return idempotencyKey.getCreatedAt().isBefore(Instant.now().minus(expireAfter));
+    }
+
+    private static IdempotencyRecord toRecord(IdempotencyKey idempotencyKey) {
+        return IdempotencyRecord.builder()
+                .fingerprint(idempotencyKey.getFingerprint())
+                .status(idempotencyKey.getStatus())
+                .contentType(idempotencyKey.getContentType())
+                .body(idempotencyKey.getBody())
+                .build();
+    }
+}
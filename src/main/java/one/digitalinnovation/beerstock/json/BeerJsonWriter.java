@@ -0,0 +1,244 @@
+package one.digitalinnovation.beerstock.json;
+
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.dto.BeerRows;
+import one.digitalinnovation.beerstock.entity.Beer;
+import one.digitalinnovation.beerstock.enums.BeerType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Writes beers as JSON straight from the entities, producing the same bytes Jackson writes for a {@link BeerDTO}.
+ * <p>
+ * Field names and beer types are encoded once, numbers are written digit by digit and names are escaped and encoded
+ * as UTF-8 by hand, all into a buffer borrowed from a small pool and handed back on {@link #close()}, so writing a
+ * beer allocates nothing. When the pool is empty a new buffer is allocated, and dropped again if the pool is full
+ * when it is returned. Closing the writer flushes it but leaves the stream open.
+ */
+public final class BeerJsonWriter implements Closeable {
+
+    static final int BUFFER_SIZE = 16 * 1024;
+    private static final int POOL_SIZE = 64;
+    private static final BlockingQueue<byte[]> POOL = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    // Room for the fields written between two capacity checks: at most three keys, two longs and a beer type.
+    private static final int MAX_FIELDS_SIZE = 128;
+    // Longest encoding of one char of a name: an escape such as \u001F.
+    private static final int MAX_CHAR_SIZE = 6;
+
+    private static final byte[] ID = ascii("{\"id\":");
+    private static final byte[] NAME = ascii(",\"name\":");
+    private static final byte[] BRAND = ascii(",\"brand\":");
+    private static final byte[] MAX = ascii(",\"max\":");
+    private static final byte[] QUANTITY = ascii(",\"quantity\":");
+    private static final byte[] TYPE = ascii(",\"type\":");
+    private static final byte[] NULL = ascii("null");
+    private static final byte[][] TYPE_VALUES = new byte[BeerType.values().length][];
+    private static final byte[] HEX = ascii("0123456789ABCDEF");
+    private static final byte[] MIN_LONG = ascii(Long.toString(Long.MIN_VALUE));
+
+    static {
+        for (BeerType type : BeerType.values()) {
+            TYPE_VALUES[type.ordinal()] = ascii("\"" + type.name() + "\"");
+        }
+    }
+
+    private final OutputStream outputStream;
+    private byte[] buffer;
+    private int position;
+
+    private BeerJsonWriter(OutputStream outputStream, byte[] buffer) {
+        this.outputStream = outputStream;
+        this.buffer = buffer;
+    }
+
+    public static BeerJsonWriter to(OutputStream outputStream) {
+        byte[] buffer = POOL.poll();
+        return new BeerJsonWriter(outputStream, buffer != null ? buffer : new byte[BUFFER_SIZE]);
+    }
+
+    /**
+     * Writes the rows as a JSON array.
+     */
+    public void writeArray(BeerRows rows) throws IOException {
+        writeRaw('[');
+        for (int index = 0; index < rows.size(); index++) {
+            if (index > 0) {
+                writeRaw(',');
+            }
+            writeBeer(rows.beerAt(index), rows.quantityAt(index));
+        }
+        writeRaw(']');
+    }
+
+    /**
+     * Writes one beer as a JSON object, with the given quantity in place of the one the entity holds.
+     */
+    public void writeBeer(Beer beer, int quantity) throws IOException {
+        ensureCapacity(MAX_FIELDS_SIZE);
+        writeBytes(ID);
+        if (beer.getId() == null) {
+            writeBytes(NULL);
+        } else {
+            writeLong(beer.getId());
+        }
+        writeBytes(NAME);
+        writeString(beer.getName());
+        ensureCapacity(MAX_FIELDS_SIZE);
+        writeBytes(BRAND);
+        writeString(beer.getBrand());
+        ensureCapacity(MAX_FIELDS_SIZE);
+        writeBytes(MAX);
+        writeLong(beer.getMax());
+        writeBytes(QUANTITY);
+        writeLong(quantity);
+        writeBytes(TYPE);
+        writeBytes(beer.getType() == null ? NULL : TYPE_VALUES[beer.getType().ordinal()]);
+        buffer[position++] = '}';
+    }
+
+    public void writeRaw(char ascii) throws IOException {
+        ensureCapacity(1);
+        buffer[position++] = (byte) ascii;
+    }
+
+    public void flush() throws IOException {
+        if (position > 0) {
+            outputStream.write(buffer, 0, position);
+            position = 0;
+        }
+        outputStream.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (buffer == null) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            POOL.offer(buffer);
+            buffer = null;
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            writeBytes(NULL);
+            return;
+        }
+        int length = value.length();
+        // Names fit the buffer whole, so room is made once; only a string longer than the buffer is checked per char.
+        boolean checkEachChar = (long) length * MAX_CHAR_SIZE + 2 > buffer.length;
+        ensureCapacity(checkEachChar ? MAX_CHAR_SIZE : length * MAX_CHAR_SIZE + 2);
+        buffer[position++] = '"';
+        for (int index = 0; index < length; index++) {
+            if (checkEachChar) {
+                ensureCapacity(MAX_CHAR_SIZE);
+            }
+            char c = value.charAt(index);
+            if (c < 0x80) {
+                if (c >= 0x20 && c != '"' && c != '\\') {
+                    buffer[position++] = (byte) c;
+                } else {
+                    writeEscaped(c);
+                }
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Like Jackson, chars outside the basic plane are written as escaped surrogate pairs.
+                writeUnicodeEscape(c);
+            } else {
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        ensureCapacity(1);
+        buffer[position++] = '"';
+    }
+
+    private void writeEscaped(char c) {
+        byte escape;
+        switch (c) {
+            case '"':
+            case '\\':
+                escape = (byte) c;
+                break;
+            case '\b':
+                escape = 'b';
+                break;
+            case '\t':
+                escape = 't';
+                break;
+            case '\n':
+                escape = 'n';
+                break;
+            case '\f':
+                escape = 'f';
+                break;
+            case '\r':
+                escape = 'r';
+                break;
+            default:
+                writeUnicodeEscape(c);
+                return;
+        }
+        buffer[position++] = '\\';
+        buffer[position++] = escape;
+    }
+
+    private void writeUnicodeEscape(char c) {
+        buffer[position++] = '\\';
+        buffer[position++] = 'u';
+        buffer[position++] = HEX[c >> 12];
+        buffer[position++] = HEX[(c >> 8) & 0xF];
+        buffer[position++] = HEX[(c >> 4) & 0xF];
+        buffer[position++] = HEX[c & 0xF];
+    }
+
+    private void writeLong(long value) {
+        long remaining = value;
+        if (remaining == Long.MIN_VALUE) {
+            writeBytes(MIN_LONG);
+            return;
+        }
+        if (remaining < 0) {
+            buffer[position++] = '-';
+            remaining = -remaining;
+        }
+        int digits = 1;
+        for (long bound = 10; digits < 19 && remaining >= bound; bound *= 10) {
+            digits++;
+        }
+        int end = position + digits;
+        for (int index = end - 1; index >= position; index--) {
+            buffer[index] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        }
+        position = end;
+    }
+
+    private void writeBytes(byte[] bytes) {
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void ensureCapacity(int size) throws IOException {
+        if (position + size > buffer.length) {
+            outputStream.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
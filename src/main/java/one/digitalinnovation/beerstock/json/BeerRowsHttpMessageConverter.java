@@ -0,0 +1,45 @@
+package one.digitalinnovation.beerstock.json;
+
+import one.digitalinnovation.beerstock.dto.BeerRows;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Writes {@link BeerRows} JSON responses with the {@link BeerJsonWriter}. Spring Boot puts converter beans ahead of
+ * its Jackson one, so JSON listings take this path; other media types fall back to Jackson and the rows' DTOs.
+ */
+@Component
+public class BeerRowsHttpMessageConverter extends AbstractHttpMessageConverter<BeerRows> {
+
+    public BeerRowsHttpMessageConverter() {
+        super(MediaType.APPLICATION_JSON);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return BeerRows.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected BeerRows readInternal(Class<? extends BeerRows> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Beer rows are only written", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(BeerRows rows, HttpOutputMessage outputMessage) throws IOException {
+        try (BeerJsonWriter writer = BeerJsonWriter.to(outputMessage.getBody())) {
+            writer.writeArray(rows);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package one.digitalinnovation.beerstock.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+/**
+ * Writes JSON like {@link MappingJackson2HttpMessageConverter}, but holds bodies back until they outgrow
+ * {@code bufferSize}. A body that stays smaller is sent whole with its {@code Content-Length}. A larger one is
+ * streamed, starting with the buffered bytes.
+ * <p>
+ * Tomcat only applies {@code server.compression.min-response-size} to responses of known length, and the plain
+ * converter always streams, so without this every JSON body is compressed, a single beer included.
+ */
+public class BufferingJackson2HttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    private final int bufferSize;
+
+    public BufferingJackson2HttpMessageConverter(ObjectMapper objectMapper, int bufferSize) {
+        super(objectMapper);
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        BufferedOutputMessage bufferedMessage = new BufferedOutputMessage(outputMessage, bufferSize);
+        super.writeInternal(object, type, bufferedMessage);
+        bufferedMessage.finish();
+    }
+
+    private static class BufferedOutputMessage extends OutputStream implements HttpOutputMessage {
+
+        private final HttpOutputMessage outputMessage;
+        private final int bufferSize;
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private OutputStream body;
+
+        private BufferedOutputMessage(HttpOutputMessage outputMessage, int bufferSize) {
+            this.outputMessage = outputMessage;
+            this.bufferSize = bufferSize;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return outputMessage.getHeaders();
+        }
+
+        @Override
+        public OutputStream getBody() {
+            return this;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (body == null && buffer.size() + length > bufferSize) {
+                body = outputMessage.getBody();
+                buffer.writeTo(body);
+                buffer = null;
+            }
+            if (body != null) {
+                body.write(bytes, offset, length);
+            } else {
+                buffer.write(bytes, offset, length);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            // Flushing a buffered body would commit the response before its length is known.
+            if (body != null) {
+                body.flush();
+            }
+        }
+
+        private void finish() throws IOException {
+            if (body == null) {
+                outputMessage.getHeaders().setContentLength(buffer.size());
+                buffer.writeTo(outputMessage.getBody());
+            }
+        }
+    }
+}
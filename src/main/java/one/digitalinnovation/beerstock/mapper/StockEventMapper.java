@@ -0,0 +1,14 @@
+package one.digitalinnovation.beerstock.mapper;
+
+import one.digitalinnovation.beerstock.dto.StockEventDTO;
+import one.digitalinnovation.beerstock.entity.StockEvent;
+import org.mapstruct.Mapper;
+import org.mapstruct.factory.Mappers;
+
+@Mapper
+public interface StockEventMapper {
+
+    StockEventMapper INSTANCE = Mappers.getMapper(StockEventMapper.class);
+
+    StockEventDTO toDTO(StockEvent stockEvent);
+}
@@ -1,11 +1,55 @@
 package one.digitalinnovation.beerstock.repository;
 
 import one.digitalinnovation.beerstock.entity.Beer;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface BeerRepository extends JpaRepository<Beer, Long> {
+import static org.hibernate.annotations.QueryHints.FETCH_SIZE;
+import static org.hibernate.annotations.QueryHints.READ_ONLY;
+
+public interface BeerRepository extends JpaRepository<Beer, Long>, BeerSearchRepository {
 
     Optional<Beer> findByName(String name);
+
+    List<Beer> findByNameIn(Collection<String> names);
+
+    List<Beer> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @QueryHints({
+            @QueryHint(name = FETCH_SIZE, value = "500"),
+            @QueryHint(name = READ_ONLY, value = "true")
+    })
+    Stream<Beer> streamAllByOrderByIdAsc();
+
+    @Query("select coalesce(sum(b.quantity), 0) from Beer b")
+    long sumQuantity();
+
+    @Query("select count(b) from Beer b where b.quantity * 100 >= b.max * :percent")
+    long countNearMax(@Param("percent") int percent);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Beer b set b.quantity = b.quantity + :quantity, b.version = b.version + 1 where b.id = :id and b.quantity + :quantity <= b.max")
+    int incrementQuantity(@Param("id") Long id, @Param("quantity") int quantity);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Beer b set b.quantity = b.quantity - :quantity, b.version = b.version + 1 where b.id = :id and b.quantity >= :quantity")
+    int decrementQuantity(@Param("id") Long id, @Param("quantity") int quantity);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Beer b set b.quantity = b.quantity + :delta, b.version = b.version + 1 where b.id = :id and b.quantity + :delta >= 0 and b.quantity + :delta <= b.max")
+    int adjustQuantity(@Param("id") Long id, @Param("delta") int delta);
 }
@@ -0,0 +1,19 @@
+package one.digitalinnovation.beerstock.repository;
+
+import one.digitalinnovation.beerstock.dto.BeerSearchDTO;
+import one.digitalinnovation.beerstock.dto.BeerSummaryDTO;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+public interface BeerSearchRepository {
+
+    Set<String> SEARCH_FIELDS = Set.of("id", "name", "brand", "max", "quantity", "type");
+
+    /**
+     * Returns up to {@code limit} beers matching every given filter with an id greater than {@code afterId}, ordered
+     * by id. Only the given {@link #SEARCH_FIELDS} and the id are read from the database.
+     */
+    List<BeerSummaryDTO> search(BeerSearchDTO search, Collection<String> fields, long afterId, int limit);
+}
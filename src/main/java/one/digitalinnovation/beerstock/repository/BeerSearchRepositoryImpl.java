@@ -0,0 +1,91 @@
+package one.digitalinnovation.beerstock.repository;
+
+import one.digitalinnovation.beerstock.dto.BeerSearchDTO;
+import one.digitalinnovation.beerstock.dto.BeerSummaryDTO;
+import one.digitalinnovation.beerstock.entity.Beer;
+import one.digitalinnovation.beerstock.enums.BeerType;
+import org.springframework.beans.factory.annotation.Value;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Builds the search as a tuple query with one predicate per given filter, so the database can pick
+ * {@code idx_beer_brand} or {@code idx_beer_type_quantity} instead of evaluating {@code :param is null} branches on
+ * every row. Low stock means a quantity at or below {@code beerstock.search.low-stock-percent} of the beer max.
+ */
+public class BeerSearchRepositoryImpl implements BeerSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${beerstock.search.low-stock-percent:20}")
+    private int lowStockPercent;
+
+    @Override
+    public List<BeerSummaryDTO> search(BeerSearchDTO search, Collection<String> fields, long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Beer> beer = query.from(Beer.class);
+
+        Set<String> selectedFields = new LinkedHashSet<>();
+        selectedFields.add("id");
+        selectedFields.addAll(fields);
+        List<Selection<?>> selections = selectedFields.stream()
+                .map(field -> beer.get(field).alias(field))
+                .collect(Collectors.toList());
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.greaterThan(beer.get("id"), afterId));
+        if (search.getBrand() != null) {
+            predicates.add(cb.equal(beer.get("brand"), search.getBrand()));
+        }
+        if (search.getType() != null) {
+            predicates.add(cb.equal(beer.get("type"), search.getType()));
+        }
+        Path<Integer> quantity = beer.get("quantity");
+        if (search.getMinQuantity() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(quantity, search.getMinQuantity()));
+        }
+        if (search.getMaxQuantity() != null) {
+            predicates.add(cb.lessThanOrEqualTo(quantity, search.getMaxQuantity()));
+        }
+        if (search.isLowStock()) {
+            predicates.add(cb.le(cb.prod(quantity, 100), cb.prod(beer.<Integer>get("max"), lowStockPercent)));
+        }
+
+        query.multiselect(selections)
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.asc(beer.get("id")));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList()
+                .stream()
+                .map(tuple -> toSummary(tuple, selectedFields))
+                .collect(Collectors.toList());
+    }
+
+    private BeerSummaryDTO toSummary(Tuple tuple, Set<String> fields) {
+        return BeerSummaryDTO.builder()
+                .id(tuple.get("id", Long.class))
+                .name(fields.contains("name") ? tuple.get("name", String.class) : null)
+                .brand(fields.contains("brand") ? tuple.get("brand", String.class) : null)
+                .max(fields.contains("max") ? tuple.get("max", Integer.class) : null)
+                .quantity(fields.contains("quantity") ? tuple.get("quantity", Integer.class) : null)
+                .type(fields.contains("type") ? tuple.get("type", BeerType.class) : null)
+                .build();
+    }
+}
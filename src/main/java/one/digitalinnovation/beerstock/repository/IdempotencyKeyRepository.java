@@ -0,0 +1,33 @@
+package one.digitalinnovation.beerstock.repository;
+
+import one.digitalinnovation.beerstock.entity.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+
+    /**
+     * Inserts the key, failing when it already exists, where {@code save} would overwrite it.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "insert into idempotency_key (idempotency_key, fingerprint, created_at) values (:key, :fingerprint, :createdAt)",
+            nativeQuery = true)
+    int claim(@Param("key") String key, @Param("fingerprint") String fingerprint, @Param("createdAt") Instant createdAt);
+
+    @Transactional
+    @Modifying
+    @Query("update IdempotencyKey k set k.status = :status, k.contentType = :contentType, k.body = :body where k.idempotencyKey = :key")
+    int complete(@Param("key") String key, @Param("status") int status, @Param("contentType") String contentType,
+                 @Param("body") byte[] body);
+
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyKey k where k.createdAt < :createdBefore")
+    int deleteCreatedBefore(@Param("createdBefore") Instant createdBefore);
+}
@@ -0,0 +1,37 @@
+package one.digitalinnovation.beerstock.repository;
+
+import one.digitalinnovation.beerstock.entity.StockEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface StockEventRepository extends JpaRepository<StockEvent, Long> {
+
+    /**
+     * Copies name, quantity and version from the beer row as the statement sees it, so the event describes the
+     * state left by the change made earlier in the same transaction without reading the beer back.
+     */
+    String APPEND = "insert into stock_event (id, beer_id, beer_name, type, delta, quantity, beer_version, occurred_at) "
+            + "select next value for stock_event_sequence, b.id, b.name, :type, :delta, b.quantity, b.version, current_timestamp "
+            + "from beer b where b.id = :beerId";
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = APPEND, nativeQuery = true)
+    int append(@Param("beerId") Long beerId, @Param("type") String type, @Param("delta") int delta);
+
+    List<StockEvent> findByOffsetGreaterThanOrderByOffsetAsc(Long offset, Pageable pageable);
+
+    @Query("select e.id from StockEvent e where e.offset is null order by e.id")
+    List<Long> findUnsequencedIds(Pageable pageable);
+
+    @Modifying
+    @Query("update StockEvent e set e.offset = :offset where e.id = :id and e.offset is null")
+    int assignOffset(@Param("id") Long id, @Param("offset") long offset);
+
+    @Query("select coalesce(max(e.offset), 0) from StockEvent e")
+    long maxOffset();
+}
@@ -0,0 +1,99 @@
+package one.digitalinnovation.beerstock.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AllArgsConstructor;
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.entity.Beer;
+import one.digitalinnovation.beerstock.mapper.BeerMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of beers by name.
+ * <p>
+ * Entries hold the beer as stored in the database, together with its row version, so callers apply anything that
+ * changes more often, like the stock ledger quantity, on top of the copy they get back. Writers must call
+ * {@link #invalidate(String, Long)} only after their change is committed: an invalidation waits for a load of the
+ * same name that is still running, so a value read before the write can never stay in the cache. For the same
+ * reason a caller must not hold a database connection while it invalidates, or it can wait on a load that is itself
+ * waiting for a pooled connection; this is why open session in view is turned off.
+ */
+@Component
+public class BeerCache {
+
+    private static final String CACHE_NAME = "beers";
+
+    private final BeerMapper beerMapper = BeerMapper.INSTANCE;
+    private final Cache<String, CachedBeer> beersByName;
+
+    @Autowired
+    public BeerCache(@Value("${beerstock.cache.maximum-size:10000}") long maximumSize,
+                     @Value("${beerstock.cache.expire-after-write:10m}") Duration expireAfterWrite,
+                     MeterRegistry meterRegistry) {
+        this.beersByName = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, beersByName, CACHE_NAME);
+    }
+
+    /**
+     * Returns a copy of the cached beer, loading it when absent. A {@code null} from the loader is not cached.
+     */
+    public BeerDTO get(String name, Function<String, Beer> loader) {
+        return get(name, loader, (beerDTO, version) -> beerDTO.toBuilder().build());
+    }
+
+    /**
+     * Applies the reader to the cached beer and its row version, loading it when absent, and returns {@code null}
+     * when there is no such beer. The reader gets the cached instance itself and must not change it.
+     */
+    public <T> T get(String name, Function<String, Beer> loader, BiFunction<BeerDTO, Long, T> reader) {
+        CachedBeer cachedBeer = beersByName.get(name, beerName -> {
+            Beer beer = loader.apply(beerName);
+            return beer == null ? null : new CachedBeer(beerMapper.toDTO(beer), beer.getVersion());
+        });
+        return cachedBeer == null ? null : reader.apply(cachedBeer.beerDTO, cachedBeer.version);
+    }
+
+    /**
+     * Returns a copy of the cached beer, or {@code null} when it is not cached. Nothing is loaded.
+     */
+    public BeerDTO getIfPresent(String name) {
+        CachedBeer cachedBeer = beersByName.getIfPresent(name);
+        return cachedBeer == null ? null : cachedBeer.beerDTO.toBuilder().build();
+    }
+
+    /**
+     * Drops the cached beer unless it was already loaded at the given version or a later one. A {@code null}
+     * version always drops it.
+     */
+    public void invalidate(String name, Long version) {
+        if (version == null) {
+            beersByName.invalidate(name);
+            return;
+        }
+        beersByName.asMap().computeIfPresent(name, (beerName, cachedBeer) -> cachedBeer.version < version ? null : cachedBeer);
+    }
+
+    public CacheStats stats() {
+        return beersByName.stats();
+    }
+
+    @AllArgsConstructor
+    private static class CachedBeer {
+
+        private final BeerDTO beerDTO;
+        private final long version;
+    }
+}
@@ -0,0 +1,44 @@
+package one.digitalinnovation.beerstock.service;
+
+import lombok.AllArgsConstructor;
+import one.digitalinnovation.beerstock.cluster.BeerInvalidation;
+import one.digitalinnovation.beerstock.cluster.InvalidationChannel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Applies invalidations published by other nodes to this node's cache, stock ledger and indexes. Nothing depends on the
+ * listener, so it is created eagerly even with lazy initialization.
+ */
+@Component
+@Lazy(false)
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class BeerInvalidationListener {
+
+    private final InvalidationChannel invalidationChannel;
+    private final BeerCache beerCache;
+    private final StockLedger stockLedger;
+    private final BeerNameIndex beerNameIndex;
+    private final ReorderIndex reorderIndex;
+    private final InventoryStats inventoryStats;
+    private final CatalogVersion catalogVersion;
+
+    @PostConstruct
+    public void subscribe() {
+        invalidationChannel.subscribe(this::onInvalidation);
+    }
+
+    void onInvalidation(BeerInvalidation invalidation) {
+        beerCache.invalidate(invalidation.getName(), invalidation.getVersion());
+        stockLedger.refresh(invalidation.getId());
+        reorderIndex.refresh(invalidation.getId());
+        inventoryStats.refresh(invalidation.getId());
+        if (invalidation.getVersion() == null && !invalidation.isStockOnly()) {
+            beerNameIndex.refresh(invalidation.getId());
+        }
+        catalogVersion.advance();
+    }
+}
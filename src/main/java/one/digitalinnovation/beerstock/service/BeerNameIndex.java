@@ -0,0 +1,372 @@
+package one.digitalinnovation.beerstock.service;
+
+import one.digitalinnovation.beerstock.dto.BeerSearchDTO;
+import one.digitalinnovation.beerstock.dto.BeerSummaryDTO;
+import one.digitalinnovation.beerstock.entity.Beer;
+import one.digitalinnovation.beerstock.repository.BeerRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory n-gram index over the words of beer names and brands, used for type-ahead suggestions.
+ * <p>
+ * Every word is indexed by its first letter and by the trigrams of the word prefixed with {@code ^}, so a query
+ * word of any length maps to grams whose posting lists, sorted arrays of document numbers, are intersected to find
+ * candidates. Candidates must have a word starting with each query word. When that yields fewer than the requested
+ * suggestions, beers sharing most grams with the query are added if each query word is within one typo (two for
+ * words longer than four letters) of the start of one of their words.
+ * <p>
+ * The index is built from the database at startup and kept up to date by {@link BeerService} on this node and by
+ * {@link #refresh(Long)} for changes announced by other nodes.
+ */
+@Component
+public class BeerNameIndex {
+
+    public static final int MAX_SUGGESTIONS = 50;
+
+    private static final int BUILD_BATCH_SIZE = 1000;
+    private static final int COMPACTION_THRESHOLD = 1024;
+    private static final List<String> INDEXED_FIELDS = Arrays.asList("name", "brand");
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private final BeerRepository beerRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> postingsByGram = new HashMap<>();
+    private final List<IndexedBeer> documents = new ArrayList<>();
+    private final Map<Long, Integer> documentsByBeerId = new HashMap<>();
+    private int removedDocuments;
+
+    @Autowired
+    public BeerNameIndex(BeerRepository beerRepository) {
+        this.beerRepository = beerRepository;
+    }
+
+    @PostConstruct
+    public void build() {
+        long cursor = 0L;
+        List<BeerSummaryDTO> beers;
+        do {
+            beers = beerRepository.search(new BeerSearchDTO(), INDEXED_FIELDS, cursor, BUILD_BATCH_SIZE);
+            for (BeerSummaryDTO beer : beers) {
+                put(beer.getId(), beer.getName(), beer.getBrand());
+                cursor = beer.getId();
+            }
+        } while (beers.size() == BUILD_BATCH_SIZE);
+    }
+
+    public void put(Long id, String name, String brand) {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            Integer document = documentsByBeerId.get(id);
+            if (document != null && documents.get(document).isNamed(name, brand)) {
+                return;
+            }
+            removeDocument(id);
+            add(new IndexedBeer(id, name, brand));
+            compactIfMostlyRemoved();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            removeDocument(id);
+            compactIfMostlyRemoved();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public Optional<String> nameOf(Long id) {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            Integer document = documentsByBeerId.get(id);
+            return document == null ? Optional.empty() : Optional.of(documents.get(document).name);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Reloads the name and brand of a beer changed by another node, or drops it when it no longer exists.
+     */
+    public void refresh(Long id) {
+        Optional<Beer> beer = beerRepository.findById(id);
+        if (beer.isPresent()) {
+            put(id, beer.get().getName(), beer.get().getBrand());
+        } else {
+            remove(id);
+        }
+    }
+
+    public List<BeerSummaryDTO> suggest(String query, int limit) {
+        List<String> queryWords = wordsOf(query);
+        int boundedLimit = Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+        if (queryWords.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            List<IndexedBeer> matches = prefixMatches(queryWords);
+            String normalizedQuery = String.join(" ", queryWords);
+            matches.sort(Comparator.<IndexedBeer, Boolean>comparing(beer -> !beer.normalizedName.startsWith(normalizedQuery))
+                    .thenComparingInt(beer -> beer.name.length())
+                    .thenComparing(beer -> beer.name));
+            if (matches.size() < boundedLimit) {
+                matches.addAll(fuzzyMatches(queryWords, matches));
+            }
+            return matches.stream()
+                    .limit(boundedLimit)
+                    .map(IndexedBeer::toSummary)
+                    .collect(Collectors.toList());
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private List<IndexedBeer> prefixMatches(List<String> queryWords) {
+        int[] candidates = null;
+        for (String queryWord : queryWords) {
+            for (String gram : gramsOf(queryWord)) {
+                Postings postings = postingsByGram.get(gram);
+                if (postings == null) {
+                    return new ArrayList<>();
+                }
+                candidates = candidates == null ? postings.toArray() : postings.intersect(candidates);
+                if (candidates.length == 0) {
+                    return new ArrayList<>();
+                }
+            }
+        }
+        List<IndexedBeer> matches = new ArrayList<>();
+        for (int document : candidates) {
+            IndexedBeer beer = documents.get(document);
+            if (beer != null && queryWords.stream().allMatch(beer::hasWordStartingWith)) {
+                matches.add(beer);
+            }
+        }
+        return matches;
+    }
+
+    private List<IndexedBeer> fuzzyMatches(List<String> queryWords, List<IndexedBeer> exclusions) {
+        Map<Integer, Integer> sharedGrams = new HashMap<>();
+        int queryGrams = 0;
+        for (String queryWord : queryWords) {
+            Set<String> grams = gramsOf(queryWord);
+            queryGrams += grams.size();
+            for (String gram : grams) {
+                Postings postings = postingsByGram.get(gram);
+                if (postings != null) {
+                    postings.forEach(document -> sharedGrams.merge(document, 1, Integer::sum));
+                }
+            }
+        }
+        int minimumSharedGrams = Math.max(1, queryGrams / 2);
+        Set<Long> excludedIds = exclusions.stream().map(beer -> beer.id).collect(Collectors.toSet());
+        return sharedGrams.entrySet().stream()
+                .filter(entry -> entry.getValue() >= minimumSharedGrams)
+                .sorted(Map.Entry.<Integer, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .map(entry -> documents.get(entry.getKey()))
+                .filter(beer -> beer != null && !excludedIds.contains(beer.id))
+                .filter(beer -> queryWords.stream().allMatch(beer::hasWordCloseTo))
+                .collect(Collectors.toList());
+    }
+
+    private void add(IndexedBeer beer) {
+        int document = documents.size();
+        documents.add(beer);
+        documentsByBeerId.put(beer.id, document);
+        Set<String> grams = new LinkedHashSet<>();
+        beer.words.forEach(word -> grams.addAll(gramsOf(word)));
+        grams.forEach(gram -> postingsByGram.computeIfAbsent(gram, key -> new Postings()).add(document));
+    }
+
+    private void removeDocument(Long id) {
+        Integer document = documentsByBeerId.remove(id);
+        if (document != null) {
+            documents.set(document, null);
+            removedDocuments++;
+        }
+    }
+
+    private void compactIfMostlyRemoved() {
+        if (removedDocuments >= COMPACTION_THRESHOLD && removedDocuments * 2 >= documents.size()) {
+            compact();
+        }
+    }
+
+    private void compact() {
+        List<IndexedBeer> liveBeers = documents.stream()
+                .filter(beer -> beer != null)
+                .collect(Collectors.toList());
+        documents.clear();
+        documentsByBeerId.clear();
+        postingsByGram.clear();
+        removedDocuments = 0;
+        liveBeers.forEach(this::add);
+    }
+
+    private static Set<String> gramsOf(String word) {
+        Set<String> grams = new LinkedHashSet<>();
+        String marked = "^" + word;
+        grams.add(marked.substring(0, 2));
+        for (int start = 0; start + 3 <= marked.length(); start++) {
+            grams.add(marked.substring(start, start + 3));
+        }
+        return grams;
+    }
+
+    private static List<String> wordsOf(String text) {
+        if (text == null) {
+            return new ArrayList<>();
+        }
+        return Arrays.stream(WORD_SEPARATOR.split(normalize(text)))
+                .filter(word -> !word.isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    private static String normalize(String text) {
+        String withoutDiacritics = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return withoutDiacritics.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Smallest edit distance between the query word and any prefix of the given word.
+     */
+    private static int prefixDistance(String queryWord, String word) {
+        int[] previous = new int[word.length() + 1];
+        int[] current = new int[word.length() + 1];
+        for (int j = 0; j <= word.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= queryWord.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= word.length(); j++) {
+                int substitution = previous[j - 1] + (queryWord.charAt(i - 1) == word.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        int distance = Integer.MAX_VALUE;
+        for (int j = 0; j <= word.length(); j++) {
+            distance = Math.min(distance, previous[j]);
+        }
+        return distance;
+    }
+
+    private static class IndexedBeer {
+
+        private final Long id;
+        private final String name;
+        private final String brand;
+        private final String normalizedName;
+        private final List<String> words;
+
+        private IndexedBeer(Long id, String name, String brand) {
+            this.id = id;
+            this.name = name;
+            this.brand = brand;
+            this.normalizedName = String.join(" ", wordsOf(name));
+            Set<String> allWords = new LinkedHashSet<>(wordsOf(name));
+            allWords.addAll(wordsOf(brand));
+            this.words = new ArrayList<>(allWords);
+        }
+
+        private boolean isNamed(String otherName, String otherBrand) {
+            return Objects.equals(name, otherName) && Objects.equals(brand, otherBrand);
+        }
+
+        private boolean hasWordStartingWith(String queryWord) {
+            return words.stream().anyMatch(word -> word.startsWith(queryWord));
+        }
+
+        private boolean hasWordCloseTo(String queryWord) {
+            int allowedTypos = queryWord.length() > 4 ? 2 : 1;
+            return words.stream().anyMatch(word -> prefixDistance(queryWord, word) <= allowedTypos);
+        }
+
+        private BeerSummaryDTO toSummary() {
+            return BeerSummaryDTO.builder()
+                    .id(id)
+                    .name(name)
+                    .brand(brand)
+                    .build();
+        }
+    }
+
+    /**
+     * Ascending document numbers in a growable primitive array. Documents are only ever appended with increasing
+     * numbers, so adding keeps the array sorted.
+     */
+    private static class Postings {
+
+        private int[] documents = new int[4];
+        private int size;
+
+        private void add(int document) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+            }
+            documents[size++] = document;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(documents, size);
+        }
+
+        private int[] intersect(int[] sortedDocuments) {
+            int[] intersection = new int[Math.min(size, sortedDocuments.length)];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < size && j < sortedDocuments.length) {
+                if (documents[i] < sortedDocuments[j]) {
+                    i++;
+                } else if (documents[i] > sortedDocuments[j]) {
+                    j++;
+                } else {
+                    intersection[count++] = documents[i];
+                    i++;
+                    j++;
+                }
+            }
+            return Arrays.copyOf(intersection, count);
+        }
+
+        private void forEach(IntConsumer consumer) {
+            for (int i = 0; i < size; i++) {
+                consumer.accept(documents[i]);
+            }
+        }
+    }
+}
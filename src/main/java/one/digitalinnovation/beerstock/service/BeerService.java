@@ -1,50 +1,378 @@
 package one.digitalinnovation.beerstock.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.AllArgsConstructor;
+import one.digitalinnovation.beerstock.cluster.BeerInvalidation;
+import one.digitalinnovation.beerstock.cluster.InvalidationChannel;
+import one.digitalinnovation.beerstock.dto.BatchItemResultDTO;
 import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.dto.BeerQuantityDTO;
+import one.digitalinnovation.beerstock.dto.BeerRows;
+import one.digitalinnovation.beerstock.dto.BeerSearchDTO;
+import one.digitalinnovation.beerstock.dto.BeerSummaryDTO;
+import one.digitalinnovation.beerstock.dto.InventoryStatsDTO;
+import one.digitalinnovation.beerstock.dto.ReorderSuggestionDTO;
+import one.digitalinnovation.beerstock.dto.StockEventDTO;
+import one.digitalinnovation.beerstock.dto.TaggedBeerDTO;
 import one.digitalinnovation.beerstock.entity.Beer;
+import one.digitalinnovation.beerstock.enums.StockEventType;
 import one.digitalinnovation.beerstock.exception.BeerAlreadyRegisteredException;
 import one.digitalinnovation.beerstock.exception.BeerNotFoundException;
 import one.digitalinnovation.beerstock.exception.BeerStockExceededException;
+import one.digitalinnovation.beerstock.exception.InvalidBeerFieldException;
 import one.digitalinnovation.beerstock.mapper.BeerMapper;
 import one.digitalinnovation.beerstock.repository.BeerRepository;
+import one.digitalinnovation.beerstock.repository.BeerSearchRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @AllArgsConstructor(onConstructor = @__(@Autowired))
 public class BeerService {
 
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int BATCH_SIZE = 50;
+
+    private static final String OPERATION_TIMER = "beerstock.service";
+
     private final BeerRepository beerRepository;
+    private final EntityManager entityManager;
+    private final StockLedger stockLedger;
+    private final StockEventLog stockEventLog;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final BeerCache beerCache;
+    private final BeerNameIndex beerNameIndex;
+    private final ReorderIndex reorderIndex;
+    private final InventoryStats inventoryStats;
+    private final InvalidationChannel invalidationChannel;
+    private final OptimisticRetry optimisticRetry;
+    private final CatalogVersion catalogVersion;
+    private final MeterRegistry meterRegistry;
     private final BeerMapper beerMapper = BeerMapper.INSTANCE;
 
     public BeerDTO createBeer(BeerDTO beerDTO) throws BeerAlreadyRegisteredException {
-        verifyIfIsAlreadyRegistered(beerDTO.getName());
-        Beer beer = beerMapper.toModel(beerDTO);
-        Beer savedBeer = beerRepository.save(beer);
-        return beerMapper.toDTO(savedBeer);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            verifyIfIsAlreadyRegistered(beerDTO.getName());
+            Beer beer = beerMapper.toModel(beerDTO);
+            Beer savedBeer = transactionTemplate.execute(status -> {
+                Beer createdBeer = beerRepository.save(beer);
+                stockEventLog.append(createdBeer.getId(), StockEventType.CREATED, createdBeer.getQuantity());
+                return createdBeer;
+            });
+            beerNameIndex.put(savedBeer.getId(), savedBeer.getName(), savedBeer.getBrand());
+            invalidate(savedBeer.getId(), savedBeer.getName(), null);
+            return trackStock(toDTO(savedBeer));
+        } catch (Exception e) {
+            outcome = outcomeOf(e);
+            throw e;
+        } finally {
+            stopTimer(sample, "create", outcome);
+        }
+    }
+
+    public List<BatchItemResultDTO> createAll(List<BeerDTO> beerDTOs) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            List<BatchItemResultDTO> results = new ArrayList<>(Collections.nCopies(beerDTOs.size(), null));
+            Set<String> requestedNames = new HashSet<>();
+            for (int from = 0; from < beerDTOs.size(); from += BATCH_SIZE) {
+                int to = Math.min(from + BATCH_SIZE, beerDTOs.size());
+                Map<Integer, BeerDTO> candidates = new HashMap<>();
+                for (int index = from; index < to; index++) {
+                    BeerDTO beerDTO = beerDTOs.get(index);
+                    String violations = violationsOf(beerDTO);
+                    if (violations != null) {
+                        results.set(index, failedItem(index, HttpStatus.BAD_REQUEST, violations));
+                    } else if (!requestedNames.add(beerDTO.getName())) {
+                        results.set(index, failedItem(index, HttpStatus.BAD_REQUEST, new BeerAlreadyRegisteredException(beerDTO.getName()).getMessage()));
+                    } else {
+                        candidates.put(index, beerDTO);
+                    }
+                }
+                createChunk(candidates, results);
+            }
+            return results;
+        } catch (Exception e) {
+            outcome = outcomeOf(e);
+            throw e;
+        } finally {
+            stopTimer(sample, "createAll", outcome);
+        }
+    }
+
+    private void createChunk(Map<Integer, BeerDTO> candidates, List<BatchItemResultDTO> results) {
+        if (candidates.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.execute(status -> {
+                Set<String> registeredNames = beerRepository.findByNameIn(candidates.values().stream()
+                        .map(BeerDTO::getName)
+                        .collect(Collectors.toList()))
+                        .stream()
+                        .map(Beer::getName)
+                        .collect(Collectors.toSet());
+                Map<Integer, Beer> beersToSave = new HashMap<>();
+                candidates.forEach((index, beerDTO) -> {
+                    if (registeredNames.contains(beerDTO.getName())) {
+                        results.set(index, failedItem(index, HttpStatus.BAD_REQUEST, new BeerAlreadyRegisteredException(beerDTO.getName()).getMessage()));
+                    } else {
+                        Beer beer = beerMapper.toModel(beerDTO);
+                        beer.setId(null);
+                        beersToSave.put(index, beer);
+                    }
+                });
+                beerRepository.saveAll(beersToSave.values());
+                beerRepository.flush();
+                beersToSave.values().forEach(beer -> stockEventLog.append(beer.getId(), StockEventType.CREATED, beer.getQuantity()));
+                beersToSave.forEach((index, beer) -> results.set(index, succeededItem(index, HttpStatus.CREATED, toDTO(beer))));
+                entityManager.clear();
+                return null;
+            });
+        } catch (DataAccessException e) {
+            if (candidates.size() == 1) {
+                candidates.keySet().forEach(index -> results.set(index, failedItem(index, HttpStatus.CONFLICT, e.getMostSpecificCause().getMessage())));
+            } else {
+                // The chunk was rolled back as a whole, so each beer is created on its own to fail only the ones
+                // at fault.
+                candidates.forEach((index, beerDTO) -> createChunk(Collections.singletonMap(index, beerDTO), results));
+            }
+            return;
+        }
+        candidates.keySet().stream()
+                .map(results::get)
+                .filter(result -> result.getStatus() == HttpStatus.CREATED.value())
+                .map(BatchItemResultDTO::getBeer)
+                .forEach(beerDTO -> {
+                    beerNameIndex.put(beerDTO.getId(), beerDTO.getName(), beerDTO.getBrand());
+                    trackStock(beerDTO);
+                    invalidate(beerDTO.getId(), beerDTO.getName(), null);
+                });
     }
 
     public BeerDTO findByName(String name) throws BeerNotFoundException {
-        Beer foundBeer = beerRepository.findByName(name)
-                .orElseThrow(() -> new BeerNotFoundException(name));
-        return beerMapper.toDTO(foundBeer);
+        return findTaggedByName(name).getBeer();
+    }
+
+    /**
+     * The beer {@link #findByName} returns, with a weak entity tag read from the same cached copy: its id and row
+     * version, which stand for every field but the quantity, plus the quantity itself, since the ledger may be ahead
+     * of the row. Served from the cache, so a hit does not read the database.
+     */
+    public TaggedBeerDTO findTaggedByName(String name) throws BeerNotFoundException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            TaggedBeerDTO taggedBeer = beerCache.get(name, this::loadByName, (beerDTO, version) -> {
+                BeerDTO foundBeerDTO = beerDTO.toBuilder().build();
+                stockLedger.quantityOf(foundBeerDTO.getId()).ifPresent(foundBeerDTO::setQuantity);
+                return new TaggedBeerDTO(foundBeerDTO, foundBeerDTO.getId() + "." + version + "." + foundBeerDTO.getQuantity());
+            });
+            if (taggedBeer == null) {
+                throw new BeerNotFoundException(name);
+            }
+            return taggedBeer;
+        } catch (Exception e) {
+            outcome = outcomeOf(e);
+            throw e;
+        } finally {
+            stopTimer(sample, "findByName", outcome);
+        }
+    }
+
+    /**
+     * Weak entity tag of every listing this node serves, before the controller adds the {@code W/} prefix. It changes
+     * with any write that can show up in a listing.
+     */
+    public String catalogTag() {
+        return catalogVersion.tag();
+    }
+
+    private Beer loadByName(String name) {
+        return beerRepository.findByName(name).orElse(null);
+    }
+
+    public List<BeerDTO> listAll(Long afterId, int pageSize) {
+        return listRows(afterId, pageSize).toDTOs();
+    }
+
+    /**
+     * A page of beers as read from the database, with the quantities of this node's ledger, for responses written
+     * without mapping them to DTOs.
+     */
+    public BeerRows listRows(Long afterId, int pageSize) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            long cursor = afterId == null ? 0L : afterId;
+            int boundedPageSize = Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+            List<Beer> beers = beerRepository.findByIdGreaterThanOrderByIdAsc(cursor, PageRequest.of(0, boundedPageSize));
+            int[] quantities = new int[beers.size()];
+            for (int index = 0; index < quantities.length; index++) {
+                quantities[index] = quantityOf(beers.get(index));
+            }
+            return new BeerRows(beers, quantities);
+        } catch (Exception e) {
+            outcome = outcomeOf(e);
+            throw e;
+        } finally {
+            stopTimer(sample, "listAll", outcome);
+        }
+    }
+
+    public List<BeerSummaryDTO> search(BeerSearchDTO search, Collection<String> fields, Long afterId, int pageSize) throws InvalidBeerFieldException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            List<String> unknownFields = fields.stream()
+                    .filter(field -> !BeerSearchRepository.SEARCH_FIELDS.contains(field))
+                    .collect(Collectors.toList());
+            if (!unknownFields.isEmpty()) {
+                throw new InvalidBeerFieldException(unknownFields);
+            }
+            long cursor = afterId == null ? 0L : afterId;
+            int boundedPageSize = Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+            List<BeerSummaryDTO> beers = beerRepository.search(search, fields, cursor, boundedPageSize);
+            if (fields.contains("quantity")) {
+                beers.forEach(beer -> stockLedger.quantityOf(beer.getId()).ifPresent(beer::setQuantity));
+            }
+            return beers;
+        } catch (Exception e) {
+            outcome = outcomeOf(e);
+            throw e;
+        } finally {
+            stopTimer(sample, "search", outcome);
+        }
+    }
+
+    public List<BeerSummaryDTO> suggest(String query, int limit) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            return beerNameIndex.suggest(query, limit);
+        } catch (Exception e) {
+            outcome = outcomeOf(e);
+            throw e;
+        } finally {
+            stopTimer(sample, "suggest", outcome);
+        }
+    }
+
+    /**
+     * Beers at or below their reorder point, emptiest first, read from the {@link ReorderIndex}.
+     */
+    public List<ReorderSuggestionDTO> lowStock(int limit) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            return reorderIndex.lowStock(limit);
+        } catch (Exception e) {
+            outcome = outcomeOf(e);
+            throw e;
+        } finally {
+            stopTimer(sample, "lowStock", outcome);
+        }
+    }
+
+    /**
+     * Stock totals of the catalog and of each beer type and brand, read from the {@link InventoryStats}.
+     */
+    public InventoryStatsDTO stats() {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            return inventoryStats.stats();
+        } catch (Exception e) {
+            outcome = outcomeOf(e);
+            throw e;
+        } finally {
+            stopTimer(sample, "stats", outcome);
+        }
+    }
+
+    /**
+     * Stock events after the given offset. When {@code wait} is set and there are none yet, the future completes
+     * with the first ones to be logged.
+     */
+    public CompletableFuture<List<StockEventDTO>> changesSince(long offset, int limit, boolean wait) {
+        if (wait) {
+            return stockEventLog.poll(offset, limit);
+        }
+        return CompletableFuture.completedFuture(stockEventLog.read(offset, limit));
+    }
+
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<BeerDTO> consumer) {
+        streamRows((beer, quantity) -> {
+            BeerDTO beerDTO = beerMapper.toDTO(beer);
+            beerDTO.setQuantity(quantity);
+            consumer.accept(beerDTO);
+        });
     }
 
-    public List<BeerDTO> listAll() {
-        return beerRepository.findAll()
-                .stream()
-                .map(beerMapper::toDTO)
-                .collect(Collectors.toList());
+    /**
+     * Every beer in id order with the quantity of this node's ledger. The entities are detached once consumed.
+     */
+    @Transactional(readOnly = true)
+    public void streamRows(ObjIntConsumer<Beer> consumer) {
+        try (Stream<Beer> beers = beerRepository.streamAllByOrderByIdAsc()) {
+            beers.forEach(beer -> {
+                consumer.accept(beer, quantityOf(beer));
+                entityManager.detach(beer);
+            });
+        }
     }
 
     public void deleteById(Long id) throws BeerNotFoundException {
-        verifyIfExists(id);
-        beerRepository.deleteById(id);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            Beer beerToDelete = verifyIfExists(id);
+            transactionTemplate.execute(status -> {
+                stockEventLog.append(id, StockEventType.DELETED, 0);
+                beerRepository.deleteById(id);
+                return null;
+            });
+            stockLedger.evict(id);
+            beerNameIndex.remove(id);
+            reorderIndex.remove(id);
+            inventoryStats.remove(id);
+            invalidate(id, beerToDelete.getName(), null);
+        } catch (Exception e) {
+            outcome = outcomeOf(e);
+            throw e;
+        } finally {
+            stopTimer(sample, "delete", outcome);
+        }
     }
 
     private void verifyIfIsAlreadyRegistered(String name) throws BeerAlreadyRegisteredException {
@@ -60,13 +388,198 @@ public class BeerService {
     }
 
     public BeerDTO increment(Long id, int quantityToIncrement) throws BeerNotFoundException, BeerStockExceededException {
-        Beer beerToIncrementStock = verifyIfExists(id);
-        int quantityAfterIncrement = quantityToIncrement + beerToIncrementStock.getQuantity();
-        if (quantityAfterIncrement <= beerToIncrementStock.getMax()) {
-            beerToIncrementStock.setQuantity(beerToIncrementStock.getQuantity() + quantityToIncrement);
-            Beer incrementedBeerStock = beerRepository.save(beerToIncrementStock);
-            return beerMapper.toDTO(incrementedBeerStock);
-        }
-        throw new BeerStockExceededException(id, quantityToIncrement);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            stockLedger.deposit(id, quantityToIncrement);
+            Beer incrementedBeer = verifyIfExists(id);
+            invalidate(id, incrementedBeer.getName(), incrementedBeer.getVersion());
+            return trackStock(toDTO(incrementedBeer));
+        } catch (Exception e) {
+            outcome = outcomeOf(e);
+            throw e;
+        } finally {
+            stopTimer(sample, "increment", outcome);
+        }
+    }
+
+    public List<BatchItemResultDTO> incrementAll(List<BeerQuantityDTO> increments) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            List<BatchItemResultDTO> results = new ArrayList<>(Collections.nCopies(increments.size(), null));
+            for (int from = 0; from < increments.size(); from += BATCH_SIZE) {
+                int to = Math.min(from + BATCH_SIZE, increments.size());
+                Map<Integer, BeerQuantityDTO> candidates = new HashMap<>();
+                for (int index = from; index < to; index++) {
+                    BeerQuantityDTO increment = increments.get(index);
+                    String violations = violationsOf(increment);
+                    if (violations != null) {
+                        results.set(index, failedItem(index, HttpStatus.BAD_REQUEST, violations));
+                    } else {
+                        candidates.put(index, increment);
+                    }
+                }
+                incrementChunk(candidates, results);
+            }
+            return results;
+        } catch (Exception e) {
+            outcome = outcomeOf(e);
+            throw e;
+        } finally {
+            stopTimer(sample, "incrementAll", outcome);
+        }
+    }
+
+    private void incrementChunk(Map<Integer, BeerQuantityDTO> candidates, List<BatchItemResultDTO> results) {
+        if (candidates.isEmpty()) {
+            return;
+        }
+        Set<Long> ids = candidates.values().stream()
+                .map(BeerQuantityDTO::getId)
+                .collect(Collectors.toSet());
+        Map<Integer, Beer> incrementedBeers = new HashMap<>();
+        try {
+            // Retried around depositAll, so the backoff between attempts runs without the beers' ledger locks.
+            optimisticRetry.execute("incrementAll", () -> {
+                stockLedger.depositAll(ids, () -> transactionTemplate.execute(status -> {
+                    incrementedBeers.clear();
+                    Map<Long, Beer> beers = beerRepository.findAllById(ids).stream()
+                            .collect(Collectors.toMap(Beer::getId, Function.identity()));
+                    Map<Long, Integer> deposited = new HashMap<>();
+                    candidates.forEach((index, increment) -> {
+                        Beer beer = beers.get(increment.getId());
+                        if (beer == null) {
+                            results.set(index, failedItem(index, HttpStatus.NOT_FOUND, new BeerNotFoundException(increment.getId()).getMessage()));
+                        } else if (beer.getQuantity() + increment.getQuantity() > beer.getMax()) {
+                            results.set(index, failedItem(index, HttpStatus.BAD_REQUEST, new BeerStockExceededException(increment.getId(), increment.getQuantity()).getMessage()));
+                        } else {
+                            beer.setQuantity(beer.getQuantity() + increment.getQuantity());
+                            deposited.merge(beer.getId(), increment.getQuantity(), Integer::sum);
+                            incrementedBeers.put(index, beer);
+                        }
+                    });
+                    deposited.forEach((id, quantity) -> stockEventLog.append(id, StockEventType.INCREMENTED, quantity));
+                    return deposited;
+                }));
+                return null;
+            });
+        } catch (DataAccessException e) {
+            if (candidates.size() == 1) {
+                candidates.keySet().forEach(index -> results.set(index, failedItem(index, HttpStatus.CONFLICT, e.getMostSpecificCause().getMessage())));
+            } else {
+                // The chunk was rolled back as a whole, so each increment is applied on its own to fail only the
+                // ones at fault.
+                candidates.forEach((index, increment) -> incrementChunk(Collections.singletonMap(index, increment), results));
+            }
+            return;
+        }
+        incrementedBeers.forEach((index, beer) -> {
+            invalidate(beer.getId(), beer.getName(), beer.getVersion());
+            results.set(index, succeededItem(index, HttpStatus.OK, trackStock(toDTO(beer))));
+        });
+    }
+
+    public BeerDTO decrement(Long id, int quantityToDecrement) throws BeerNotFoundException, BeerStockExceededException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            int remaining = stockLedger.withdraw(id, quantityToDecrement);
+            catalogVersion.advance();
+            BeerDTO cachedBeerDTO = cachedById(id);
+            if (cachedBeerDTO == null) {
+                return trackStock(toDTO(verifyIfExists(id)));
+            }
+            cachedBeerDTO.setQuantity(remaining);
+            return trackStock(cachedBeerDTO);
+        } catch (Exception e) {
+            outcome = outcomeOf(e);
+            throw e;
+        } finally {
+            stopTimer(sample, "decrement", outcome);
+        }
+    }
+
+    /**
+     * The cached copy of a beer found through its indexed name, or {@code null} when it is not cached, so a stock
+     * change can answer without reading the row again.
+     */
+    private BeerDTO cachedById(Long id) {
+        return beerNameIndex.nameOf(id)
+                .map(beerCache::getIfPresent)
+                .filter(beerDTO -> id.equals(beerDTO.getId()))
+                .orElse(null);
+    }
+
+    private BeerDTO trackStock(BeerDTO beerDTO) {
+        reorderIndex.put(beerDTO.getId(), beerDTO.getName(), beerDTO.getType(), beerDTO.getMax(), beerDTO.getQuantity());
+        inventoryStats.put(beerDTO.getId(), beerDTO.getBrand(), beerDTO.getType(), beerDTO.getMax(), beerDTO.getQuantity());
+        return beerDTO;
+    }
+
+    private void invalidate(Long id, String name, Long version) {
+        beerCache.invalidate(name, version);
+        catalogVersion.advance();
+        invalidationChannel.publish(new BeerInvalidation(id, name, version));
+    }
+
+    private void stopTimer(Timer.Sample sample, String operation, String outcome) {
+        sample.stop(meterRegistry.timer(OPERATION_TIMER, "operation", operation, "outcome", outcome));
+    }
+
+    private String outcomeOf(Exception e) {
+        if (e instanceof BeerNotFoundException) {
+            return "not-found";
+        }
+        if (e instanceof BeerAlreadyRegisteredException) {
+            return "already-registered";
+        }
+        if (e instanceof BeerStockExceededException) {
+            return "stock-exceeded";
+        }
+        if (e instanceof InvalidBeerFieldException) {
+            return "invalid-field";
+        }
+        return "error";
+    }
+
+    private String violationsOf(Object item) {
+        if (item == null) {
+            return "item must not be null";
+        }
+        Set<ConstraintViolation<Object>> violations = validator.validate(item);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private BatchItemResultDTO succeededItem(int index, HttpStatus status, BeerDTO beerDTO) {
+        return BatchItemResultDTO.builder()
+                .index(index)
+                .status(status.value())
+                .beer(beerDTO)
+                .build();
+    }
+
+    private BatchItemResultDTO failedItem(int index, HttpStatus status, String error) {
+        return BatchItemResultDTO.builder()
+                .index(index)
+                .status(status.value())
+                .error(error)
+                .build();
+    }
+
+    private int quantityOf(Beer beer) {
+        return stockLedger.quantityOf(beer.getId()).orElse(beer.getQuantity());
+    }
+
+    private BeerDTO toDTO(Beer beer) {
+        BeerDTO beerDTO = beerMapper.toDTO(beer);
+        stockLedger.quantityOf(beer.getId()).ifPresent(beerDTO::setQuantity);
+        return beerDTO;
     }
 }
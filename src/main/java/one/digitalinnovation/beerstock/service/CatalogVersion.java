@@ -0,0 +1,29 @@
+package one.digitalinnovation.beerstock.service;
+
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version of the beer catalog as this node serves it, used as the entity tag of beer listings.
+ * <p>
+ * It must be advanced after every change that can show up in a listing has become visible, never before: a reader
+ * may then pair a new listing with an old tag, which only costs the client a full response later, but never an old
+ * listing with a new tag. Tags carry a random epoch, so tags handed out by another node or by an earlier run of this
+ * one never match.
+ */
+@Component
+public class CatalogVersion {
+
+    private final String epoch = Long.toHexString(new SecureRandom().nextLong());
+    private final AtomicLong version = new AtomicLong();
+
+    public void advance() {
+        version.incrementAndGet();
+    }
+
+    public String tag() {
+        return epoch + "." + version.get();
+    }
+}
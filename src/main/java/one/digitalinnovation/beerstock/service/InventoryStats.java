@@ -0,0 +1,290 @@
+package one.digitalinnovation.beerstock.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import one.digitalinnovation.beerstock.dto.BeerSearchDTO;
+import one.digitalinnovation.beerstock.dto.BeerSummaryDTO;
+import one.digitalinnovation.beerstock.dto.InventoryStatsDTO;
+import one.digitalinnovation.beerstock.dto.StockTotalsDTO;
+import one.digitalinnovation.beerstock.entity.Beer;
+import one.digitalinnovation.beerstock.enums.BeerType;
+import one.digitalinnovation.beerstock.repository.BeerRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Stock totals of the whole catalog and of each beer type and brand, kept as running sums so reading them costs the
+ * number of groups rather than the number of beers.
+ * <p>
+ * The last stock seen for each beer is kept next to the sums, so a change subtracts what the beer held before and
+ * adds what it holds now. Like the {@link ReorderIndex}, the sums are built from the database at startup and kept up
+ * to date by {@link BeerService} on this node and by {@link #refresh(Long)} for changes announced by other nodes.
+ * <p>
+ * Every {@code beerstock.stats.reconcile-interval-ms} the beers are read again from the database, with the quantity
+ * the ledger counter holds when it is loaded, and the sums rebuilt from them, which repairs any drift left by a lost
+ * invalidation or a failed ledger flush. Beers changed while the database is read keep the stock the change reported,
+ * which is newer than what was read. Beers whose stock had drifted are counted in {@code beerstock.stats.reconciled}.
+ */
+@Slf4j
+@Component
+public class InventoryStats {
+
+    private static final int BUILD_BATCH_SIZE = 1000;
+    private static final List<String> INDEXED_FIELDS = Arrays.asList("brand", "max", "quantity", "type");
+    private static final String RECONCILED = "beerstock.stats.reconciled";
+
+    private final BeerRepository beerRepository;
+    private final StockLedger stockLedger;
+    private final MeterRegistry meterRegistry;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<Long, Stock> stocks = new HashMap<>();
+    private final Totals total = new Totals();
+    private final Map<BeerType, Totals> byType = new EnumMap<>(BeerType.class);
+    private final Map<String, Totals> byBrand = new HashMap<>();
+    private Set<Long> changedWhileReconciling;
+
+    @Autowired
+    public InventoryStats(BeerRepository beerRepository, StockLedger stockLedger, MeterRegistry meterRegistry) {
+        this.beerRepository = beerRepository;
+        this.stockLedger = stockLedger;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void build() {
+        reconcile();
+    }
+
+    /**
+     * Rebuilds the sums from the database, keeping the stock reported by changes made while it was read.
+     */
+    @Scheduled(fixedDelayString = "${beerstock.stats.reconcile-interval-ms:600000}",
+            initialDelayString = "${beerstock.stats.reconcile-interval-ms:600000}")
+    public void reconcile() {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            changedWhileReconciling = new HashSet<>();
+        } finally {
+            writeLock.unlock();
+        }
+        Map<Long, Stock> stored = new HashMap<>();
+        try {
+            long cursor = 0L;
+            List<BeerSummaryDTO> beers;
+            do {
+                beers = beerRepository.search(new BeerSearchDTO(), INDEXED_FIELDS, cursor, BUILD_BATCH_SIZE);
+                for (BeerSummaryDTO beer : beers) {
+                    stored.put(beer.getId(), stockOf(beer.getId(), beer.getBrand(), beer.getType(), beer.getMax(), beer.getQuantity()));
+                    cursor = beer.getId();
+                }
+            } while (beers.size() == BUILD_BATCH_SIZE);
+        } catch (RuntimeException e) {
+            writeLock.lock();
+            try {
+                changedWhileReconciling = null;
+            } finally {
+                writeLock.unlock();
+            }
+            throw e;
+        }
+        writeLock.lock();
+        try {
+            for (Long id : changedWhileReconciling) {
+                Stock reported = stocks.get(id);
+                if (reported != null) {
+                    stored.put(id, reported);
+                } else {
+                    stored.remove(id);
+                }
+            }
+            changedWhileReconciling = null;
+            int drifted = countDrifted(stored);
+            stocks = stored;
+            total.clear();
+            byType.clear();
+            byBrand.clear();
+            stocks.values().forEach(stock -> add(stock, 1));
+            if (drifted > 0) {
+                log.info("Reconciled the inventory stats of {} beers with the database", drifted);
+                meterRegistry.counter(RECONCILED).increment(drifted);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void put(Long id, String brand, BeerType type, int max, int quantity) {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            // Concurrent changes may report out of order; the ledger counter, when loaded, has the latest quantity.
+            Stock stock = stockOf(id, brand, type, max, quantity);
+            Stock previous = stocks.put(id, stock);
+            if (previous != null) {
+                add(previous, -1);
+            }
+            add(stock, 1);
+            if (changedWhileReconciling != null) {
+                changedWhileReconciling.add(id);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            Stock previous = stocks.remove(id);
+            if (previous != null) {
+                add(previous, -1);
+            }
+            if (changedWhileReconciling != null) {
+                changedWhileReconciling.add(id);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Reloads the stock of a beer changed by another node, or drops it when it no longer exists.
+     */
+    public void refresh(Long id) {
+        Optional<Beer> beer = beerRepository.findById(id);
+        if (beer.isPresent()) {
+            put(id, beer.get().getBrand(), beer.get().getType(), beer.get().getMax(), beer.get().getQuantity());
+        } else {
+            remove(id);
+        }
+    }
+
+    /**
+     * Totals of the catalog, of each beer type and of each brand, brands in alphabetical order.
+     */
+    public InventoryStatsDTO stats() {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            Map<BeerType, StockTotalsDTO> typeTotals = new EnumMap<>(BeerType.class);
+            byType.forEach((type, totals) -> typeTotals.put(type, totals.toDTO()));
+            Map<String, StockTotalsDTO> brandTotals = new TreeMap<>();
+            byBrand.forEach((brand, totals) -> brandTotals.put(brand, totals.toDTO()));
+            return InventoryStatsDTO.builder()
+                    .total(total.toDTO())
+                    .byType(typeTotals)
+                    .byBrand(brandTotals)
+                    .build();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private Stock stockOf(Long id, String brand, BeerType type, int max, int quantity) {
+        return new Stock(brand, type, max, stockLedger.quantityOf(id).orElse(quantity));
+    }
+
+    private int countDrifted(Map<Long, Stock> stored) {
+        int drifted = 0;
+        for (Map.Entry<Long, Stock> entry : stocks.entrySet()) {
+            if (!entry.getValue().equals(stored.get(entry.getKey()))) {
+                drifted++;
+            }
+        }
+        for (Long id : stored.keySet()) {
+            if (!stocks.containsKey(id)) {
+                drifted++;
+            }
+        }
+        return drifted;
+    }
+
+    private void add(Stock stock, int sign) {
+        total.add(stock, sign);
+        add(byType, stock.type, stock, sign);
+        add(byBrand, stock.brand, stock, sign);
+    }
+
+    private static <K> void add(Map<K, Totals> groups, K group, Stock stock, int sign) {
+        Totals totals = groups.computeIfAbsent(group, key -> new Totals());
+        totals.add(stock, sign);
+        if (totals.skus == 0) {
+            groups.remove(group);
+        }
+    }
+
+    private static class Stock {
+
+        private final String brand;
+        private final BeerType type;
+        private final int max;
+        private final int quantity;
+
+        private Stock(String brand, BeerType type, int max, int quantity) {
+            this.brand = brand;
+            this.type = type;
+            this.max = max;
+            this.quantity = quantity;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Stock)) {
+                return false;
+            }
+            Stock stock = (Stock) other;
+            return max == stock.max && quantity == stock.quantity && type == stock.type && Objects.equals(brand, stock.brand);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(brand, type, max, quantity);
+        }
+    }
+
+    private static class Totals {
+
+        private long skus;
+        private long quantity;
+        private long capacity;
+
+        private void add(Stock stock, int sign) {
+            skus += sign;
+            quantity += (long) sign * stock.quantity;
+            capacity += (long) sign * stock.max;
+        }
+
+        private void clear() {
+            skus = 0;
+            quantity = 0;
+            capacity = 0;
+        }
+
+        private StockTotalsDTO toDTO() {
+            return StockTotalsDTO.builder()
+                    .skus(skus)
+                    .quantity(quantity)
+                    .capacity(capacity)
+                    .utilization(capacity > 0 ? (double) quantity / capacity : 0.0)
+                    .build();
+        }
+    }
+}
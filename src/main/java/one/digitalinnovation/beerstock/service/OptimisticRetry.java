@@ -0,0 +1,81 @@
+package one.digitalinnovation.beerstock.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Bounded retry for stock writes that go through versioned entities.
+ * <p>
+ * An attempt that loses a {@code @Version} check is run again after an exponential backoff with full jitter, so
+ * writers that collided on the same beer spread out instead of colliding again. Every conflict is counted in
+ * {@code beerstock.stock.conflicts}, tagged with the operation and the beer id, and every new attempt in
+ * {@code beerstock.stock.retries}. The last conflict is rethrown once {@code max-attempts} is reached.
+ */
+@Slf4j
+@Component
+public class OptimisticRetry {
+
+    private static final String CONFLICTS = "beerstock.stock.conflicts";
+    private static final String RETRIES = "beerstock.stock.retries";
+
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public OptimisticRetry(@Value("${beerstock.retry.max-attempts:3}") int maxAttempts,
+                           @Value("${beerstock.retry.initial-backoff:10ms}") Duration initialBackoff,
+                           @Value("${beerstock.retry.max-backoff:200ms}") Duration maxBackoff,
+                           MeterRegistry meterRegistry) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> T execute(String operation, Supplier<T> attempt) {
+        for (int attemptNumber = 1; ; attemptNumber++) {
+            try {
+                return attempt.get();
+            } catch (OptimisticLockingFailureException e) {
+                meterRegistry.counter(CONFLICTS, "operation", operation, "beer", beerOf(e)).increment();
+                if (attemptNumber >= maxAttempts) {
+                    log.warn("Giving up {} after {} conflicting attempts on beer {}", operation, attemptNumber, beerOf(e));
+                    throw e;
+                }
+                meterRegistry.counter(RETRIES, "operation", operation).increment();
+                backOff(attemptNumber, e);
+            }
+        }
+    }
+
+    private void backOff(int attemptNumber, OptimisticLockingFailureException conflict) {
+        long ceiling = Math.min(maxBackoff.toMillis(), initialBackoff.toMillis() << Math.min(attemptNumber - 1, 20));
+        if (ceiling <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+
+    private String beerOf(OptimisticLockingFailureException e) {
+        if (e instanceof ObjectOptimisticLockingFailureException) {
+            return String.valueOf(((ObjectOptimisticLockingFailureException) e).getIdentifier());
+        }
+        return "unknown";
+    }
+}
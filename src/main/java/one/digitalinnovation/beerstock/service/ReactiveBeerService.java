@@ -0,0 +1,254 @@
+package one.digitalinnovation.beerstock.service;
+
+import io.r2dbc.spi.Row;
+import lombok.AllArgsConstructor;
+import one.digitalinnovation.beerstock.cluster.BeerInvalidation;
+import one.digitalinnovation.beerstock.cluster.InvalidationChannel;
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.dto.BeerSummaryDTO;
+import one.digitalinnovation.beerstock.dto.InventoryStatsDTO;
+import one.digitalinnovation.beerstock.dto.ReorderSuggestionDTO;
+import one.digitalinnovation.beerstock.dto.StockEventDTO;
+import one.digitalinnovation.beerstock.entity.Beer;
+import one.digitalinnovation.beerstock.enums.BeerType;
+import one.digitalinnovation.beerstock.enums.StockEventType;
+import one.digitalinnovation.beerstock.exception.BeerAlreadyRegisteredException;
+import one.digitalinnovation.beerstock.exception.BeerNotFoundException;
+import one.digitalinnovation.beerstock.exception.BeerStockExceededException;
+import one.digitalinnovation.beerstock.mapper.BeerMapper;
+import one.digitalinnovation.beerstock.repository.StockEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Non-blocking counterpart of {@link BeerService} for the {@code reactive} profile, running on R2DBC against the
+ * database the JPA stack creates.
+ * <p>
+ * Stock changes are single conditional updates that also bump the version, so concurrent changes on one beer are
+ * applied one after another by the database, which rejects the ones that would leave the stock out of bounds, and
+ * stale JPA writers still fail their {@code @Version} check. Like the servlet stack, every change is announced on
+ * the {@link InvalidationChannel} so nodes sharing the database drop their cached copies and ledger counters, and
+ * is appended to the {@link StockEventLog} in the transaction that made it.
+ */
+@Service
+@Profile("reactive")
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class ReactiveBeerService {
+
+    private static final String SELECT_BEERS = "select id, name, brand, max, quantity, type, version from beer";
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+    private final StockEventLog stockEventLog;
+    private final BeerNameIndex beerNameIndex;
+    private final ReorderIndex reorderIndex;
+    private final InventoryStats inventoryStats;
+    private final InvalidationChannel invalidationChannel;
+    private final BeerMapper beerMapper = BeerMapper.INSTANCE;
+
+    public Mono<BeerDTO> createBeer(BeerDTO beerDTO) {
+        Beer beer = beerMapper.toModel(beerDTO);
+        return databaseClient.execute(SELECT_BEERS + " where name = :name")
+                .bind("name", beer.getName())
+                .map(this::toBeer)
+                .first()
+                .flatMap(registeredBeer -> Mono.<Beer>error(new BeerAlreadyRegisteredException(beer.getName())))
+                .switchIfEmpty(Mono.defer(() -> insert(beer).as(transactionalOperator::transactional)))
+                .onErrorMap(DataIntegrityViolationException.class, e -> new BeerAlreadyRegisteredException(beer.getName()))
+                .doOnNext(savedBeer -> {
+                    beerNameIndex.put(savedBeer.getId(), savedBeer.getName(), savedBeer.getBrand());
+                    trackStock(savedBeer);
+                    invalidate(savedBeer.getId(), savedBeer.getName(), null);
+                })
+                .map(beerMapper::toDTO);
+    }
+
+    public Mono<BeerDTO> findByName(String name) {
+        return databaseClient.execute(SELECT_BEERS + " where name = :name")
+                .bind("name", name)
+                .map(this::toBeer)
+                .first()
+                .switchIfEmpty(Mono.error(() -> new BeerNotFoundException(name)))
+                .map(beerMapper::toDTO);
+    }
+
+    public Flux<BeerDTO> listAll(Long afterId, int pageSize) {
+        long cursor = afterId == null ? 0L : afterId;
+        int boundedPageSize = Math.max(1, Math.min(pageSize, BeerService.MAX_PAGE_SIZE));
+        return databaseClient.execute(SELECT_BEERS + " where id > :afterId order by id limit :limit")
+                .bind("afterId", cursor)
+                .bind("limit", boundedPageSize)
+                .map(this::toBeer)
+                .all()
+                .map(beerMapper::toDTO);
+    }
+
+    /**
+     * Every beer in id order, read from the database only as fast as the subscriber requests them.
+     */
+    public Flux<BeerDTO> streamAll() {
+        return databaseClient.execute(SELECT_BEERS + " order by id")
+                .map(this::toBeer)
+                .all()
+                .map(beerMapper::toDTO);
+    }
+
+    public Flux<BeerSummaryDTO> suggest(String query, int limit) {
+        return Flux.defer(() -> Flux.fromIterable(beerNameIndex.suggest(query, limit)));
+    }
+
+    public Flux<ReorderSuggestionDTO> lowStock(int limit) {
+        return Flux.defer(() -> Flux.fromIterable(reorderIndex.lowStock(limit)));
+    }
+
+    public Mono<InventoryStatsDTO> stats() {
+        return Mono.fromSupplier(inventoryStats::stats);
+    }
+
+    /**
+     * Stock events after the given offset. When {@code wait} is set and there are none yet, completes with the first
+     * ones to be sequenced; the caller bounds the wait.
+     */
+    public Flux<StockEventDTO> changesSince(long offset, int limit, boolean wait) {
+        int boundedLimit = Math.max(1, Math.min(limit, BeerService.MAX_PAGE_SIZE));
+        Flux<StockEventDTO> events = databaseClient.execute("select event_offset, beer_id, beer_name, type, delta, quantity, beer_version, occurred_at "
+                + "from stock_event where event_offset > :offset order by event_offset limit :limit")
+                .bind("offset", offset)
+                .bind("limit", boundedLimit)
+                .map(this::toStockEvent)
+                .all();
+        if (!wait) {
+            return events;
+        }
+        return Mono.fromFuture(() -> stockEventLog.awaitOffsetAfter(offset)).thenMany(events);
+    }
+
+    public Mono<Void> deleteById(Long id) {
+        return findById(id)
+                .flatMap(beerToDelete -> appendEvent(id, StockEventType.DELETED, 0)
+                        .then(databaseClient.execute("delete from beer where id = :id")
+                                .bind("id", id)
+                                .fetch()
+                                .rowsUpdated())
+                        .as(transactionalOperator::transactional)
+                        .doOnNext(deleted -> {
+                            beerNameIndex.remove(id);
+                            reorderIndex.remove(id);
+                            inventoryStats.remove(id);
+                            invalidate(id, beerToDelete.getName(), null);
+                        }))
+                .then();
+    }
+
+    public Mono<BeerDTO> increment(Long id, int quantityToIncrement) {
+        return changeStock(id, quantityToIncrement, StockEventType.INCREMENTED,
+                "update beer set quantity = quantity + :quantity, version = version + 1 where id = :id and quantity + :quantity <= max");
+    }
+
+    public Mono<BeerDTO> decrement(Long id, int quantityToDecrement) {
+        return changeStock(id, quantityToDecrement, StockEventType.DECREMENTED,
+                "update beer set quantity = quantity - :quantity, version = version + 1 where id = :id and quantity >= :quantity");
+    }
+
+    private Mono<BeerDTO> changeStock(Long id, int quantity, StockEventType type, String conditionalUpdate) {
+        int delta = type == StockEventType.DECREMENTED ? -quantity : quantity;
+        return databaseClient.execute(conditionalUpdate)
+                .bind("quantity", quantity)
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated()
+                .flatMap(updated -> updated == 0
+                        ? findById(id).flatMap(beer -> Mono.<Beer>error(new BeerStockExceededException(id, quantity)))
+                        : appendEvent(id, type, delta).then(findById(id)))
+                .as(transactionalOperator::transactional)
+                .doOnNext(changedBeer -> {
+                    trackStock(changedBeer);
+                    invalidate(id, changedBeer.getName(), changedBeer.getVersion());
+                })
+                .map(beerMapper::toDTO);
+    }
+
+    /**
+     * Takes its id straight from the sequence the JPA stack allocates from. JPA reserves ids in pooled blocks that
+     * end at the sequence values it fetched itself, so a value fetched here is never handed out there.
+     */
+    private Mono<Beer> insert(Beer beer) {
+        return databaseClient.execute("select next value for beer_sequence")
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .flatMap(id -> databaseClient.execute("insert into beer (id, name, brand, max, quantity, type, version) "
+                        + "values (:id, :name, :brand, :max, :quantity, :type, 0)")
+                        .bind("id", id)
+                        .bind("name", beer.getName())
+                        .bind("brand", beer.getBrand())
+                        .bind("max", beer.getMax())
+                        .bind("quantity", beer.getQuantity())
+                        .bind("type", beer.getType().name())
+                        .fetch()
+                        .rowsUpdated()
+                        .then(appendEvent(id, StockEventType.CREATED, beer.getQuantity()))
+                        .then(Mono.fromSupplier(() -> {
+                            beer.setId(id);
+                            beer.setVersion(0L);
+                            return beer;
+                        })));
+    }
+
+    private Mono<Integer> appendEvent(Long id, StockEventType type, int delta) {
+        return databaseClient.execute(StockEventRepository.APPEND)
+                .bind("beerId", id)
+                .bind("type", type.name())
+                .bind("delta", delta)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private Mono<Beer> findById(Long id) {
+        return databaseClient.execute(SELECT_BEERS + " where id = :id")
+                .bind("id", id)
+                .map(this::toBeer)
+                .first()
+                .switchIfEmpty(Mono.error(() -> new BeerNotFoundException(id)));
+    }
+
+    private Beer toBeer(Row row) {
+        return new Beer(row.get("id", Long.class),
+                row.get("name", String.class),
+                row.get("brand", String.class),
+                row.get("max", Integer.class),
+                row.get("quantity", Integer.class),
+                BeerType.valueOf(row.get("type", String.class)),
+                row.get("version", Long.class));
+    }
+
+    private StockEventDTO toStockEvent(Row row) {
+        return StockEventDTO.builder()
+                .offset(row.get("event_offset", Long.class))
+                .beerId(row.get("beer_id", Long.class))
+                .beerName(row.get("beer_name", String.class))
+                .type(StockEventType.valueOf(row.get("type", String.class)))
+                .delta(row.get("delta", Integer.class))
+                .quantity(row.get("quantity", Integer.class))
+                .beerVersion(row.get("beer_version", Long.class))
+                .occurredAt(row.get("occurred_at", LocalDateTime.class).atZone(ZoneId.systemDefault()).toInstant())
+                .build();
+    }
+
+    private void trackStock(Beer beer) {
+        reorderIndex.put(beer.getId(), beer.getName(), beer.getType(), beer.getMax(), beer.getQuantity());
+        inventoryStats.put(beer.getId(), beer.getBrand(), beer.getType(), beer.getMax(), beer.getQuantity());
+    }
+
+    private void invalidate(Long id, String name, Long version) {
+        invalidationChannel.publish(new BeerInvalidation(id, name, version));
+    }
+}
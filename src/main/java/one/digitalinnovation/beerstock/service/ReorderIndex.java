@@ -0,0 +1,219 @@
+package one.digitalinnovation.beerstock.service;
+
+import one.digitalinnovation.beerstock.dto.BeerSearchDTO;
+import one.digitalinnovation.beerstock.dto.BeerSummaryDTO;
+import one.digitalinnovation.beerstock.dto.ReorderSuggestionDTO;
+import one.digitalinnovation.beerstock.entity.Beer;
+import one.digitalinnovation.beerstock.enums.BeerType;
+import one.digitalinnovation.beerstock.repository.BeerRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory stock levels of every beer, used to tell which beers need to be reordered without scanning the table.
+ * <p>
+ * Beers at or below their reorder point, the {@link ReorderThresholds} percent of their max, are kept in a sorted
+ * set ordered by fill ratio, emptiest first, so a change moves one beer in or out of it in logarithmic time and the
+ * low-stock listing reads its head. A beer that runs low through a change made on this node is also queued until
+ * {@link #takeRunLow()} hands it to the {@link ReorderJob}; it leaves the queue again if it is restocked first.
+ * <p>
+ * The levels are built from the database at startup and kept up to date by {@link BeerService} on this node, which
+ * reports the quantity its ledger counter holds, and by {@link #refresh(Long)} for changes announced by other nodes.
+ * Only the node that made a change queues it, so a beer running low is suggested once per deployment.
+ */
+@Component
+public class ReorderIndex {
+
+    private static final int BUILD_BATCH_SIZE = 1000;
+    private static final List<String> INDEXED_FIELDS = Arrays.asList("name", "max", "quantity", "type");
+    private static final Comparator<StockLevel> BY_FILL_RATIO = Comparator.comparingDouble((StockLevel level) -> level.fillRatio)
+            .thenComparing(level -> level.id);
+
+    private final BeerRepository beerRepository;
+    private final StockLedger stockLedger;
+    private final ReorderThresholds reorderThresholds;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, StockLevel> levels = new HashMap<>();
+    private final NavigableSet<StockLevel> lowStock = new TreeSet<>(BY_FILL_RATIO);
+    private final Set<Long> runLow = new LinkedHashSet<>();
+
+    @Autowired
+    public ReorderIndex(BeerRepository beerRepository, StockLedger stockLedger, ReorderThresholds reorderThresholds) {
+        this.beerRepository = beerRepository;
+        this.stockLedger = stockLedger;
+        this.reorderThresholds = reorderThresholds;
+    }
+
+    @PostConstruct
+    public void build() {
+        long cursor = 0L;
+        List<BeerSummaryDTO> beers;
+        do {
+            beers = beerRepository.search(new BeerSearchDTO(), INDEXED_FIELDS, cursor, BUILD_BATCH_SIZE);
+            for (BeerSummaryDTO beer : beers) {
+                load(beer.getId(), beer.getName(), beer.getType(), beer.getMax(), beer.getQuantity());
+                cursor = beer.getId();
+            }
+        } while (beers.size() == BUILD_BATCH_SIZE);
+    }
+
+    /**
+     * Records the stock a change made on this node left on a beer, queueing it when the change made it run low.
+     */
+    public void put(Long id, String name, BeerType type, int max, int quantity) {
+        update(id, name, type, max, quantity, true);
+    }
+
+    /**
+     * Records the stock of a beer read from storage, which is never queued.
+     */
+    public void load(Long id, String name, BeerType type, int max, int quantity) {
+        update(id, name, type, max, quantity, false);
+    }
+
+    public void remove(Long id) {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            StockLevel previous = levels.remove(id);
+            if (previous != null) {
+                lowStock.remove(previous);
+            }
+            runLow.remove(id);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Reloads the stock of a beer changed by another node, or drops it when it no longer exists.
+     */
+    public void refresh(Long id) {
+        Optional<Beer> beer = beerRepository.findById(id);
+        if (beer.isPresent()) {
+            load(id, beer.get().getName(), beer.get().getType(), beer.get().getMax(), beer.get().getQuantity());
+        } else {
+            remove(id);
+        }
+    }
+
+    /**
+     * Beers at or below their reorder point, emptiest first.
+     */
+    public List<ReorderSuggestionDTO> lowStock(int limit) {
+        int boundedLimit = Math.max(1, Math.min(limit, BeerService.MAX_PAGE_SIZE));
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            return lowStock.stream()
+                    .limit(boundedLimit)
+                    .map(StockLevel::toSuggestion)
+                    .collect(Collectors.toList());
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public int lowStockCount() {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            return lowStock.size();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Beers that ran low through a change on this node since the last call and are still low, in the order they ran
+     * low.
+     */
+    public List<ReorderSuggestionDTO> takeRunLow() {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            List<ReorderSuggestionDTO> suggestions = new ArrayList<>(runLow.size());
+            runLow.forEach(id -> suggestions.add(levels.get(id).toSuggestion()));
+            runLow.clear();
+            return suggestions;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void update(Long id, String name, BeerType type, int max, int quantity, boolean queue) {
+        int reorderPoint = max * reorderThresholds.percentOf(name, type) / 100;
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            // Concurrent changes may report out of order; the ledger counter, when loaded, has the latest quantity.
+            StockLevel level = new StockLevel(id, name, type, max, stockLedger.quantityOf(id).orElse(quantity), reorderPoint);
+            StockLevel previous = levels.put(id, level);
+            boolean wasLow = previous != null && lowStock.remove(previous);
+            if (level.isLow()) {
+                lowStock.add(level);
+                if (queue && !wasLow) {
+                    runLow.add(id);
+                }
+            } else {
+                runLow.remove(id);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private static class StockLevel {
+
+        private final Long id;
+        private final String name;
+        private final BeerType type;
+        private final int max;
+        private final int quantity;
+        private final int reorderPoint;
+        private final double fillRatio;
+
+        private StockLevel(Long id, String name, BeerType type, int max, int quantity, int reorderPoint) {
+            this.id = id;
+            this.name = name;
+            this.type = type;
+            this.max = max;
+            this.quantity = quantity;
+            this.reorderPoint = reorderPoint;
+            this.fillRatio = max > 0 ? (double) quantity / max : 1.0;
+        }
+
+        private boolean isLow() {
+            return max > 0 && quantity <= reorderPoint;
+        }
+
+        private ReorderSuggestionDTO toSuggestion() {
+            return ReorderSuggestionDTO.builder()
+                    .id(id)
+                    .name(name)
+                    .type(type)
+                    .quantity(quantity)
+                    .max(max)
+                    .reorderPoint(reorderPoint)
+                    .reorderQuantity(max - quantity)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package one.digitalinnovation.beerstock.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import one.digitalinnovation.beerstock.dto.ReorderSuggestionDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Suggests reordering the beers that ran low since its last run. Each suggestion is logged, counted in
+ * {@code beerstock.reorder.suggestions} by beer type and published as an application event, so purchasing
+ * integrations can pick it up with an {@code @EventListener} for {@link ReorderSuggestionDTO}. The job only reads the
+ * changes the {@link ReorderIndex} queued, so a run costs the same however large the catalog is. Nothing depends on
+ * the job, so it is created eagerly even with lazy initialization.
+ */
+@Slf4j
+@Component
+@Lazy(false)
+public class ReorderJob {
+
+    private static final String SUGGESTIONS = "beerstock.reorder.suggestions";
+
+    private final ReorderIndex reorderIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public ReorderJob(ReorderIndex reorderIndex, ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry) {
+        this.reorderIndex = reorderIndex;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("beerstock.reorder.low-stock", reorderIndex, ReorderIndex::lowStockCount)
+                .description("Beers at or below their reorder point")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${beerstock.reorder.interval-ms:1000}")
+    public void suggestReorders() {
+        for (ReorderSuggestionDTO suggestion : reorderIndex.takeRunLow()) {
+            log.info("Beer {} ran low with {} of {} units, reorder {}", suggestion.getName(), suggestion.getQuantity(),
+                    suggestion.getMax(), suggestion.getReorderQuantity());
+            meterRegistry.counter(SUGGESTIONS, "type", suggestion.getType().name()).increment();
+            eventPublisher.publishEvent(suggestion);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package one.digitalinnovation.beerstock.service;
+
+import lombok.Data;
+import one.digitalinnovation.beerstock.enums.BeerType;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Percent of a beer's max at or below which it needs to be reordered. A threshold set for the beer's name wins over
+ * one set for its type, which wins over {@code beerstock.reorder.threshold-percent}. Names are given in brackets, so
+ * they keep their case and spaces: {@code beerstock.reorder.beer-threshold-percent[Brahma\ Chopp]=35}.
+ */
+@Data
+@Component
+@ConfigurationProperties("beerstock.reorder")
+public class ReorderThresholds {
+
+    private int thresholdPercent = 20;
+
+    private Map<BeerType, Integer> typeThresholdPercent = new EnumMap<>(BeerType.class);
+
+    private Map<String, Integer> beerThresholdPercent = new HashMap<>();
+
+    public int percentOf(String name, BeerType type) {
+        Integer beerPercent = beerThresholdPercent.get(name);
+        if (beerPercent != null) {
+            return beerPercent;
+        }
+        return typeThresholdPercent.getOrDefault(type, thresholdPercent);
+    }
+}
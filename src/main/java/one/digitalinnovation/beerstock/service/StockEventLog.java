@@ -0,0 +1,121 @@
+package one.digitalinnovation.beerstock.service;
+
+import lombok.extern.slf4j.Slf4j;
+import one.digitalinnovation.beerstock.dto.StockEventDTO;
+import one.digitalinnovation.beerstock.enums.StockEventType;
+import one.digitalinnovation.beerstock.mapper.StockEventMapper;
+import one.digitalinnovation.beerstock.repository.StockEventRepository;
+import org.springframework.beans.factory.BeanCreationNotAllowedException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Append-only log of stock changes that clients follow by offset instead of polling the whole catalog.
+ * <p>
+ * Events are inserted by {@link #append} inside the transaction that changes the stock, so an event exists exactly
+ * when its change committed. They are inserted without an offset; {@link #sequence()} hands out offsets to committed
+ * events in a later transaction. A reader that has seen offset {@code n} therefore never misses an event that got an
+ * earlier id but committed after it. Only conditionally unset offsets are written and offsets are unique, so nodes
+ * sequencing the same database at once roll back instead of numbering an event twice.
+ * <p>
+ * Withdrawals, and deposits in write-behind mode, are written by the {@link StockLedger} flush, so a run of them
+ * shows up as one event per beer and flush.
+ */
+@Slf4j
+@Service
+public class StockEventLog {
+
+    private static final int SEQUENCE_BATCH_SIZE = 500;
+
+    private final StockEventRepository stockEventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final StockEventMapper stockEventMapper = StockEventMapper.INSTANCE;
+    private final AtomicLong lastOffset = new AtomicLong();
+    private volatile CompletableFuture<Long> nextSequenced = new CompletableFuture<>();
+
+    @Autowired
+    public StockEventLog(StockEventRepository stockEventRepository, TransactionTemplate transactionTemplate) {
+        this.stockEventRepository = stockEventRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Records the state a change left on a beer. Must run in the transaction that made the change, and for a
+     * deletion before the row is gone.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(Long beerId, StockEventType type, int delta) {
+        stockEventRepository.append(beerId, type.name(), delta);
+    }
+
+    public List<StockEventDTO> read(long since, int limit) {
+        int boundedLimit = Math.max(1, Math.min(limit, BeerService.MAX_PAGE_SIZE));
+        return stockEventRepository.findByOffsetGreaterThanOrderByOffsetAsc(since, PageRequest.of(0, boundedLimit))
+                .stream()
+                .map(stockEventMapper::toDTO)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Events after {@code since}, completed as soon as there is at least one. The caller is expected to give up on
+     * the future after its own timeout.
+     */
+    public CompletableFuture<List<StockEventDTO>> poll(long since, int limit) {
+        return awaitOffsetAfter(since).thenApply(offset -> read(since, limit));
+    }
+
+    /**
+     * Completes with the latest offset once events after {@code since} have been sequenced.
+     */
+    public CompletableFuture<Long> awaitOffsetAfter(long since) {
+        CompletableFuture<Long> sequenced = nextSequenced;
+        long offset = lastOffset.get();
+        if (offset > since) {
+            return CompletableFuture.completedFuture(offset);
+        }
+        return sequenced.thenCompose(sequencedOffset -> sequencedOffset > since
+                ? CompletableFuture.completedFuture(sequencedOffset)
+                : awaitOffsetAfter(since));
+    }
+
+    @Scheduled(fixedDelayString = "${beerstock.events.sequence-interval-ms:50}")
+    public void sequence() {
+        try {
+            transactionTemplate.execute(status -> {
+                List<Long> unsequencedIds = stockEventRepository.findUnsequencedIds(PageRequest.of(0, SEQUENCE_BATCH_SIZE));
+                if (unsequencedIds.isEmpty()) {
+                    return null;
+                }
+                long offset = stockEventRepository.maxOffset();
+                for (Long id : unsequencedIds) {
+                    if (stockEventRepository.assignOffset(id, ++offset) == 0) {
+                        throw new IllegalStateException("Stock event " + id + " was sequenced by another node");
+                    }
+                }
+                return null;
+            });
+            long sequencedOffset = stockEventRepository.maxOffset();
+            if (sequencedOffset > lastOffset.get()) {
+                lastOffset.set(sequencedOffset);
+                CompletableFuture<Long> sequenced = nextSequenced;
+                nextSequenced = new CompletableFuture<>();
+                sequenced.complete(sequencedOffset);
+            }
+        } catch (DataAccessException | TransactionException | BeanCreationNotAllowedException | IllegalStateException e) {
+            // Another node sequenced the same events, or the database is unavailable, e.g. while shutting down.
+            log.debug("Stock events could not be sequenced, retrying on the next run", e);
+        }
+    }
+}
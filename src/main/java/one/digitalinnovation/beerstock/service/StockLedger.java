@@ -0,0 +1,623 @@
+package one.digitalinnovation.beerstock.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import one.digitalinnovation.beerstock.cluster.BeerInvalidation;
+import one.digitalinnovation.beerstock.cluster.InvalidationChannel;
+import one.digitalinnovation.beerstock.entity.Beer;
+import one.digitalinnovation.beerstock.enums.StockEventType;
+import one.digitalinnovation.beerstock.enums.StockWriteDurability;
+import one.digitalinnovation.beerstock.exception.BeerNotFoundException;
+import one.digitalinnovation.beerstock.exception.BeerStockExceededException;
+import one.digitalinnovation.beerstock.repository.BeerRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory view of beer stock used to take units out without touching the database row on every checkout.
+ * <p>
+ * Withdrawals are a lock-free compare-and-set on a per beer counter and are written back to the {@code quantity}
+ * column asynchronously by {@link #flush()}. Loading a counter, depositing stock and flushing take a striped lock
+ * for the beer id, so the database and the counter never disagree about units that were already accounted for.
+ * Counters are loaded lazily from the database, which is how the ledger rebuilds itself after a restart.
+ * <p>
+ * Each node keeps its own counters. Flushed withdrawals are announced on the {@link InvalidationChannel} and a node
+ * that hears about a change made elsewhere drops its counter through {@link #refresh(Long)}, so counters on different
+ * nodes converge within one flush interval.
+ * <p>
+ * Every write to the {@code quantity} column appends to the {@link StockEventLog} in the same transaction, so a
+ * flush of many withdrawals is recorded as one event.
+ * <p>
+ * With {@code write-behind.enabled}, deposits take the same path as withdrawals: they are checked against the
+ * counter and the beer's max in memory, added up per beer and written by the next flush, which then writes every
+ * beer in one transaction. A flush also starts as soon as {@code write-behind.max-pending} deposits are waiting, run
+ * by the caller that reached the bound. {@code write-behind.durability} decides whether a deposit returns once
+ * accepted or once its flush committed. A beer with both deposits and withdrawals pending is written as one update of
+ * the net change, since checkouts may already have spent the deposited units. A flushed deposit can still be turned
+ * down by the database when another node filled the beer in the meantime; it is then taken back out of the counter
+ * and counted in {@code beerstock.ledger.rejected}. Waiting deposits are exposed in {@code beerstock.ledger.pending}
+ * and flush durations in {@code beerstock.ledger.flush}.
+ * <p>
+ * Each node only checks withdrawals against its own counter, so two nodes can hand out the same units. The database
+ * turns down a flushed withdrawal that would take the stock below zero; its units are put back into the counter and
+ * counted in {@code beerstock.ledger.rejected-withdrawals}, while deposits written by the same flush stand. The counter
+ * converges once the other node announces its flush.
+ */
+@Slf4j
+@Component
+public class StockLedger {
+
+    private static final int STRIPES = 64;
+    private static final String PENDING = "beerstock.ledger.pending";
+    private static final String FLUSH = "beerstock.ledger.flush";
+    private static final String REJECTED = "beerstock.ledger.rejected";
+    private static final String REJECTED_WITHDRAWALS = "beerstock.ledger.rejected-withdrawals";
+
+    private final BeerRepository beerRepository;
+    private final InvalidationChannel invalidationChannel;
+    private final StockEventLog stockEventLog;
+    private final TransactionTemplate transactionTemplate;
+    private final CatalogVersion catalogVersion;
+    private final boolean writeBehind;
+    private final StockWriteDurability durability;
+    private final int maxPendingDeposits;
+    private final Timer flushTimer;
+    private final Counter rejectedDeposits;
+    private final Counter rejectedWithdrawals;
+    private final ConcurrentMap<Long, StockCounter> counters = new ConcurrentHashMap<>();
+    private final Lock[] stripes = new Lock[STRIPES];
+    private final Lock batchLock = new ReentrantLock();
+    private final AtomicInteger pendingDeposits = new AtomicInteger();
+
+    @Autowired
+    public StockLedger(BeerRepository beerRepository, InvalidationChannel invalidationChannel,
+                       StockEventLog stockEventLog, TransactionTemplate transactionTemplate,
+                       CatalogVersion catalogVersion, MeterRegistry meterRegistry,
+                       @Value("${beerstock.ledger.write-behind.enabled:false}") boolean writeBehind,
+                       @Value("${beerstock.ledger.write-behind.durability:FLUSHED}") StockWriteDurability durability,
+                       @Value("${beerstock.ledger.write-behind.max-pending:500}") int maxPendingDeposits) {
+        this.beerRepository = beerRepository;
+        this.invalidationChannel = invalidationChannel;
+        this.stockEventLog = stockEventLog;
+        this.transactionTemplate = transactionTemplate;
+        this.catalogVersion = catalogVersion;
+        this.writeBehind = writeBehind;
+        this.durability = durability;
+        this.maxPendingDeposits = Math.max(1, maxPendingDeposits);
+        this.flushTimer = meterRegistry.timer(FLUSH);
+        this.rejectedDeposits = meterRegistry.counter(REJECTED);
+        this.rejectedWithdrawals = meterRegistry.counter(REJECTED_WITHDRAWALS);
+        Gauge.builder(PENDING, pendingDeposits, AtomicInteger::get)
+                .description("Write-behind deposits not flushed yet")
+                .register(meterRegistry);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public int withdraw(Long id, int quantity) throws BeerNotFoundException, BeerStockExceededException {
+        StockCounter counter = counterFor(id);
+        while (true) {
+            int available = counter.available.get();
+            if (available < quantity) {
+                throw new BeerStockExceededException(id, quantity);
+            }
+            if (counter.available.compareAndSet(available, available - quantity)) {
+                counter.unflushed.addAndGet(quantity);
+                if (counter.retired) {
+                    flushRetired(id, counter);
+                }
+                return available - quantity;
+            }
+        }
+    }
+
+    public void deposit(Long id, int quantity) throws BeerNotFoundException, BeerStockExceededException {
+        if (writeBehind) {
+            depositBehind(id, quantity);
+            return;
+        }
+        Lock lock = stripeFor(id);
+        lock.lock();
+        StockCounter counter = counters.get(id);
+        boolean flushed = false;
+        try {
+            if (counter != null) {
+                flushed = flush(id, counter);
+            }
+            if (writeStock(id, quantity, StockEventType.INCREMENTED) == 0) {
+                if (!beerRepository.existsById(id)) {
+                    throw new BeerNotFoundException(id);
+                }
+                throw new BeerStockExceededException(id, quantity);
+            }
+            if (counter != null) {
+                counter.available.addAndGet(quantity);
+            }
+        } finally {
+            lock.unlock();
+            if (flushed) {
+                publishFlushed(id, counter);
+            }
+        }
+    }
+
+    private void depositBehind(Long id, int quantity) throws BeerNotFoundException, BeerStockExceededException {
+        StockCounter counter = counterFor(id);
+        while (true) {
+            int available = counter.available.get();
+            if (available + quantity > counter.max) {
+                throw new BeerStockExceededException(id, quantity);
+            }
+            if (counter.available.compareAndSet(available, available + quantity)) {
+                break;
+            }
+        }
+        int pending = pendingDeposits.incrementAndGet();
+        CompletableFuture<Void> written;
+        synchronized (counter) {
+            counter.undeposited += quantity;
+            counter.depositOperations++;
+            written = counter.nextWrite;
+        }
+        if (counter.retired) {
+            flushRetired(id, counter);
+        } else if (pending >= maxPendingDeposits && batchLock.tryLock()) {
+            try {
+                flushAll();
+            } finally {
+                batchLock.unlock();
+            }
+        }
+        if (durability == StockWriteDurability.FLUSHED) {
+            awaitWrite(written);
+        }
+    }
+
+    private void awaitWrite(CompletableFuture<Void> written) throws BeerNotFoundException, BeerStockExceededException {
+        try {
+            written.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof BeerNotFoundException) {
+                throw (BeerNotFoundException) e.getCause();
+            }
+            if (e.getCause() instanceof BeerStockExceededException) {
+                throw (BeerStockExceededException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Runs a multi-beer stock write while holding the locks of every given beer. Pending withdrawals are flushed
+     * first, and the quantities the writer reports as committed are then credited to the loaded counters. A writer
+     * that can conflict is retried around this method rather than inside it, so nobody waits on locks held through a
+     * backoff.
+     */
+    public void depositAll(Collection<Long> ids, Supplier<Map<Long, Integer>> writer) {
+        List<Lock> locks = lockAll(ids);
+        Map<Long, StockCounter> flushedCounters = new HashMap<>();
+        try {
+            for (Long id : ids) {
+                StockCounter counter = counters.get(id);
+                if (counter != null && flush(id, counter)) {
+                    flushedCounters.put(id, counter);
+                }
+            }
+            writer.get().forEach((id, quantity) -> {
+                StockCounter counter = counters.get(id);
+                if (counter != null) {
+                    counter.available.addAndGet(quantity);
+                }
+            });
+        } finally {
+            unlockAll(locks);
+            flushedCounters.forEach(this::publishFlushed);
+        }
+    }
+
+    public OptionalInt quantityOf(Long id) {
+        StockCounter counter = counters.get(id);
+        return counter == null ? OptionalInt.empty() : OptionalInt.of(counter.available.get());
+    }
+
+    /**
+     * Flushes and drops the counter of a beer that was changed by another node, so it is reloaded on next use.
+     */
+    public void refresh(Long id) {
+        Lock lock = stripeFor(id);
+        lock.lock();
+        StockCounter counter = counters.remove(id);
+        boolean flushed = false;
+        try {
+            if (counter != null) {
+                counter.retired = true;
+                flushed = flush(id, counter);
+            }
+        } catch (RuntimeException e) {
+            counter.retired = false;
+            counters.put(id, counter);
+            throw e;
+        } finally {
+            lock.unlock();
+        }
+        if (flushed) {
+            publishFlushed(id, counter);
+        }
+    }
+
+    public void evict(Long id) {
+        Lock lock = stripeFor(id);
+        lock.lock();
+        try {
+            StockCounter counter = counters.remove(id);
+            if (counter != null) {
+                counter.retired = true;
+                PendingWrite pendingWrite = take(id, counter);
+                if (pendingWrite != null) {
+                    pendingDeposits.addAndGet(-pendingWrite.depositOperations);
+                    pendingWrite.written.completeExceptionally(new BeerNotFoundException(id));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${beerstock.ledger.flush-interval-ms:200}")
+    public void flush() {
+        if (writeBehind) {
+            batchLock.lock();
+            try {
+                flushAll();
+            } finally {
+                batchLock.unlock();
+            }
+            return;
+        }
+        counters.forEach((id, counter) -> {
+            if (!counter.hasPendingWrites()) {
+                return;
+            }
+            Lock lock = stripeFor(id);
+            lock.lock();
+            boolean flushed = false;
+            try {
+                flushed = flush(id, counter);
+            } catch (RuntimeException e) {
+                log.warn("Could not flush stock of beer {}, it will be retried on the next flush", id, e);
+            } finally {
+                lock.unlock();
+            }
+            if (flushed) {
+                publishFlushed(id, counter);
+            }
+        });
+    }
+
+    /**
+     * Writes the pending changes of every beer in one transaction, holding the locks of all of them. When the
+     * transaction fails the changes are put back and retried by the next flush.
+     */
+    private void flushAll() {
+        Map<Long, StockCounter> pendingCounters = new HashMap<>();
+        counters.forEach((id, counter) -> {
+            if (counter.hasPendingWrites()) {
+                pendingCounters.put(id, counter);
+            }
+        });
+        if (pendingCounters.isEmpty()) {
+            return;
+        }
+        Timer.Sample sample = Timer.start();
+        List<Lock> locks = lockAll(pendingCounters.keySet());
+        List<PendingWrite> flushedWrites = new ArrayList<>();
+        try {
+            List<PendingWrite> pendingWrites = new ArrayList<>();
+            pendingCounters.forEach((id, counter) -> {
+                PendingWrite pendingWrite = counters.get(id) == counter ? take(id, counter) : null;
+                if (pendingWrite != null) {
+                    pendingWrites.add(pendingWrite);
+                }
+            });
+            try {
+                transactionTemplate.execute(status -> {
+                    pendingWrites.forEach(this::write);
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                pendingWrites.forEach(this::restore);
+                log.warn("Could not flush stock of {} beers, it will be retried on the next flush", pendingWrites.size(), e);
+                return;
+            }
+            for (PendingWrite pendingWrite : pendingWrites) {
+                if (settle(pendingWrite)) {
+                    flushedWrites.add(pendingWrite);
+                }
+            }
+        } finally {
+            unlockAll(locks);
+            sample.stop(flushTimer);
+        }
+        flushedWrites.forEach(pendingWrite -> publishFlushed(pendingWrite.id, pendingWrite.counter));
+    }
+
+    private boolean flush(Long id, StockCounter counter) {
+        PendingWrite pendingWrite = take(id, counter);
+        if (pendingWrite == null) {
+            return false;
+        }
+        try {
+            transactionTemplate.execute(status -> {
+                write(pendingWrite);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            restore(pendingWrite);
+            throw e;
+        }
+        return settle(pendingWrite);
+    }
+
+    private PendingWrite take(Long id, StockCounter counter) {
+        int withdrawn = counter.unflushed.getAndSet(0);
+        synchronized (counter) {
+            if (withdrawn == 0 && counter.depositOperations == 0) {
+                return null;
+            }
+            PendingWrite pendingWrite = new PendingWrite(id, counter, withdrawn, counter.undeposited,
+                    counter.depositOperations, counter.nextWrite);
+            counter.undeposited = 0;
+            counter.depositOperations = 0;
+            counter.nextWrite = new CompletableFuture<>();
+            return pendingWrite;
+        }
+    }
+
+    /**
+     * Runs inside the flush transaction and only records the outcome, since the transaction may still roll back.
+     */
+    private void write(PendingWrite pendingWrite) {
+        Long id = pendingWrite.id;
+        if (pendingWrite.withdrawn > 0 && pendingWrite.deposited > 0 && writeNet(pendingWrite)) {
+            return;
+        }
+        if (pendingWrite.deposited > 0 && writeStock(id, pendingWrite.deposited, StockEventType.INCREMENTED) == 0) {
+            pendingWrite.depositRejected = true;
+            if (!beerRepository.existsById(id)) {
+                pendingWrite.beerGone = true;
+                return;
+            }
+        }
+        if (pendingWrite.withdrawn > 0 && writeStock(id, -pendingWrite.withdrawn, StockEventType.DECREMENTED) == 0) {
+            pendingWrite.withdrawalRejected = true;
+            pendingWrite.beerGone = !beerRepository.existsById(id);
+        }
+    }
+
+    /**
+     * Writes the deposits and withdrawals of one beer as a single update of their net change, so checkouts of units
+     * deposited since the last flush never have to land before the deposit. Returns false when the net change does
+     * not fit, and each part is then written on its own.
+     */
+    private boolean writeNet(PendingWrite pendingWrite) {
+        Long id = pendingWrite.id;
+        Integer updated = transactionTemplate.execute(status -> {
+            int updatedRows = beerRepository.adjustQuantity(id, pendingWrite.deposited - pendingWrite.withdrawn);
+            if (updatedRows > 0) {
+                stockEventLog.append(id, StockEventType.INCREMENTED, pendingWrite.deposited);
+                stockEventLog.append(id, StockEventType.DECREMENTED, -pendingWrite.withdrawn);
+            }
+            return updatedRows;
+        });
+        return updated != null && updated > 0;
+    }
+
+    private void restore(PendingWrite pendingWrite) {
+        StockCounter counter = pendingWrite.counter;
+        counter.unflushed.addAndGet(pendingWrite.withdrawn);
+        synchronized (counter) {
+            counter.undeposited += pendingWrite.deposited;
+            counter.depositOperations += pendingWrite.depositOperations;
+            CompletableFuture<Void> laterWrite = counter.nextWrite;
+            counter.nextWrite = pendingWrite.written;
+            pendingWrite.written.whenComplete((ignored, error) -> {
+                if (error == null) {
+                    laterWrite.complete(null);
+                } else {
+                    laterWrite.completeExceptionally(error);
+                }
+            });
+        }
+    }
+
+    /**
+     * Applies the outcome of a committed write to the counter and reports it to the waiting deposits. Returns
+     * whether the beer's stock changed.
+     */
+    private boolean settle(PendingWrite pendingWrite) {
+        Long id = pendingWrite.id;
+        StockCounter counter = pendingWrite.counter;
+        pendingDeposits.addAndGet(-pendingWrite.depositOperations);
+        if (pendingWrite.beerGone) {
+            counters.remove(id, counter);
+            counter.retired = true;
+            pendingWrite.written.completeExceptionally(new BeerNotFoundException(id));
+            return false;
+        }
+        if (pendingWrite.withdrawalRejected) {
+            counter.available.addAndGet(pendingWrite.withdrawn);
+            rejectedWithdrawals.increment(pendingWrite.withdrawn);
+            log.warn("Database turned down {} units withdrawn from beer {}, another node took them first; they were put back into the ledger",
+                    pendingWrite.withdrawn, id);
+        }
+        if (pendingWrite.depositRejected) {
+            counter.available.addAndGet(-pendingWrite.deposited);
+            rejectedDeposits.increment(pendingWrite.depositOperations);
+            log.warn("Database turned down {} units buffered for beer {}, they were taken back out of the ledger",
+                    pendingWrite.deposited, id);
+            pendingWrite.written.completeExceptionally(new BeerStockExceededException(id, pendingWrite.deposited));
+        } else {
+            pendingWrite.written.complete(null);
+        }
+        if (pendingWrite.withdrawalRejected || pendingWrite.depositRejected) {
+            catalogVersion.advance();
+        }
+        return pendingWrite.withdrawn > 0 && !pendingWrite.withdrawalRejected
+                || pendingWrite.deposited > 0 && !pendingWrite.depositRejected;
+    }
+
+    private int writeStock(Long id, int delta, StockEventType type) {
+        Integer updated = transactionTemplate.execute(status -> {
+            int updatedRows = delta > 0
+                    ? beerRepository.incrementQuantity(id, delta)
+                    : beerRepository.decrementQuantity(id, -delta);
+            if (updatedRows > 0) {
+                stockEventLog.append(id, type, delta);
+            }
+            return updatedRows;
+        });
+        return updated == null ? 0 : updated;
+    }
+
+    /**
+     * Writes a withdrawal that landed on a counter after it was dropped, since no scheduled flush will see it.
+     */
+    private void flushRetired(Long id, StockCounter counter) {
+        Lock lock = stripeFor(id);
+        lock.lock();
+        boolean flushed;
+        try {
+            flushed = flush(id, counter);
+        } finally {
+            lock.unlock();
+        }
+        if (flushed) {
+            publishFlushed(id, counter);
+        }
+    }
+
+    private void publishFlushed(Long id, StockCounter counter) {
+        invalidationChannel.publish(BeerInvalidation.ofStock(id, counter.name));
+    }
+
+    private StockCounter counterFor(Long id) throws BeerNotFoundException {
+        StockCounter counter = counters.get(id);
+        if (counter != null) {
+            return counter;
+        }
+        Lock lock = stripeFor(id);
+        lock.lock();
+        try {
+            counter = counters.get(id);
+            if (counter == null) {
+                Beer beer = beerRepository.findById(id)
+                        .orElseThrow(() -> new BeerNotFoundException(id));
+                counter = new StockCounter(beer.getName(), beer.getQuantity(), beer.getMax());
+                counters.put(id, counter);
+            }
+            return counter;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<Lock> lockAll(Collection<Long> ids) {
+        List<Lock> locks = ids.stream()
+                .map(this::stripeIndexFor)
+                .distinct()
+                .sorted()
+                .map(index -> stripes[index])
+                .collect(Collectors.toList());
+        locks.forEach(Lock::lock);
+        return locks;
+    }
+
+    private void unlockAll(List<Lock> locks) {
+        for (int i = locks.size() - 1; i >= 0; i--) {
+            locks.get(i).unlock();
+        }
+    }
+
+    private Lock stripeFor(Long id) {
+        return stripes[stripeIndexFor(id)];
+    }
+
+    private int stripeIndexFor(Long id) {
+        return Math.floorMod(id.hashCode(), STRIPES);
+    }
+
+    private static class StockCounter {
+
+        private final String name;
+        private final int max;
+        private final AtomicInteger available;
+        private final AtomicInteger unflushed = new AtomicInteger();
+        private volatile boolean retired;
+
+        // Write-behind deposits, guarded by the counter itself.
+        private int undeposited;
+        private int depositOperations;
+        private CompletableFuture<Void> nextWrite = new CompletableFuture<>();
+
+        private StockCounter(String name, int available, int max) {
+            this.name = name;
+            this.max = max;
+            this.available = new AtomicInteger(available);
+        }
+
+        private synchronized boolean hasPendingWrites() {
+            return unflushed.get() != 0 || depositOperations != 0;
+        }
+    }
+
+    /**
+     * Changes taken off a counter by a flush, with what the database made of them.
+     */
+    private static class PendingWrite {
+
+        private final Long id;
+        private final StockCounter counter;
+        private final int withdrawn;
+        private final int deposited;
+        private final int depositOperations;
+        private final CompletableFuture<Void> written;
+        private boolean beerGone;
+        private boolean withdrawalRejected;
+        private boolean depositRejected;
+
+        private PendingWrite(Long id, StockCounter counter, int withdrawn, int deposited, int depositOperations,
+                             CompletableFuture<Void> written) {
+            this.id = id;
+            this.counter = counter;
+            this.withdrawn = withdrawn;
+            this.deposited = deposited;
+            this.depositOperations = depositOperations;
+            this.written = written;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package one.digitalinnovation.beerstock.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import one.digitalinnovation.beerstock.repository.BeerRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stock gauges read from the database when the registry is scraped.
+ * <p>
+ * {@code beerstock.stock.total} is the sum of all beer quantities and {@code beerstock.stock.near.max} the number of
+ * beers stocked at or above {@code near-max-percent} of their max. Withdrawals still held by the
+ * {@link StockLedger} show up after its next flush. Nothing depends on the gauges, so they are registered eagerly even
+ * with lazy initialization.
+ */
+@Component
+@Lazy(false)
+public class StockMetrics {
+
+    @Autowired
+    public StockMetrics(BeerRepository beerRepository,
+                        @Value("${beerstock.metrics.near-max-percent:90}") int nearMaxPercent,
+                        MeterRegistry meterRegistry) {
+        Gauge.builder("beerstock.stock.total", beerRepository, BeerRepository::sumQuantity)
+                .description("Units in stock across all beers")
+                .strongReference(true)
+                .register(meterRegistry);
+        Gauge.builder("beerstock.stock.near.max", beerRepository, repository -> repository.countNearMax(nearMaxPercent))
+                .description("Beers stocked at or above the near max percent of their max")
+                .tag("percent", String.valueOf(nearMaxPercent))
+                .strongReference(true)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,82 @@
+package one.digitalinnovation.beerstock.snapshot;
+
+import one.digitalinnovation.beerstock.entity.Beer;
+import one.digitalinnovation.beerstock.enums.BeerType;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+/**
+ * Binary format of a beer table snapshot: a header with a magic number and the format version, then one record per
+ * beer, each introduced by a marker byte, and an end marker. Records hold every column, the row version included, in
+ * fixed order. Callers buffer the streams.
+ */
+public final class BeerSnapshot {
+
+    private static final int MAGIC = 0x42454552;
+    private static final int FORMAT_VERSION = 1;
+    private static final byte RECORD = 1;
+    private static final byte END = 0;
+
+    private BeerSnapshot() {
+    }
+
+    /**
+     * Writes the beers and returns how many were written.
+     */
+    public static int write(Iterator<Beer> beers, OutputStream outputStream) throws IOException {
+        DataOutputStream output = new DataOutputStream(outputStream);
+        output.writeInt(MAGIC);
+        output.writeInt(FORMAT_VERSION);
+        int written = 0;
+        while (beers.hasNext()) {
+            Beer beer = beers.next();
+            output.writeByte(RECORD);
+            output.writeLong(beer.getId());
+            output.writeUTF(beer.getName());
+            output.writeUTF(beer.getBrand());
+            output.writeInt(beer.getMax());
+            output.writeInt(beer.getQuantity());
+            output.writeUTF(beer.getType().name());
+            output.writeLong(beer.getVersion());
+            written++;
+        }
+        output.writeByte(END);
+        output.flush();
+        return written;
+    }
+
+    /**
+     * Hands every beer in the snapshot to the consumer, in the order they were written, and returns how many were
+     * read.
+     */
+    public static int read(InputStream inputStream, Consumer<Beer> consumer) throws IOException {
+        DataInputStream input = new DataInputStream(inputStream);
+        if (input.readInt() != MAGIC) {
+            throw new IOException("Not a beer snapshot");
+        }
+        int formatVersion = input.readInt();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IOException("Unsupported beer snapshot format version " + formatVersion);
+        }
+        int read = 0;
+        while (input.readByte() == RECORD) {
+            Beer beer = new Beer();
+            beer.setId(input.readLong());
+            beer.setName(input.readUTF());
+            beer.setBrand(input.readUTF());
+            beer.setMax(input.readInt());
+            beer.setQuantity(input.readInt());
+            beer.setType(BeerType.valueOf(input.readUTF()));
+            beer.setVersion(input.readLong());
+            consumer.accept(beer);
+            read++;
+        }
+        return read;
+    }
+}
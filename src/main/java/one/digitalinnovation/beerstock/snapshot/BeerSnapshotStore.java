@@ -0,0 +1,224 @@
+package one.digitalinnovation.beerstock.snapshot;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import one.digitalinnovation.beerstock.entity.Beer;
+import one.digitalinnovation.beerstock.repository.BeerRepository;
+import one.digitalinnovation.beerstock.service.BeerCache;
+import one.digitalinnovation.beerstock.service.BeerNameIndex;
+import one.digitalinnovation.beerstock.service.InventoryStats;
+import one.digitalinnovation.beerstock.service.ReorderIndex;
+import one.digitalinnovation.beerstock.service.StockLedger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the beer table in a {@link BeerSnapshot} file, so a node starting on an empty database gets its catalog back.
+ * <p>
+ * The snapshot is restored before the application reports itself ready, and only into an empty table: rows are
+ * batch inserted with their ids and versions and the id sequence is moved past them. Once that commits, the name and
+ * reorder indexes, the inventory stats and the first {@code warm-cache-size} entries of the beer cache are filled,
+ * which also warms up the JPA queries behind them.
+ * It is written every {@code interval-ms} and on shutdown, after a ledger flush, to a temporary file that then
+ * replaces the previous snapshot, so a crash while writing leaves the last complete one. Nothing is written until a
+ * restore was attempted, so a node that failed to start never overwrites a good snapshot with an empty table. The
+ * shutdown write runs when the store is stopped, right after the web server, so the ledger and the database are still
+ * up for it.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "beerstock.snapshot.enabled", havingValue = "true")
+public class BeerSnapshotStore implements ApplicationRunner, SmartLifecycle {
+
+    private static final int INSERT_BATCH_SIZE = 500;
+    private static final String INSERT = "insert into beer (id, name, brand, max, quantity, type, version) values (?, ?, ?, ?, ?, ?, ?)";
+    private static final String RESTORE = "beerstock.snapshot.restore";
+    private static final String WRITE = "beerstock.snapshot.write";
+    // Stopped after the web server, whose lifecycle runs in the phases above, and before the singletons are destroyed.
+    private static final int PHASE = Integer.MAX_VALUE - 2;
+
+    private final BeerRepository beerRepository;
+    private final StockLedger stockLedger;
+    private final BeerNameIndex beerNameIndex;
+    private final ReorderIndex reorderIndex;
+    private final InventoryStats inventoryStats;
+    private final BeerCache beerCache;
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Path path;
+    private final int warmCacheSize;
+    private volatile boolean restoreAttempted;
+    private volatile boolean running;
+
+    @Autowired
+    public BeerSnapshotStore(BeerRepository beerRepository, StockLedger stockLedger, BeerNameIndex beerNameIndex,
+                             ReorderIndex reorderIndex, InventoryStats inventoryStats, BeerCache beerCache,
+                             EntityManager entityManager, JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                             @Value("${beerstock.snapshot.path:data/beerstock.snapshot}") String path,
+                             @Value("${beerstock.snapshot.warm-cache-size:1000}") int warmCacheSize) {
+        this.beerRepository = beerRepository;
+        this.stockLedger = stockLedger;
+        this.beerNameIndex = beerNameIndex;
+        this.reorderIndex = reorderIndex;
+        this.inventoryStats = inventoryStats;
+        this.beerCache = beerCache;
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.meterRegistry = meterRegistry;
+        this.path = Paths.get(path);
+        this.warmCacheSize = warmCacheSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        try {
+            restore();
+        } finally {
+            restoreAttempted = true;
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        write();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    /**
+     * Loads the snapshot into an empty beer table and returns how many beers were restored.
+     */
+    public int restore() throws IOException {
+        if (!Files.exists(path)) {
+            log.info("No beer snapshot at {}, starting with the catalog in the database", path);
+            return 0;
+        }
+        if (beerRepository.count() > 0) {
+            log.info("Beer table is not empty, the snapshot at {} was not restored", path);
+            return 0;
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        List<Beer> restoredBeers = new ArrayList<>();
+        transactionTemplate.execute(status -> {
+            List<Object[]> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+            long[] maxId = {0L};
+            try (InputStream input = new BufferedInputStream(Files.newInputStream(path))) {
+                BeerSnapshot.read(input, beer -> {
+                    batch.add(new Object[]{beer.getId(), beer.getName(), beer.getBrand(), beer.getMax(),
+                            beer.getQuantity(), beer.getType().name(), beer.getVersion()});
+                    if (batch.size() == INSERT_BATCH_SIZE) {
+                        jdbcTemplate.batchUpdate(INSERT, batch);
+                        batch.clear();
+                    }
+                    maxId[0] = Math.max(maxId[0], beer.getId());
+                    restoredBeers.add(beer);
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            jdbcTemplate.batchUpdate(INSERT, batch);
+            jdbcTemplate.execute("alter sequence beer_sequence restart with " + (maxId[0] + Beer.ID_ALLOCATION_SIZE + 1));
+            return null;
+        });
+        // Filled only once the rows are committed, so a failed restore leaves no beers behind in memory.
+        for (Beer beer : restoredBeers) {
+            beerNameIndex.put(beer.getId(), beer.getName(), beer.getBrand());
+            reorderIndex.load(beer.getId(), beer.getName(), beer.getType(), beer.getMax(), beer.getQuantity());
+            inventoryStats.put(beer.getId(), beer.getBrand(), beer.getType(), beer.getMax(), beer.getQuantity());
+        }
+        int warmed = Math.min(warmCacheSize, restoredBeers.size());
+        restoredBeers.subList(0, warmed).forEach(beer ->
+                beerCache.get(beer.getName(), beerName -> beerRepository.findByName(beerName).orElse(null)));
+        long elapsed = sample.stop(meterRegistry.timer(RESTORE));
+        log.info("Restored {} beers from {} and warmed {} cache entries in {} ms",
+                restoredBeers.size(), path, warmed, elapsed / 1_000_000);
+        return restoredBeers.size();
+    }
+
+    /**
+     * Writes the beer table to the snapshot file. A failed write, whether the file or the database failed, is logged
+     * and leaves the previous snapshot in place.
+     */
+    @Scheduled(initialDelayString = "${beerstock.snapshot.interval-ms:300000}",
+            fixedDelayString = "${beerstock.snapshot.interval-ms:300000}")
+    public void write() {
+        if (!restoreAttempted) {
+            return;
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            stockLedger.flush();
+            int written = writeSnapshot();
+            long elapsed = sample.stop(meterRegistry.timer(WRITE));
+            log.info("Wrote {} beers to {} in {} ms", written, path, elapsed / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not write the beer snapshot to {}, keeping the previous one", path, e);
+        }
+    }
+
+    private int writeSnapshot() throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            Integer written = readOnlyTransactionTemplate.execute(status -> {
+                try (Stream<Beer> beers = beerRepository.streamAllByOrderByIdAsc();
+                     OutputStream output = new BufferedOutputStream(Files.newOutputStream(temporary))) {
+                    return BeerSnapshot.write(beers.peek(entityManager::detach).iterator(), output);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return written == null ? 0 : written;
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package one.digitalinnovation.beerstock.startup;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reports how long after the JVM started this node became ready, in {@code beerstock.startup.ready}, and served its
+ * first API request faster than {@code beerstock.startup.fast-request-threshold}, in
+ * {@code beerstock.startup.first-fast-request}. Both are logged once and read zero until they happen. Requests
+ * outside the API, like health probes, are not timed.
+ * <p>
+ * With {@code beerstock.startup.exit-when-ready} the application shuts down as soon as it is ready, which is how the
+ * build records the classes loaded during startup into a class data sharing archive.
+ */
+@Slf4j
+@Component
+public class StartupReport extends OncePerRequestFilter implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final String API_PATH = "/api/";
+
+    private final long fastRequestThresholdNanos;
+    private final boolean exitWhenReady;
+    private final AtomicLong readyMillis = new AtomicLong();
+    private final AtomicLong firstFastRequestMillis = new AtomicLong();
+    private volatile boolean fastRequestServed;
+
+    @Autowired
+    public StartupReport(MeterRegistry meterRegistry,
+                         @Value("${beerstock.startup.fast-request-threshold:50ms}") Duration fastRequestThreshold,
+                         @Value("${beerstock.startup.exit-when-ready:false}") boolean exitWhenReady) {
+        this.fastRequestThresholdNanos = fastRequestThreshold.toNanos();
+        this.exitWhenReady = exitWhenReady;
+        TimeGauge.builder("beerstock.startup.ready", readyMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("Time from JVM start until the application was ready")
+                .register(meterRegistry);
+        TimeGauge.builder("beerstock.startup.first-fast-request", firstFastRequestMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("Time from JVM start until the first API request under the fast request threshold")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        long uptime = uptimeMillis();
+        if (readyMillis.compareAndSet(0L, uptime)) {
+            log.info("Ready {} ms after JVM start", uptime);
+        }
+        if (exitWhenReady) {
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return fastRequestServed || !request.getRequestURI().startsWith(API_PATH);
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return true;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        filterChain.doFilter(request, response);
+        long elapsed = System.nanoTime() - start;
+        if (elapsed < fastRequestThresholdNanos && !request.isAsyncStarted()) {
+            recordFastRequest(request.getMethod() + " " + request.getRequestURI(), elapsed);
+        }
+    }
+
+    void recordFastRequest(String request, long elapsedNanos) {
+        long uptime = uptimeMillis();
+        if (firstFastRequestMillis.compareAndSet(0L, uptime)) {
+            fastRequestServed = true;
+            log.info("First fast request {} took {} ms, {} ms after JVM start",
+                    request, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), uptime);
+        }
+    }
+
+    private static long uptimeMillis() {
+        return ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+}
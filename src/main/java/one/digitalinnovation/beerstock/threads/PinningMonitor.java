@@ -0,0 +1,92 @@
+package one.digitalinnovation.beerstock.threads;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Reports virtual threads pinned to their carrier thread, which happens when a virtual thread blocks while holding a
+ * monitor, like the H2 driver does on its session for every statement.
+ * <p>
+ * Pins longer than {@code beerstock.threads.pinning-threshold} are read from the {@code jdk.VirtualThreadPinned}
+ * Flight Recorder event and recorded in the {@code beerstock.threads.pinned} timer. The timer is tagged with the
+ * innermost frame from the JDBC driver, the connection pool, Hibernate or this application, so pins in the H2
+ * session can be told apart from pins in our own code. Full stacks are logged at debug level. The event never fires
+ * on runtimes without virtual threads. Nothing depends on the monitor, so it is created eagerly even with lazy
+ * initialization.
+ */
+@Slf4j
+@Component
+@Lazy(false)
+@Profile("virtual-threads")
+public class PinningMonitor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String PINNED = "beerstock.threads.pinned";
+    private static final List<String> WATCHED_PACKAGES = Arrays.asList(
+            "org.h2.", "com.zaxxer.hikari.", "org.hibernate.", "one.digitalinnovation.beerstock.");
+
+    private final MeterRegistry meterRegistry;
+    private final Duration threshold;
+    private RecordingStream recordingStream;
+
+    @Autowired
+    public PinningMonitor(MeterRegistry meterRegistry,
+                          @Value("${beerstock.threads.pinning-threshold:20ms}") Duration threshold) {
+        this.meterRegistry = meterRegistry;
+        this.threshold = threshold;
+    }
+
+    @PostConstruct
+    public void start() {
+        recordingStream = new RecordingStream();
+        recordingStream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+        recordingStream.startAsync();
+    }
+
+    @PreDestroy
+    public void stop() {
+        recordingStream.close();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        List<String> frames = new ArrayList<>();
+        if (event.getStackTrace() != null) {
+            for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+                frames.add(frame.getMethod().getType().getName() + "." + frame.getMethod().getName());
+            }
+        }
+        record(frames, event.getDuration());
+    }
+
+    void record(List<String> frames, Duration duration) {
+        meterRegistry.timer(PINNED, "frame", pinningFrameOf(frames)).record(duration);
+        log.debug("Virtual thread pinned for {} ms at {}", duration.toMillis(), String.join(" <- ", frames));
+    }
+
+    private static String pinningFrameOf(List<String> frames) {
+        List<String> watchedFrames = frames.stream()
+                .filter(frame -> WATCHED_PACKAGES.stream().anyMatch(frame::startsWith))
+                .collect(Collectors.toList());
+        if (!watchedFrames.isEmpty()) {
+            return watchedFrames.get(0);
+        }
+        return frames.isEmpty() ? "unknown" : frames.get(0);
+    }
+}
@@ -0,0 +1,51 @@
+package one.digitalinnovation.beerstock.config;
+
+import one.digitalinnovation.beerstock.threads.VirtualThreads;
+import org.apache.catalina.connector.Connector;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Starts Tomcat with the {@code virtual-threads} profile and checks that its request executor hands out virtual
+ * threads. Skipped below Java 21, where the profile falls back to platform threads.
+ */
+@ActiveProfiles("virtual-threads")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties =
+        "spring.datasource.url=jdbc:h2:mem:beerstock-virtual-threads;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+public class VirtualThreadConfigTest {
+
+    @Autowired
+    private ServletWebServerApplicationContext applicationContext;
+
+    @BeforeAll
+    static void requireVirtualThreads() {
+        assumeTrue(VirtualThreads.isSupported(), "virtual threads need Java 21 or later");
+    }
+
+    @Test
+    void whenProfileIsActiveThenTomcatServesRequestsOnVirtualThreads() throws Exception {
+        // given
+        Connector connector = ((TomcatWebServer) applicationContext.getWebServer()).getTomcat().getConnector();
+        Executor executor = connector.getProtocolHandler().getExecutor();
+
+        // when
+        CompletableFuture<Thread> worker = CompletableFuture.supplyAsync(Thread::currentThread, executor);
+
+        // then
+        assertThat(Thread.class.getMethod("isVirtual").invoke(worker.get(5, TimeUnit.SECONDS)), is(equalTo(true)));
+    }
+}
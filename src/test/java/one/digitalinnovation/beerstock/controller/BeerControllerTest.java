@@ -1,10 +1,28 @@
 package one.digitalinnovation.beerstock.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import one.digitalinnovation.beerstock.builder.BeerDTOBuilder;
+import one.digitalinnovation.beerstock.dto.BatchItemResultDTO;
 import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.dto.BeerQuantityDTO;
+import one.digitalinnovation.beerstock.dto.BeerRows;
+import one.digitalinnovation.beerstock.dto.BeerSearchDTO;
+import one.digitalinnovation.beerstock.dto.BeerSummaryDTO;
+import one.digitalinnovation.beerstock.dto.InventoryStatsDTO;
 import one.digitalinnovation.beerstock.dto.QuantityDTO;
+import one.digitalinnovation.beerstock.dto.ReorderSuggestionDTO;
+import one.digitalinnovation.beerstock.dto.StockEventDTO;
+import one.digitalinnovation.beerstock.dto.StockTotalsDTO;
+import one.digitalinnovation.beerstock.dto.TaggedBeerDTO;
+import one.digitalinnovation.beerstock.entity.Beer;
+import one.digitalinnovation.beerstock.enums.BeerType;
+import one.digitalinnovation.beerstock.enums.StockEventType;
 import one.digitalinnovation.beerstock.exception.BeerNotFoundException;
 import one.digitalinnovation.beerstock.exception.BeerStockExceededException;
+import one.digitalinnovation.beerstock.json.BeerRowsHttpMessageConverter;
+import one.digitalinnovation.beerstock.mapper.BeerMapper;
 import one.digitalinnovation.beerstock.service.BeerService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,22 +31,46 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.servlet.view.json.MappingJackson2JsonView;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.ObjIntConsumer;
 
 import static one.digitalinnovation.beerstock.utils.JsonConvertionUtils.asJsonString;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.core.Is.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
-import static org.springframework.mock.http.server.reactive.MockServerHttpRequest.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -39,6 +81,15 @@ public class BeerControllerTest {
     private static final long INVALID_BEER_ID = 2l;
     private static final String BEER_API_SUBPATH_INCREMENT_URL = "/increment";
     private static final String BEER_API_SUBPATH_DECREMENT_URL = "/decrement";
+    private static final String BEER_API_SUBPATH_STREAM_URL = "/stream";
+    private static final String BEER_API_SUBPATH_BATCH_URL = "/batch";
+    private static final String BEER_API_SUBPATH_CHANGES_URL = "/changes";
+    private static final String BEER_API_SUBPATH_LOW_STOCK_URL = "/low-stock";
+    private static final String BEER_API_SUBPATH_STATS_URL = "/stats";
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final String BEER_ENTITY_TAG = "1.3.10";
+    private static final String CATALOG_ENTITY_TAG = "0a1b2c3d.7";
+    private static final MediaType APPLICATION_SMILE = MediaType.parseMediaType("application/x-jackson-smile");
 
     private MockMvc mockMvc;
 
@@ -52,6 +103,9 @@ public class BeerControllerTest {
     void setUp() {
         mockMvc = MockMvcBuilders.standaloneSetup(beerController)
                 .setCustomArgumentResolvers(new PageableHandlerMethodArgumentResolver())
+                .setMessageConverters(new StringHttpMessageConverter(), new BeerRowsHttpMessageConverter(),
+                        new MappingJackson2HttpMessageConverter(), new MappingJackson2CborHttpMessageConverter(),
+                        new MappingJackson2SmileHttpMessageConverter())
                 .setViewResolvers((s, locale) -> new MappingJackson2JsonView())
                 .build();
     }
@@ -74,6 +128,29 @@ public class BeerControllerTest {
                 .andExpect(jsonPath("$.type", is(beerDTO.getType().toString())));
     }
 
+    @Test
+    void whenPOSTBatchIsCalledThenOneResultPerBeerIsReturned() throws Exception {
+        // given
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        BeerDTO invalidBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        invalidBeerDTO.setBrand(null);
+        List<BeerDTO> beerDTOs = Arrays.asList(beerDTO, invalidBeerDTO);
+
+        // when
+        when(beerService.createAll(beerDTOs)).thenReturn(Arrays.asList(
+                BatchItemResultDTO.builder().index(0).status(HttpStatus.CREATED.value()).beer(beerDTO).build(),
+                BatchItemResultDTO.builder().index(1).status(HttpStatus.BAD_REQUEST.value()).error("brand must not be null").build()));
+
+        // then
+        mockMvc.perform(post(BEER_API_URL_PATH + BEER_API_SUBPATH_BATCH_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(beerDTOs)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status", is(HttpStatus.CREATED.value())))
+                .andExpect(jsonPath("$[0].beer.name", is(beerDTO.getName())))
+                .andExpect(jsonPath("$[1].status", is(HttpStatus.BAD_REQUEST.value())));
+    }
+
     @Test
     void whenPOSTIsCalledWithoutRequiredFieldThenAnErrorIsReturned() throws Exception {
         // given
@@ -93,12 +170,13 @@ public class BeerControllerTest {
         BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
 
         //when
-        when(beerService.findByName(beerDTO.getName())).thenReturn(beerDTO);
+        when(beerService.findTaggedByName(beerDTO.getName())).thenReturn(new TaggedBeerDTO(beerDTO, BEER_ENTITY_TAG));
 
         // then
         mockMvc.perform(MockMvcRequestBuilders.get(BEER_API_URL_PATH + "/" + beerDTO.getName())
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"" + BEER_ENTITY_TAG + "\""))
                 .andExpect(jsonPath("$.name", is(beerDTO.getName())))
                 .andExpect(jsonPath("$.brand", is(beerDTO.getBrand())))
                 .andExpect(jsonPath("$.type", is(beerDTO.getType().toString())));
@@ -110,7 +188,7 @@ public class BeerControllerTest {
         BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
 
         //when
-        when(beerService.findByName(beerDTO.getName())).thenThrow(BeerNotFoundException.class);
+        when(beerService.findTaggedByName(beerDTO.getName())).thenThrow(BeerNotFoundException.class);
 
         // then
         mockMvc.perform(MockMvcRequestBuilders.get(BEER_API_URL_PATH + "/" + beerDTO.getName())
@@ -124,24 +202,113 @@ public class BeerControllerTest {
         BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
 
         //when
-        when(beerService.listAll()).thenReturn(Collections.singletonList(beerDTO));
+        when(beerService.catalogTag()).thenReturn(CATALOG_ENTITY_TAG);
+        when(beerService.listRows(null, DEFAULT_PAGE_SIZE)).thenReturn(rowsOf(beerDTO));
 
         // then
         mockMvc.perform(MockMvcRequestBuilders.get(BEER_API_URL_PATH)
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"" + CATALOG_ENTITY_TAG + "\""))
                 .andExpect(jsonPath("$[0].name", is(beerDTO.getName())))
                 .andExpect(jsonPath("$[0].brand", is(beerDTO.getBrand())))
                 .andExpect(jsonPath("$[0].type", is(beerDTO.getType().toString())));
     }
 
+    @Test
+    void whenGETListAcceptsSmileThenSmileIsReturnedAndResponsesVaryByAccept() throws Exception {
+        // given
+        ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+
+        // when
+        when(beerService.catalogTag()).thenReturn(CATALOG_ENTITY_TAG);
+        when(beerService.listRows(null, DEFAULT_PAGE_SIZE)).thenReturn(rowsOf(beerDTO));
+
+        // then
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get(BEER_API_URL_PATH)
+                .accept(APPLICATION_SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(APPLICATION_SMILE))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andReturn();
+        BeerDTO[] beers = smileMapper.readValue(result.getResponse().getContentAsByteArray(), BeerDTO[].class);
+        assertThat(Arrays.asList(beers), is(Collections.singletonList(beerDTO)));
+    }
+
+    @Test
+    void whenGETIsCalledWithCurrentETagThenNotModifiedStatusIsReturned() throws Exception {
+        // given
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+
+        //when
+        when(beerService.findTaggedByName(beerDTO.getName())).thenReturn(new TaggedBeerDTO(beerDTO, BEER_ENTITY_TAG));
+
+        // then
+        mockMvc.perform(MockMvcRequestBuilders.get(BEER_API_URL_PATH + "/" + beerDTO.getName())
+                .header(HttpHeaders.IF_NONE_MATCH, "\"" + BEER_ENTITY_TAG + "\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"" + BEER_ENTITY_TAG + "\""))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void whenGETListIsCalledWithCurrentETagThenNotModifiedStatusIsReturned() throws Exception {
+        //when
+        when(beerService.catalogTag()).thenReturn(CATALOG_ENTITY_TAG);
+
+        // then
+        mockMvc.perform(MockMvcRequestBuilders.get(BEER_API_URL_PATH)
+                .header(HttpHeaders.IF_NONE_MATCH, "W/\"" + CATALOG_ENTITY_TAG + "\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        verify(beerService, never()).listRows(any(), anyInt());
+    }
+
+    @Test
+    void whenGETListIsCalledWithStaleETagThenOkStatusIsReturned() throws Exception {
+        // given
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+
+        //when
+        when(beerService.catalogTag()).thenReturn(CATALOG_ENTITY_TAG);
+        when(beerService.listRows(null, DEFAULT_PAGE_SIZE)).thenReturn(rowsOf(beerDTO));
+
+        // then
+        mockMvc.perform(MockMvcRequestBuilders.get(BEER_API_URL_PATH)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"0a1b2c3d.6\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name", is(beerDTO.getName())));
+    }
+
+    @Test
+    void whenGETSearchIsCalledThenOnlyRequestedFieldsAreReturned() throws Exception {
+        // given
+        BeerSearchDTO expectedSearch = BeerSearchDTO.builder().type(BeerType.LAGER).lowStock(true).build();
+        BeerSummaryDTO beerSummaryDTO = BeerSummaryDTO.builder().id(1L).name("Brahma").quantity(2).build();
+
+        //when
+        when(beerService.search(eq(expectedSearch), eq(Set.of("name", "quantity")), eq(null), eq(DEFAULT_PAGE_SIZE)))
+                .thenReturn(Collections.singletonList(beerSummaryDTO));
+
+        // then
+        mockMvc.perform(MockMvcRequestBuilders.get(BEER_API_URL_PATH + "/search")
+                .param("type", "LAGER")
+                .param("lowStock", "true")
+                .param("fields", "name,quantity"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name", is(beerSummaryDTO.getName())))
+                .andExpect(jsonPath("$[0].quantity", is(beerSummaryDTO.getQuantity())))
+                .andExpect(jsonPath("$[0].brand").doesNotExist());
+    }
+
     @Test
     void whenGETListWithoutBeersIsCalledThenOkStatusIsReturned() throws Exception {
         // given
         BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
 
         //when
-        when(beerService.listAll()).thenReturn(Collections.singletonList(beerDTO));
+        when(beerService.listRows(null, DEFAULT_PAGE_SIZE)).thenReturn(rowsOf(beerDTO));
 
         // then
         mockMvc.perform(MockMvcRequestBuilders.get(BEER_API_URL_PATH)
@@ -149,6 +316,155 @@ public class BeerControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void whenGETListReturnsAFullPageThenNextPageLinkIsReturned() throws Exception {
+        // given
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+
+        //when
+        when(beerService.listRows(null, 1)).thenReturn(rowsOf(beerDTO));
+
+        // then
+        mockMvc.perform(MockMvcRequestBuilders.get(BEER_API_URL_PATH)
+                .param("size", "1")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.LINK, containsString("afterId=" + beerDTO.getId())))
+                .andExpect(jsonPath("$[0].name", is(beerDTO.getName())));
+    }
+
+    @Test
+    void whenGETListAsksForMoreThanTheMaxPageSizeThenNextPageLinkIsStillReturned() throws Exception {
+        // given
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        BeerRows fullPage = new BeerRows(Collections.nCopies(BeerService.MAX_PAGE_SIZE, BeerMapper.INSTANCE.toModel(beerDTO)),
+                new int[BeerService.MAX_PAGE_SIZE]);
+
+        //when
+        when(beerService.listRows(null, 5000)).thenReturn(fullPage);
+
+        // then
+        mockMvc.perform(MockMvcRequestBuilders.get(BEER_API_URL_PATH)
+                .param("size", "5000")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.LINK, containsString("afterId=" + beerDTO.getId())));
+    }
+
+    @Test
+    void whenGETStreamIsCalledThenBeersAreReturnedAsNewlineDelimitedJson() throws Exception {
+        // given
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+
+        //when
+        doAnswer(invocation -> {
+            ObjIntConsumer<Beer> consumer = invocation.getArgument(0);
+            consumer.accept(BeerMapper.INSTANCE.toModel(beerDTO), beerDTO.getQuantity());
+            consumer.accept(BeerMapper.INSTANCE.toModel(beerDTO), beerDTO.getQuantity());
+            return null;
+        }).when(beerService).streamRows(any());
+
+        // then
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get(BEER_API_URL_PATH + BEER_API_SUBPATH_STREAM_URL))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(BeerController.APPLICATION_NDJSON_VALUE))
+                .andExpect(content().string(asJsonString(beerDTO) + "\n" + asJsonString(beerDTO) + "\n"));
+    }
+
+    @Test
+    void whenGETChangesIsCalledThenEventsAfterTheOffsetAreReturned() throws Exception {
+        // given
+        StockEventDTO stockEventDTO = StockEventDTO.builder()
+                .offset(8L)
+                .beerId(VALID_BEER_ID)
+                .type(StockEventType.INCREMENTED)
+                .delta(5)
+                .quantity(15)
+                .build();
+
+        // when
+        when(beerService.changesSince(7L, DEFAULT_PAGE_SIZE, true))
+                .thenReturn(CompletableFuture.completedFuture(Collections.singletonList(stockEventDTO)));
+
+        // then
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get(BEER_API_URL_PATH + BEER_API_SUBPATH_CHANGES_URL)
+                .param("since", "7"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].offset", is(8)))
+                .andExpect(jsonPath("$[0].type", is(StockEventType.INCREMENTED.name())))
+                .andExpect(jsonPath("$[0].quantity", is(15)));
+    }
+
+    @Test
+    void whenGETChangesIsCalledWithoutWaitThenServiceIsNotAskedToWait() throws Exception {
+        // when
+        when(beerService.changesSince(0L, DEFAULT_PAGE_SIZE, false))
+                .thenReturn(CompletableFuture.completedFuture(Collections.emptyList()));
+
+        // then
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get(BEER_API_URL_PATH + BEER_API_SUBPATH_CHANGES_URL)
+                .param("wait", "0"))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[]"));
+    }
+
+    @Test
+    void whenGETLowStockIsCalledThenBeersToReorderAreReturned() throws Exception {
+        // given
+        ReorderSuggestionDTO suggestion = ReorderSuggestionDTO.builder()
+                .id(VALID_BEER_ID)
+                .name("Brahma")
+                .type(BeerType.LAGER)
+                .quantity(4)
+                .max(50)
+                .reorderPoint(10)
+                .reorderQuantity(46)
+                .build();
+
+        // when
+        when(beerService.lowStock(10)).thenReturn(Collections.singletonList(suggestion));
+
+        // then
+        mockMvc.perform(MockMvcRequestBuilders.get(BEER_API_URL_PATH + BEER_API_SUBPATH_LOW_STOCK_URL)
+                .param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name", is("Brahma")))
+                .andExpect(jsonPath("$[0].reorderPoint", is(10)))
+                .andExpect(jsonPath("$[0].reorderQuantity", is(46)));
+    }
+
+    @Test
+    void whenGETStatsIsCalledThenTotalsByTypeAndBrandAreReturned() throws Exception {
+        // given
+        StockTotalsDTO totals = StockTotalsDTO.builder().skus(2L).quantity(30L).capacity(60L).utilization(0.5).build();
+        InventoryStatsDTO stats = InventoryStatsDTO.builder()
+                .total(totals)
+                .byType(Collections.singletonMap(BeerType.LAGER, totals))
+                .byBrand(Collections.singletonMap("Ambev", totals))
+                .build();
+
+        // when
+        when(beerService.stats()).thenReturn(stats);
+
+        // then
+        mockMvc.perform(MockMvcRequestBuilders.get(BEER_API_URL_PATH + BEER_API_SUBPATH_STATS_URL))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total.skus", is(2)))
+                .andExpect(jsonPath("$.byType.LAGER.capacity", is(60)))
+                .andExpect(jsonPath("$.byBrand.Ambev.utilization", is(0.5)));
+    }
+
     @Test
     void whenDELETEIsCalledWithValidIdThenNoContentStatusIsReturned() throws Exception {
         // given
@@ -194,81 +510,127 @@ public class BeerControllerTest {
                 .andExpect(jsonPath("$.quantity", is(beerDTO.getQuantity())));
     }
 
-//    @Test
-//    void whenPATCHIsCalledToIncrementGreatherThanMaxThenBadRequestStatusIsReturned() throws Exception {
-//        QuantityDTO quantityDTO = QuantityDTO.builder()
-//                .quantity(30)
-//                .build();
-//
-//        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
-//        beerDTO.setQuantity(beerDTO.getQuantity() + quantityDTO.getQuantity());
-//
-//        when(beerService.increment(VALID_BEER_ID, quantityDTO.getQuantity())).thenThrow(BeerStockExceededException.class);
-//
-//        mockMvc.perform(patch(BEER_API_URL_PATH + "/" + VALID_BEER_ID + BEER_API_SUBPATH_INCREMENT_URL)
-//                .contentType(MediaType.APPLICATION_JSON)
-//                .con(asJsonString(quantityDTO))).andExpect(status().isBadRequest());
-//    }
-
-//    @Test
-//    void whenPATCHIsCalledWithInvalidBeerIdToIncrementThenNotFoundStatusIsReturned() throws Exception {
-//        QuantityDTO quantityDTO = QuantityDTO.builder()
-//                .quantity(30)
-//                .build();
-//
-//        when(beerService.increment(INVALID_BEER_ID, quantityDTO.getQuantity())).thenThrow(BeerNotFoundException.class);
-//        mockMvc.perform(patch(BEER_API_URL_PATH + "/" + INVALID_BEER_ID + BEER_API_SUBPATH_INCREMENT_URL)
-//                .contentType(MediaType.APPLICATION_JSON)
-//                .content(asJsonString(quantityDTO)))
-//                .andExpect(status().isNotFound());
-//    }
-//
-//    @Test
-//    void whenPATCHIsCalledToDecrementDiscountThenOKstatusIsReturned() throws Exception {
-//        QuantityDTO quantityDTO = QuantityDTO.builder()
-//                .quantity(5)
-//                .build();
-//
-//        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
-//        beerDTO.setQuantity(beerDTO.getQuantity() + quantityDTO.getQuantity());
-//
-//        when(beerService.decrement(VALID_BEER_ID, quantityDTO.getQuantity())).thenReturn(beerDTO);
-//
-//        mockMvc.perform(patch(BEER_API_URL_PATH + "/" + VALID_BEER_ID + BEER_API_SUBPATH_DECREMENT_URL)
-//                .contentType(MediaType.APPLICATION_JSON)
-//                .content(asJsonString(quantityDTO))).andExpect(status().isOk())
-//                .andExpect(jsonPath("$.name", is(beerDTO.getName())))
-//                .andExpect(jsonPath("$.brand", is(beerDTO.getBrand())))
-//                .andExpect(jsonPath("$.type", is(beerDTO.getType().toString())))
-//                .andExpect(jsonPath("$.quantity", is(beerDTO.getQuantity())));
-//    }
-//
-//    @Test
-//    void whenPATCHIsCalledToDEcrementLowerThanZeroThenBadRequestStatusIsReturned() throws Exception {
-//        QuantityDTO quantityDTO = QuantityDTO.builder()
-//                .quantity(60)
-//                .build();
-//
-//        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
-//        beerDTO.setQuantity(beerDTO.getQuantity() + quantityDTO.getQuantity());
-//
-//        when(beerService.decrement(VALID_BEER_ID, quantityDTO.getQuantity())).thenThrow(BeerStockExceededException.class);
-//
-//        mockMvc.perform(patch(BEER_API_URL_PATH + "/" + VALID_BEER_ID + BEER_API_SUBPATH_DECREMENT_URL)
-//                .contentType(MediaType.APPLICATION_JSON)
-//                .content(asJsonString(quantityDTO))).andExpect(status().isBadRequest());
-//    }
-//
-//    @Test
-//    void whenPATCHIsCalledWithInvalidBeerIdToDecrementThenNotFoundStatusIsReturned() throws Exception {
-//        QuantityDTO quantityDTO = QuantityDTO.builder()
-//                .quantity(5)
-//                .build();
-//
-//        when(beerService.decrement(INVALID_BEER_ID, quantityDTO.getQuantity())).thenThrow(BeerNotFoundException.class);
-//        mockMvc.perform(patch(BEER_API_URL_PATH + "/" + INVALID_BEER_ID + BEER_API_SUBPATH_DECREMENT_URL)
-//                .contentType(MediaType.APPLICATION_JSON)
-//                .content(asJsonString(quantityDTO)))
-//                .andExpect(status().isNotFound());
-//    }
+    @Test
+    void whenPATCHIsCalledToIncrementWithCborThenCborIsReturned() throws Exception {
+        // given
+        ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+        QuantityDTO quantityDTO = QuantityDTO.builder()
+                .quantity(10)
+                .build();
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        beerDTO.setQuantity(beerDTO.getQuantity() + quantityDTO.getQuantity());
+
+        // when
+        when(beerService.increment(VALID_BEER_ID, quantityDTO.getQuantity())).thenReturn(beerDTO);
+
+        // then
+        MvcResult result = mockMvc.perform(patch(BEER_API_URL_PATH + "/" + VALID_BEER_ID + BEER_API_SUBPATH_INCREMENT_URL)
+                .contentType(MediaType.APPLICATION_CBOR)
+                .accept(MediaType.APPLICATION_CBOR)
+                .content(cborMapper.writeValueAsBytes(quantityDTO)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn();
+        assertThat(cborMapper.readValue(result.getResponse().getContentAsByteArray(), BeerDTO.class), is(beerDTO));
+    }
+
+    @Test
+    void whenPATCHBatchIsCalledToIncrementThenOneResultPerIncrementIsReturned() throws Exception {
+        List<BeerQuantityDTO> increments = Collections.singletonList(new BeerQuantityDTO(VALID_BEER_ID, 10));
+
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        beerDTO.setQuantity(beerDTO.getQuantity() + 10);
+
+        when(beerService.incrementAll(increments)).thenReturn(Collections.singletonList(
+                BatchItemResultDTO.builder().index(0).status(HttpStatus.OK.value()).beer(beerDTO).build()));
+
+        mockMvc.perform(patch(BEER_API_URL_PATH + BEER_API_SUBPATH_BATCH_URL + BEER_API_SUBPATH_INCREMENT_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(increments)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status", is(HttpStatus.OK.value())))
+                .andExpect(jsonPath("$[0].beer.quantity", is(beerDTO.getQuantity())));
+    }
+
+    @Test
+    void whenPATCHIsCalledToIncrementGreatherThanMaxThenBadRequestStatusIsReturned() throws Exception {
+        QuantityDTO quantityDTO = QuantityDTO.builder()
+                .quantity(30)
+                .build();
+
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        beerDTO.setQuantity(beerDTO.getQuantity() + quantityDTO.getQuantity());
+
+        when(beerService.increment(VALID_BEER_ID, quantityDTO.getQuantity())).thenThrow(BeerStockExceededException.class);
+
+        mockMvc.perform(patch(BEER_API_URL_PATH + "/" + VALID_BEER_ID + BEER_API_SUBPATH_INCREMENT_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(quantityDTO))).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void whenPATCHIsCalledWithInvalidBeerIdToIncrementThenNotFoundStatusIsReturned() throws Exception {
+        QuantityDTO quantityDTO = QuantityDTO.builder()
+                .quantity(30)
+                .build();
+
+        when(beerService.increment(INVALID_BEER_ID, quantityDTO.getQuantity())).thenThrow(BeerNotFoundException.class);
+        mockMvc.perform(patch(BEER_API_URL_PATH + "/" + INVALID_BEER_ID + BEER_API_SUBPATH_INCREMENT_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(quantityDTO)))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void whenPATCHIsCalledToDecrementDiscountThenOKstatusIsReturned() throws Exception {
+        QuantityDTO quantityDTO = QuantityDTO.builder()
+                .quantity(5)
+                .build();
+
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        beerDTO.setQuantity(beerDTO.getQuantity() + quantityDTO.getQuantity());
+
+        when(beerService.decrement(VALID_BEER_ID, quantityDTO.getQuantity())).thenReturn(beerDTO);
+
+        mockMvc.perform(patch(BEER_API_URL_PATH + "/" + VALID_BEER_ID + BEER_API_SUBPATH_DECREMENT_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(quantityDTO))).andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is(beerDTO.getName())))
+                .andExpect(jsonPath("$.brand", is(beerDTO.getBrand())))
+                .andExpect(jsonPath("$.type", is(beerDTO.getType().toString())))
+                .andExpect(jsonPath("$.quantity", is(beerDTO.getQuantity())));
+    }
+
+    @Test
+    void whenPATCHIsCalledToDEcrementLowerThanZeroThenBadRequestStatusIsReturned() throws Exception {
+        QuantityDTO quantityDTO = QuantityDTO.builder()
+                .quantity(60)
+                .build();
+
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        beerDTO.setQuantity(beerDTO.getQuantity() + quantityDTO.getQuantity());
+
+        when(beerService.decrement(VALID_BEER_ID, quantityDTO.getQuantity())).thenThrow(BeerStockExceededException.class);
+
+        mockMvc.perform(patch(BEER_API_URL_PATH + "/" + VALID_BEER_ID + BEER_API_SUBPATH_DECREMENT_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(quantityDTO))).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void whenPATCHIsCalledWithInvalidBeerIdToDecrementThenNotFoundStatusIsReturned() throws Exception {
+        QuantityDTO quantityDTO = QuantityDTO.builder()
+                .quantity(5)
+                .build();
+
+        when(beerService.decrement(INVALID_BEER_ID, quantityDTO.getQuantity())).thenThrow(BeerNotFoundException.class);
+        mockMvc.perform(patch(BEER_API_URL_PATH + "/" + INVALID_BEER_ID + BEER_API_SUBPATH_DECREMENT_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(quantityDTO)))
+                .andExpect(status().isNotFound());
+    }
+
+    private static BeerRows rowsOf(BeerDTO beerDTO) {
+        return new BeerRows(Collections.singletonList(BeerMapper.INSTANCE.toModel(beerDTO)), new int[]{beerDTO.getQuantity()});
+    }
 }
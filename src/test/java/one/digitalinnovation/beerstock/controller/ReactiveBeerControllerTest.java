@@ -0,0 +1,292 @@
+package one.digitalinnovation.beerstock.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import one.digitalinnovation.beerstock.builder.BeerDTOBuilder;
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.dto.QuantityDTO;
+import one.digitalinnovation.beerstock.enums.BeerType;
+import one.digitalinnovation.beerstock.enums.StockEventType;
+import one.digitalinnovation.beerstock.repository.BeerRepository;
+import one.digitalinnovation.beerstock.repository.StockEventRepository;
+import one.digitalinnovation.beerstock.service.ReactiveBeerService;
+import one.digitalinnovation.beerstock.service.StockEventLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+@ActiveProfiles("reactive")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.main.web-application-type=reactive",
+        "spring.datasource.url=jdbc:h2:mem:beerstock-reactive;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.r2dbc.url=r2dbc:h2:mem:///beerstock-reactive?options=DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"
+})
+public class ReactiveBeerControllerTest {
+
+    private static final String BEER_API_URL_PATH = "/api/v1/beers";
+    private static final MediaType APPLICATION_CBOR = MediaType.parseMediaType("application/cbor");
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ReactiveBeerService beerService;
+
+    @Autowired
+    private BeerRepository beerRepository;
+
+    @Autowired
+    private StockEventLog stockEventLog;
+
+    @Autowired
+    private StockEventRepository stockEventRepository;
+
+    @AfterEach
+    void tearDown() {
+        beerRepository.deleteAll();
+    }
+
+    @Test
+    void whenPOSTIsCalledThenBeerIsCreatedAndFoundByName() {
+        // given
+        BeerDTO beerDTO = BeerDTOBuilder.builder().id(null).build().toBeerDTO();
+
+        // when
+        BeerDTO createdBeerDTO = create(beerDTO);
+
+        // then
+        webTestClient.get().uri(BEER_API_URL_PATH + "/" + beerDTO.getName())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(createdBeerDTO.getId())
+                .jsonPath("$.brand").isEqualTo(beerDTO.getBrand())
+                .jsonPath("$.quantity").isEqualTo(beerDTO.getQuantity());
+    }
+
+    @Test
+    void whenPOSTIsCalledWithRegisteredNameThenBadRequestIsReturned() {
+        // given
+        BeerDTO beerDTO = BeerDTOBuilder.builder().id(null).build().toBeerDTO();
+        create(beerDTO);
+
+        // then
+        webTestClient.post().uri(BEER_API_URL_PATH)
+                .bodyValue(beerDTO)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void whenGETIsCalledWithUnregisteredNameThenNotFoundIsReturned() {
+        webTestClient.get().uri(BEER_API_URL_PATH + "/Unregistered")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void whenGETListIsCalledWithFullPageThenNextPageLinkIsReturned() {
+        // given
+        BeerDTO firstBeerDTO = create(BeerDTOBuilder.builder().id(null).name("Brahma").build().toBeerDTO());
+        create(BeerDTOBuilder.builder().id(null).name("Skol").build().toBeerDTO());
+
+        // then
+        webTestClient.get().uri(BEER_API_URL_PATH + "?size=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().value(HttpHeaders.LINK, containsString("afterId=" + firstBeerDTO.getId()))
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].name").isEqualTo("Brahma");
+    }
+
+    @Test
+    void whenGETStreamIsCalledThenOneBeerPerLineIsReturned() {
+        // given
+        create(BeerDTOBuilder.builder().id(null).name("Brahma").build().toBeerDTO());
+        create(BeerDTOBuilder.builder().id(null).name("Skol").build().toBeerDTO());
+
+        // when
+        String body = webTestClient.get().uri(BEER_API_URL_PATH + "/stream")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(BeerController.APPLICATION_NDJSON_VALUE)
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        // then
+        String[] lines = body.trim().split("\n");
+        assertThat(lines.length, is(equalTo(2)));
+        assertThat(lines[0], containsString("\"name\":\"Brahma\""));
+        assertThat(lines[1], containsString("\"name\":\"Skol\""));
+    }
+
+    @Test
+    void whenPATCHIsCalledToIncrementAboveMaxThenBadRequestIsReturnedAndStockIsKept() {
+        // given
+        BeerDTO beerDTO = create(BeerDTOBuilder.builder().id(null).max(50).quantity(10).build().toBeerDTO());
+
+        // then
+        webTestClient.patch().uri(BEER_API_URL_PATH + "/" + beerDTO.getId() + "/increment")
+                .bodyValue(new QuantityDTO(41))
+                .exchange()
+                .expectStatus().isBadRequest();
+        webTestClient.patch().uri(BEER_API_URL_PATH + "/" + beerDTO.getId() + "/decrement")
+                .bodyValue(new QuantityDTO(4))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.quantity").isEqualTo(6);
+    }
+
+    @Test
+    void whenConcurrentIncrementsAreAppliedThenNoIncrementIsLost() {
+        // given
+        BeerDTO beerDTO = create(BeerDTOBuilder.builder().id(null).max(500).quantity(0).build().toBeerDTO());
+
+        // when
+        Flux.range(0, 200)
+                .flatMap(i -> beerService.increment(beerDTO.getId(), 1), 32)
+                .blockLast();
+
+        // then
+        webTestClient.get().uri(BEER_API_URL_PATH + "/" + beerDTO.getName())
+                .exchange()
+                .expectBody()
+                .jsonPath("$.quantity").isEqualTo(200);
+    }
+
+    @Test
+    void whenGETChangesIsCalledThenStockChangesAfterTheOffsetAreReturned() {
+        // given
+        stockEventLog.sequence();
+        long since = stockEventRepository.maxOffset();
+        BeerDTO beerDTO = create(BeerDTOBuilder.builder().id(null).name("Heineken").max(50).quantity(10).build().toBeerDTO());
+
+        // when
+        webTestClient.patch().uri(BEER_API_URL_PATH + "/" + beerDTO.getId() + "/increment")
+                .bodyValue(new QuantityDTO(5))
+                .exchange()
+                .expectStatus().isOk();
+        stockEventLog.sequence();
+
+        // then
+        webTestClient.get().uri(BEER_API_URL_PATH + "/changes?since=" + since + "&wait=5")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].offset").isEqualTo(since + 1)
+                .jsonPath("$[0].type").isEqualTo(StockEventType.CREATED.name())
+                .jsonPath("$[1].type").isEqualTo(StockEventType.INCREMENTED.name())
+                .jsonPath("$[1].quantity").isEqualTo(15);
+    }
+
+    @Test
+    void whenDecrementMakesBeerRunLowThenItIsListedAsLowStock() {
+        // given
+        BeerDTO beerDTO = create(BeerDTOBuilder.builder().id(null).name("Bohemia").max(50).quantity(30).build().toBeerDTO());
+
+        // when
+        webTestClient.patch().uri(BEER_API_URL_PATH + "/" + beerDTO.getId() + "/decrement")
+                .bodyValue(new QuantityDTO(25))
+                .exchange()
+                .expectStatus().isOk();
+
+        // then
+        webTestClient.get().uri(BEER_API_URL_PATH + "/low-stock")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[?(@.name == 'Bohemia')].quantity").isEqualTo(5)
+                .jsonPath("$[?(@.name == 'Bohemia')].reorderQuantity").isEqualTo(45);
+    }
+
+    @Test
+    void whenBeerIsSentAndAcceptedAsCborThenCborIsReturned() throws IOException {
+        // given
+        BeerDTO beerDTO = BeerDTOBuilder.builder().id(null).name("Baden Baden").build().toBeerDTO();
+        ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+
+        // when
+        byte[] created = webTestClient.post().uri(BEER_API_URL_PATH)
+                .contentType(APPLICATION_CBOR)
+                .accept(APPLICATION_CBOR)
+                .bodyValue(cborMapper.writeValueAsBytes(beerDTO))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectHeader().contentType(APPLICATION_CBOR)
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+
+        // then
+        assertThat(cborMapper.readValue(created, BeerDTO.class).getName(), is(equalTo(beerDTO.getName())));
+        webTestClient.get().uri(BEER_API_URL_PATH)
+                .accept(APPLICATION_CBOR)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(APPLICATION_CBOR);
+    }
+
+    @Test
+    void whenBeerIsCreatedThenItIsCountedInTheStats() {
+        // when
+        create(BeerDTOBuilder.builder().id(null).name("Eisenbahn Weiss").brand("Eisenbahn").max(40).quantity(10).type(BeerType.WEISS).build().toBeerDTO());
+
+        // then
+        webTestClient.get().uri(BEER_API_URL_PATH + "/stats")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.byBrand.Eisenbahn.skus").isEqualTo(1)
+                .jsonPath("$.byBrand.Eisenbahn.quantity").isEqualTo(10)
+                .jsonPath("$.byBrand.Eisenbahn.capacity").isEqualTo(40)
+                .jsonPath("$.byBrand.Eisenbahn.utilization").isEqualTo(0.25);
+    }
+
+    @Test
+    void whenDELETEIsCalledThenBeerIsGone() {
+        // given
+        BeerDTO beerDTO = create(BeerDTOBuilder.builder().id(null).name("Guinness").brand("Diageo").build().toBeerDTO());
+
+        // when
+        webTestClient.delete().uri(BEER_API_URL_PATH + "/" + beerDTO.getId())
+                .exchange()
+                .expectStatus().isNoContent();
+
+        // then
+        webTestClient.delete().uri(BEER_API_URL_PATH + "/" + beerDTO.getId())
+                .exchange()
+                .expectStatus().isNotFound();
+        webTestClient.get().uri(BEER_API_URL_PATH + "/suggest?q=" + beerDTO.getName())
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(0);
+    }
+
+    private BeerDTO create(BeerDTO beerDTO) {
+        return webTestClient.post().uri(BEER_API_URL_PATH)
+                .bodyValue(beerDTO)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(BeerDTO.class)
+                .returnResult()
+                .getResponseBody();
+    }
+}
@@ -0,0 +1,228 @@
+package one.digitalinnovation.beerstock.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import one.digitalinnovation.beerstock.builder.BeerDTOBuilder;
+import one.digitalinnovation.beerstock.controller.BeerController;
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.dto.QuantityDTO;
+import one.digitalinnovation.beerstock.exception.BeerStockExceededException;
+import one.digitalinnovation.beerstock.service.BeerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static one.digitalinnovation.beerstock.utils.JsonConvertionUtils.asJsonString;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+public class IdempotencyFilterTest {
+
+    private static final String BEER_API_URL_PATH = "/api/v1/beers";
+    private static final String BEER_API_SUBPATH_DECREMENT_URL = "/decrement";
+    private static final String IDEMPOTENCY_KEY = "3f1c2a7e-5b9d-4e61-a0f2-8c4d7e9b1a36";
+    private static final long VALID_BEER_ID = 1L;
+
+    private MockMvc mockMvc;
+
+    private InMemoryIdempotencyStore idempotencyStore;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @Mock
+    private BeerService beerService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private BeerController beerController;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyStore = new InMemoryIdempotencyStore(100, Duration.ofMinutes(1));
+        meterRegistry = new SimpleMeterRegistry();
+        mockMvc = MockMvcBuilders.standaloneSetup(beerController)
+                .addFilters(new IdempotencyFilter(idempotencyStore, meterRegistry))
+                .build();
+    }
+
+    @Test
+    void whenPOSTIsRetriedWithTheSameKeyThenTheFirstResponseIsReplayed() throws Exception {
+        // given
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+
+        // when
+        when(beerService.createBeer(beerDTO)).thenReturn(beerDTO);
+
+        // then
+        mockMvc.perform(post(BEER_API_URL_PATH)
+                .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, IDEMPOTENCY_KEY)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(beerDTO)))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER));
+        mockMvc.perform(post(BEER_API_URL_PATH)
+                .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, IDEMPOTENCY_KEY)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(beerDTO)))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"))
+                .andExpect(jsonPath("$.name", is(beerDTO.getName())))
+                .andExpect(jsonPath("$.brand", is(beerDTO.getBrand())));
+        verify(beerService, times(1)).createBeer(beerDTO);
+        assertThat(meterRegistry.counter("beerstock.idempotency.requests", "outcome", "replayed").count(), is(1.0));
+    }
+
+    @Test
+    void whenKeyIsReusedWithAnotherBodyThenUnprocessableEntityStatusIsReturned() throws Exception {
+        // given
+        QuantityDTO quantityDTO = QuantityDTO.builder().quantity(10).build();
+        QuantityDTO otherQuantityDTO = QuantityDTO.builder().quantity(20).build();
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+
+        // when
+        when(beerService.decrement(VALID_BEER_ID, quantityDTO.getQuantity())).thenReturn(beerDTO);
+
+        // then
+        mockMvc.perform(patch(BEER_API_URL_PATH + "/" + VALID_BEER_ID + BEER_API_SUBPATH_DECREMENT_URL)
+                .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, IDEMPOTENCY_KEY)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(quantityDTO)))
+                .andExpect(status().isOk());
+        mockMvc.perform(patch(BEER_API_URL_PATH + "/" + VALID_BEER_ID + BEER_API_SUBPATH_DECREMENT_URL)
+                .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, IDEMPOTENCY_KEY)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(otherQuantityDTO)))
+                .andExpect(status().isUnprocessableEntity());
+        verify(beerService, times(1)).decrement(VALID_BEER_ID, quantityDTO.getQuantity());
+    }
+
+    @Test
+    void whenKeyIsStillInProgressThenConflictStatusIsReturned() throws Exception {
+        // given
+        QuantityDTO quantityDTO = QuantityDTO.builder().quantity(10).build();
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        MockHttpServletRequestBuilder decrementRequest = patch(BEER_API_URL_PATH + "/" + VALID_BEER_ID + BEER_API_SUBPATH_DECREMENT_URL)
+                .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, IDEMPOTENCY_KEY)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(quantityDTO));
+        int[] retryStatus = new int[1];
+
+        // when
+        when(beerService.decrement(VALID_BEER_ID, quantityDTO.getQuantity())).thenAnswer(invocation -> {
+            retryStatus[0] = mockMvc.perform(decrementRequest).andReturn().getResponse().getStatus();
+            return beerDTO;
+        });
+
+        // then
+        mockMvc.perform(decrementRequest)
+                .andExpect(status().isOk());
+        assertThat(retryStatus[0], is(HttpStatus.CONFLICT.value()));
+        verify(beerService, times(1)).decrement(VALID_BEER_ID, quantityDTO.getQuantity());
+    }
+
+    @Test
+    void whenRequestFailsThenItsRetryRunsAgain() throws Exception {
+        // given
+        QuantityDTO quantityDTO = QuantityDTO.builder().quantity(80).build();
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+
+        // when
+        when(beerService.decrement(VALID_BEER_ID, quantityDTO.getQuantity()))
+                .thenThrow(BeerStockExceededException.class)
+                .thenReturn(beerDTO);
+
+        // then
+        mockMvc.perform(patch(BEER_API_URL_PATH + "/" + VALID_BEER_ID + BEER_API_SUBPATH_DECREMENT_URL)
+                .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, IDEMPOTENCY_KEY)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(quantityDTO)))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch(BEER_API_URL_PATH + "/" + VALID_BEER_ID + BEER_API_SUBPATH_DECREMENT_URL)
+                .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, IDEMPOTENCY_KEY)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(quantityDTO)))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER));
+        verify(beerService, times(2)).decrement(VALID_BEER_ID, quantityDTO.getQuantity());
+    }
+
+    @Test
+    void whenKeyIsTooLongThenBadRequestStatusIsReturned() throws Exception {
+        // given
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+
+        // then
+        mockMvc.perform(post(BEER_API_URL_PATH)
+                .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "k".repeat(256))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(beerDTO)))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(beerService);
+    }
+
+    @Test
+    void whenControllerReadsTheBodyThroughAReadListenerThenItIsDeliveredAtOnce() throws Exception {
+        // given
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", BEER_API_URL_PATH);
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, IDEMPOTENCY_KEY);
+        request.setContent("{\"quantity\":10}".getBytes(StandardCharsets.UTF_8));
+        List<String> events = new ArrayList<>();
+
+        // when
+        new IdempotencyFilter(idempotencyStore, meterRegistry).doFilter(request, new MockHttpServletResponse(),
+                (filteredRequest, filteredResponse) -> {
+                    ServletInputStream input = filteredRequest.getInputStream();
+                    input.setReadListener(new ReadListener() {
+                        @Override
+                        public void onDataAvailable() throws IOException {
+                            events.add(new String(input.readAllBytes(), StandardCharsets.UTF_8));
+                        }
+
+                        @Override
+                        public void onAllDataRead() {
+                            events.add("done");
+                        }
+
+                        @Override
+                        public void onError(Throwable t) {
+                            events.add("error");
+                        }
+                    });
+                });
+
+        // then
+        assertThat(events, contains("{\"quantity\":10}", "done"));
+    }
+}
@@ -0,0 +1,81 @@
+package one.digitalinnovation.beerstock.idempotency;
+
+import one.digitalinnovation.beerstock.repository.IdempotencyKeyRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:beerstock-idempotency;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "beerstock.idempotency.store=jpa"
+})
+public class JpaIdempotencyStoreTest {
+
+    private static final String IDEMPOTENCY_KEY = "8a0d6c3e-2f47-4b1a-9e5c-7d3f1b2a6c90";
+    private static final String FINGERPRINT = "fingerprint";
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @AfterEach
+    void tearDown() {
+        idempotencyKeyRepository.deleteAll();
+    }
+
+    @Test
+    void whenKeyIsClaimedTwiceThenTheSecondClaimSeesTheFirstOneInProgress() {
+        // when
+        Optional<IdempotencyRecord> firstClaim = idempotencyStore.claim(IDEMPOTENCY_KEY, FINGERPRINT);
+        Optional<IdempotencyRecord> secondClaim = idempotencyStore.claim(IDEMPOTENCY_KEY, FINGERPRINT);
+
+        // then
+        assertThat(idempotencyStore, is(instanceOf(JpaIdempotencyStore.class)));
+        assertThat(firstClaim.isPresent(), is(false));
+        assertThat(secondClaim.get().isCompleted(), is(false));
+    }
+
+    @Test
+    void whenClaimedKeyIsCompletedThenItsResponseIsReturned() {
+        // given
+        byte[] body = "{\"id\":1}".getBytes(StandardCharsets.UTF_8);
+        idempotencyStore.claim(IDEMPOTENCY_KEY, FINGERPRINT);
+
+        // when
+        idempotencyStore.complete(IDEMPOTENCY_KEY, IdempotencyRecord.builder()
+                .fingerprint(FINGERPRINT)
+                .status(201)
+                .contentType("application/json")
+                .body(body)
+                .build());
+
+        // then
+        IdempotencyRecord record = idempotencyStore.claim(IDEMPOTENCY_KEY, FINGERPRINT).get();
+        assertThat(record.getStatus(), is(equalTo(201)));
+        assertThat(record.getContentType(), is(equalTo("application/json")));
+        assertThat(record.getBody(), is(equalTo(body)));
+    }
+
+    @Test
+    void whenClaimedKeyIsReleasedThenItCanBeClaimedAgain() {
+        // given
+        idempotencyStore.claim(IDEMPOTENCY_KEY, FINGERPRINT);
+
+        // when
+        idempotencyStore.release(IDEMPOTENCY_KEY);
+
+        // then
+        assertThat(idempotencyStore.claim(IDEMPOTENCY_KEY, FINGERPRINT).isPresent(), is(false));
+    }
+}
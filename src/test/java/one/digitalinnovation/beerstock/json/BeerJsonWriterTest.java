@@ -0,0 +1,93 @@
+package one.digitalinnovation.beerstock.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.dto.BeerRows;
+import one.digitalinnovation.beerstock.entity.Beer;
+import one.digitalinnovation.beerstock.enums.BeerType;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+public class BeerJsonWriterTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @Test
+    void whenRowsAreWrittenThenTheBytesAreTheSameJacksonWritesForTheirDTOs() throws IOException {
+        // given
+        BeerRows rows = new BeerRows(Arrays.asList(
+                new Beer(1L, "Brahma", "Ambev", 50, 10, BeerType.LAGER, 0L),
+                new Beer(2L, "Cerveja \"Clara\" \\ Escura", "Cervejaria São Jorge", 100, 20, BeerType.IPA, 3L),
+                new Beer(3L, "Tab\tNova\nLinha\u0001\u007F", "日本ビール 🍺", 500, 0, BeerType.STOUT, 1L),
+                new Beer(Long.MAX_VALUE, "", "Brand", 0, 0, BeerType.WEISS, 0L)),
+                new int[]{7, 20, 0, 100});
+
+        // when
+        byte[] written = write(rows);
+
+        // then
+        assertThat(new String(written, "UTF-8"), is(equalTo(new String(objectMapper.writeValueAsBytes(rows.toDTOs()), "UTF-8"))));
+    }
+
+    @Test
+    void whenRowsOutgrowTheBufferThenTheyAreWrittenWhole() throws IOException {
+        // given
+        List<Beer> beers = new ArrayList<>();
+        int[] quantities = new int[2000];
+        for (int index = 0; index < quantities.length; index++) {
+            beers.add(new Beer((long) index + 1, "Cerveja Artesanal Número " + index, "Marca " + index % 20, 500,
+                    index % 100, BeerType.values()[index % BeerType.values().length], 0L));
+            quantities[index] = index % 100;
+        }
+        BeerRows rows = new BeerRows(beers, quantities);
+
+        // when
+        byte[] written = write(rows);
+
+        // then
+        assertThat(written.length, is(greaterThan(BeerJsonWriter.BUFFER_SIZE)));
+        assertThat(objectMapper.readTree(written), is(equalTo(objectMapper.readTree(objectMapper.writeValueAsBytes(rows.toDTOs())))));
+    }
+
+    @Test
+    void whenBeersAreWrittenOnePerLineThenEachLineIsABeerDTO() throws IOException {
+        // given
+        Beer beer = new Beer(1L, "Brahma", "Ambev", 50, 10, BeerType.LAGER, 0L);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // when
+        try (BeerJsonWriter writer = BeerJsonWriter.to(outputStream)) {
+            writer.writeBeer(beer, 4);
+            writer.writeRaw('\n');
+        }
+
+        // then
+        BeerDTO expectedBeerDTO = new BeerDTO(1L, "Brahma", "Ambev", 50, 4, BeerType.LAGER);
+        assertThat(outputStream.toString("UTF-8"), is(equalTo(objectMapper.writeValueAsString(expectedBeerDTO) + "\n")));
+    }
+
+    @Test
+    void whenNoRowsAreWrittenThenAnEmptyArrayIsWritten() throws IOException {
+        assertThat(new String(write(new BeerRows(Collections.emptyList(), new int[0])), "UTF-8"), is(equalTo("[]")));
+    }
+
+    private static byte[] write(BeerRows rows) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (BeerJsonWriter writer = BeerJsonWriter.to(outputStream)) {
+            writer.writeArray(rows);
+        }
+        return outputStream.toByteArray();
+    }
+}
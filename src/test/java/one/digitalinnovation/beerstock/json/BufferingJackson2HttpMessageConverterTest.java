@@ -0,0 +1,60 @@
+package one.digitalinnovation.beerstock.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.enums.BeerType;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+public class BufferingJackson2HttpMessageConverterTest {
+
+    private static final int BUFFER_SIZE = 2048;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private final BufferingJackson2HttpMessageConverter converter = new BufferingJackson2HttpMessageConverter(objectMapper, BUFFER_SIZE);
+
+    @Test
+    void whenBodyFitsTheBufferThenItIsSentWithItsLength() throws IOException {
+        // given
+        BeerDTO beerDTO = new BeerDTO(1L, "Brahma", "Ambev", 50, 10, BeerType.LAGER);
+        MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+
+        // when
+        converter.write(beerDTO, MediaType.APPLICATION_JSON, outputMessage);
+
+        // then
+        byte[] expectedBody = objectMapper.writeValueAsBytes(beerDTO);
+        assertThat(outputMessage.getBodyAsBytes(), is(equalTo(expectedBody)));
+        assertThat(outputMessage.getHeaders().getContentLength(), is(equalTo((long) expectedBody.length)));
+    }
+
+    @Test
+    void whenBodyOutgrowsTheBufferThenItIsStreamedWhole() throws IOException {
+        // given
+        List<BeerDTO> beerDTOs = new ArrayList<>();
+        for (int index = 0; index < 100; index++) {
+            beerDTOs.add(new BeerDTO((long) index + 1, "Cerveja " + index, "Marca " + index % 20, 500, index, BeerType.IPA));
+        }
+        MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+
+        // when
+        converter.write(beerDTOs, MediaType.APPLICATION_JSON, outputMessage);
+
+        // then
+        assertThat(outputMessage.getBodyAsBytes().length, is(greaterThan(BUFFER_SIZE)));
+        assertThat(outputMessage.getBodyAsBytes(), is(equalTo(objectMapper.writeValueAsBytes(beerDTOs))));
+        assertThat(outputMessage.getHeaders().getContentLength(), is(equalTo(-1L)));
+    }
+}
@@ -0,0 +1,319 @@
+package one.digitalinnovation.beerstock.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.enums.BeerType;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * End-to-end load test that drives the Postman collection flows against the application on a random port and
+ * writes per endpoint HdrHistogram latencies and throughput to a JSON report.
+ * <p>
+ * It is excluded from the regular build and runs with {@code mvn -P loadtest test}. The generator is closed loop:
+ * each of {@code loadtest.threads} workers sends its next request as soon as the previous one answers, for
+ * {@code loadtest.warmup-seconds} unrecorded and then {@code loadtest.duration-seconds} recorded. The operation mix is
+ * given as weights in {@code loadtest.mix}, and the report goes to {@code loadtest.report}. Find, list, increment and
+ * decrement work on a fixed seeded set of beers, while create and delete churn beers of their own.
+ * {@link ReactiveBeerApiLoadTest} repeats the run against the WebFlux stack and {@link WriteBehindBeerApiLoadTest}
+ * with write-behind deposits.
+ */
+@Slf4j
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class BeerApiLoadTest {
+
+    private static final String BEERS_PATH = "/api/v1/beers";
+    private static final int SEED_BEERS = 200;
+    private static final int MAX_STOCK = 500;
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final AtomicLong nameSequence = new AtomicLong();
+    private final ConcurrentLinkedDeque<BeerDTO> churnedBeers = new ConcurrentLinkedDeque<>();
+    private final Map<Operation, EndpointStats> stats = new EnumMap<>(Operation.class);
+    private final List<BeerDTO> seededBeers = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new EndpointStats());
+        }
+        for (int i = 0; i < SEED_BEERS; i++) {
+            seededBeers.add(create());
+        }
+    }
+
+    @Test
+    void whenMixedTrafficRunsThenLatenciesAreReportedPerEndpoint() throws Exception {
+        int threads = Integer.getInteger("loadtest.threads", 8);
+        int warmupSeconds = Integer.getInteger("loadtest.warmup-seconds", 5);
+        int durationSeconds = Integer.getInteger("loadtest.duration-seconds", 20);
+        Map<Operation, Integer> mix = parseMix(System.getProperty("loadtest.mix",
+                "find:35,list:15,increment:15,decrement:15,create:10,delete:10"));
+        Path reportPath = reportPath();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = warmupEnd + TimeUnit.SECONDS.toNanos(durationSeconds);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            workers.add(executor.submit(() -> {
+                while (System.nanoTime() < end) {
+                    execute(pick(mix), System.nanoTime() >= warmupEnd);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        executor.shutdown();
+
+        Map<String, Object> report = report(threads, warmupSeconds, durationSeconds, mix);
+        Files.createDirectories(reportPath.toAbsolutePath().getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(reportPath.toFile(), report);
+        printSummary(durationSeconds);
+
+        long serverErrors = stats.values().stream().mapToLong(EndpointStats::serverErrors).sum();
+        assertThat(serverErrors, equalTo(0L));
+    }
+
+    protected Path reportPath() {
+        return Paths.get(System.getProperty("loadtest.report", "target/loadtest-report.json"));
+    }
+
+    private void execute(Operation operation, boolean recording) throws IOException, InterruptedException {
+        BeerDTO beer = seededBeers.get(ThreadLocalRandom.current().nextInt(seededBeers.size()));
+        HttpRequest request;
+        switch (operation) {
+            case CREATE:
+                request = post(BEERS_PATH, newBeer());
+                break;
+            case FIND:
+                request = get(BEERS_PATH + "/" + URLEncoder.encode(beer.getName(), StandardCharsets.UTF_8).replace("+", "%20"));
+                break;
+            case LIST:
+                request = get(BEERS_PATH);
+                break;
+            case INCREMENT:
+                request = patch(BEERS_PATH + "/" + beer.getId() + "/increment", Map.of("quantity", 1));
+                break;
+            case DECREMENT:
+                request = patch(BEERS_PATH + "/" + beer.getId() + "/decrement", Map.of("quantity", 1));
+                break;
+            case DELETE:
+                BeerDTO churnedBeer = churnedBeers.pollFirst();
+                if (churnedBeer == null) {
+                    churnedBeers.add(create());
+                    return;
+                }
+                request = HttpRequest.newBuilder(uri(BEERS_PATH + "/" + churnedBeer.getId())).DELETE().build();
+                break;
+            default:
+                throw new IllegalStateException("Unknown operation " + operation);
+        }
+
+        long start = System.nanoTime();
+        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        long latency = System.nanoTime() - start;
+        if (recording) {
+            stats.get(operation).record(latency, response.statusCode());
+        }
+        if (operation == Operation.CREATE && response.statusCode() == 201) {
+            churnedBeers.add(objectMapper.readValue(response.body(), BeerDTO.class));
+        }
+    }
+
+    private BeerDTO create() throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = httpClient.send(post(BEERS_PATH, newBeer()), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 201) {
+            throw new IllegalStateException("Could not create beer, status " + response.statusCode());
+        }
+        return objectMapper.readValue(response.body(), BeerDTO.class);
+    }
+
+    private BeerDTO newBeer() {
+        long sequence = nameSequence.incrementAndGet();
+        return BeerDTO.builder()
+                .name("Load Beer " + sequence)
+                .brand("Load Brand " + sequence % 20)
+                .max(MAX_STOCK)
+                .quantity(MAX_STOCK / 5)
+                .type(BeerType.values()[(int) (sequence % BeerType.values().length)])
+                .build();
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(uri(path)).GET().build();
+    }
+
+    private HttpRequest post(String path, Object body) throws IOException {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+    }
+
+    private HttpRequest patch(String path, Object body) throws IOException {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .method("PATCH", HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private Operation pick(Map<Operation, Integer> mix) {
+        int totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        int roll = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty operation mix");
+    }
+
+    private Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] operationAndWeight = entry.trim().split(":");
+            weights.put(Operation.valueOf(operationAndWeight[0].trim().toUpperCase()), Integer.parseInt(operationAndWeight[1].trim()));
+        }
+        return weights;
+    }
+
+    private Map<String, Object> report(int threads, int warmupSeconds, int durationSeconds, Map<Operation, Integer> mix) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("threads", threads);
+        report.put("warmupSeconds", warmupSeconds);
+        report.put("durationSeconds", durationSeconds);
+        report.put("mix", mix);
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        stats.forEach((operation, endpointStats) -> {
+            if (endpointStats.histogram.getTotalCount() > 0) {
+                endpoints.put(operation.endpoint, endpointStats.toReport(durationSeconds));
+            }
+        });
+        report.put("endpoints", endpoints);
+        return report;
+    }
+
+    private void printSummary(int durationSeconds) {
+        log.info(String.format("%-36s %9s %10s %9s %9s %9s %9s", "endpoint", "requests", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+        stats.forEach((operation, endpointStats) -> {
+            Histogram histogram = endpointStats.histogram;
+            log.info(String.format("%-36s %9d %10.1f %9.3f %9.3f %9.3f %9.3f", operation.endpoint, histogram.getTotalCount(),
+                    histogram.getTotalCount() / (double) durationSeconds,
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue())));
+        });
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private enum Operation {
+        CREATE("POST /api/v1/beers"),
+        FIND("GET /api/v1/beers/{name}"),
+        LIST("GET /api/v1/beers"),
+        INCREMENT("PATCH /api/v1/beers/{id}/increment"),
+        DECREMENT("PATCH /api/v1/beers/{id}/decrement"),
+        DELETE("DELETE /api/v1/beers/{id}");
+
+        private final String endpoint;
+
+        Operation(String endpoint) {
+            this.endpoint = endpoint;
+        }
+    }
+
+    private static class EndpointStats {
+
+        private final Histogram histogram = new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3);
+        private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+        private void record(long latencyNanos, int status) {
+            histogram.recordValue(Math.min(latencyNanos, HIGHEST_TRACKABLE_NANOS));
+            statuses.computeIfAbsent(status, code -> new LongAdder()).increment();
+        }
+
+        private long serverErrors() {
+            return statuses.entrySet().stream()
+                    .filter(entry -> entry.getKey() >= 500)
+                    .mapToLong(entry -> entry.getValue().sum())
+                    .sum();
+        }
+
+        private Map<String, Object> toReport(int durationSeconds) {
+            Map<String, Object> latencyMillis = new LinkedHashMap<>();
+            latencyMillis.put("mean", histogram.getMean() / 1_000_000.0);
+            latencyMillis.put("p50", millis(histogram.getValueAtPercentile(50)));
+            latencyMillis.put("p99", millis(histogram.getValueAtPercentile(99)));
+            latencyMillis.put("p999", millis(histogram.getValueAtPercentile(99.9)));
+            latencyMillis.put("max", millis(histogram.getMaxValue()));
+
+            Map<String, Long> statusCounts = new LinkedHashMap<>();
+            statuses.entrySet().stream()
+                    .sorted(Map.Entry.comparingByKey())
+                    .forEach(entry -> statusCounts.put(String.valueOf(entry.getKey()), entry.getValue().sum()));
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("requests", histogram.getTotalCount());
+            report.put("throughputPerSecond", histogram.getTotalCount() / (double) durationSeconds);
+            report.put("statuses", statusCounts);
+            report.put("latencyMillis", latencyMillis);
+            return report;
+        }
+    }
+}
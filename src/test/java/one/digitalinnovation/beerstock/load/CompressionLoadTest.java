@@ -0,0 +1,328 @@
+package one.digitalinnovation.beerstock.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import one.digitalinnovation.beerstock.dto.BatchItemResultDTO;
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.enums.BeerType;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+
+/**
+ * Load test of the {@code production} profile that reports the throughput, latency and bandwidth of the full catalog
+ * listing and of the lookup by name, for each way a client can talk to it: HTTP/1.1 without compression, HTTP/1.1
+ * accepting gzip and HTTP/2 over cleartext (h2c) accepting gzip.
+ * <p>
+ * It runs with {@code mvn -P loadtest test -Dtest=CompressionLoadTest}. {@code loadtest.compression-catalog-size}
+ * beers are created and listed in a single page. Every variant is warmed up first, then each variant and endpoint is
+ * driven in turn by {@code loadtest.threads} closed loop workers, {@code loadtest.warmup-seconds} unrecorded and then
+ * {@code loadtest.duration-seconds} recorded. Bandwidth counts response bodies as they arrive, compressed when they
+ * are, and leaves headers out. The report goes to {@code loadtest.compression-report}.
+ */
+@Slf4j
+@Tag("load")
+@ActiveProfiles("production")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties =
+        "spring.datasource.url=jdbc:h2:mem:beerstock-compression-load;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+public class CompressionLoadTest {
+
+    private static final String BEERS_PATH = "/api/v1/beers";
+    private static final int MAX_STOCK = 500;
+    private static final int MAX_QUANTITY = 100;
+    private static final int BATCH_SIZE = 500;
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final List<String> beerNames = new ArrayList<>();
+    private int catalogSize;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        catalogSize = Integer.getInteger("loadtest.compression-catalog-size", 1000);
+        HttpClient httpClient = client(HttpClient.Version.HTTP_1_1);
+        for (int created = 0; created < catalogSize; created += BATCH_SIZE) {
+            List<BeerDTO> batch = new ArrayList<>();
+            for (int index = created; index < Math.min(catalogSize, created + BATCH_SIZE); index++) {
+                batch.add(newBeer(index));
+            }
+            HttpRequest request = HttpRequest.newBuilder(uri(BEERS_PATH + "/batch"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(batch)))
+                    .build();
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Could not create beers, status " + response.statusCode());
+            }
+            for (BatchItemResultDTO result : objectMapper.readValue(response.body(), BatchItemResultDTO[].class)) {
+                if (result.getStatus() != 201) {
+                    throw new IllegalStateException("Could not create beer " + result.getIndex() + ": " + result.getError());
+                }
+                beerNames.add(result.getBeer().getName());
+            }
+        }
+    }
+
+    @Test
+    void whenListAndFindAreLoadedPerProtocolAndEncodingThenTheTradeOffIsReported() throws Exception {
+        int threads = Integer.getInteger("loadtest.threads", 8);
+        int warmupSeconds = Integer.getInteger("loadtest.warmup-seconds", 5);
+        int durationSeconds = Integer.getInteger("loadtest.duration-seconds", 10);
+        Path reportPath = Paths.get(System.getProperty("loadtest.compression-report", "target/loadtest-compression-report.json"));
+
+        // Warms every variant before any is recorded, so the one recorded first is not measured colder.
+        for (Variant variant : Variant.values()) {
+            for (Endpoint endpoint : Endpoint.values()) {
+                run(client(variant.version), () -> request(variant, endpoint), threads, warmupSeconds, 0);
+            }
+        }
+
+        Map<String, Object> variants = new LinkedHashMap<>();
+        Map<String, Map<Endpoint, EndpointStats>> stats = new LinkedHashMap<>();
+        for (Variant variant : Variant.values()) {
+            HttpClient httpClient = client(variant.version);
+            Map<Endpoint, EndpointStats> variantStats = new LinkedHashMap<>();
+            Map<String, Object> endpoints = new LinkedHashMap<>();
+            for (Endpoint endpoint : Endpoint.values()) {
+                EndpointStats endpointStats = run(httpClient, () -> request(variant, endpoint), threads,
+                        warmupSeconds, durationSeconds);
+                variantStats.put(endpoint, endpointStats);
+                endpoints.put(endpoint.endpoint, endpointStats.toReport(durationSeconds));
+            }
+            stats.put(variant.name, variantStats);
+            variants.put(variant.name, endpoints);
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("threads", threads);
+        report.put("warmupSeconds", warmupSeconds);
+        report.put("durationSeconds", durationSeconds);
+        report.put("catalogSize", catalogSize);
+        report.put("variants", variants);
+        Files.createDirectories(reportPath.toAbsolutePath().getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(reportPath.toFile(), report);
+        printSummary(stats, durationSeconds);
+
+        for (Map<Endpoint, EndpointStats> variantStats : stats.values()) {
+            for (EndpointStats endpointStats : variantStats.values()) {
+                assertThat(endpointStats.failures.sum(), equalTo(0L));
+            }
+        }
+        EndpointStats identityList = stats.get(Variant.HTTP_1_1.name).get(Endpoint.LIST);
+        EndpointStats gzipList = stats.get(Variant.HTTP_1_1_GZIP.name).get(Endpoint.LIST);
+        assertThat(gzipList.bytesPerResponse(), lessThan(identityList.bytesPerResponse()));
+        assertThat(stats.get(Variant.H2C_GZIP.name).get(Endpoint.LIST).http2Responses.sum(),
+                equalTo(stats.get(Variant.H2C_GZIP.name).get(Endpoint.LIST).histogram.getTotalCount()));
+    }
+
+    private EndpointStats run(HttpClient httpClient, Supplier<HttpRequest> requests, int threads, int warmupSeconds,
+                              int durationSeconds) throws Exception {
+        EndpointStats endpointStats = new EndpointStats();
+        HttpResponse<byte[]> first = httpClient.send(requests.get(), HttpResponse.BodyHandlers.ofByteArray());
+        verifyBody(first);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = warmupEnd + TimeUnit.SECONDS.toNanos(durationSeconds);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            workers.add(executor.submit(() -> {
+                while (System.nanoTime() < end) {
+                    HttpRequest request = requests.get();
+                    long start = System.nanoTime();
+                    HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                    long latency = System.nanoTime() - start;
+                    if (System.nanoTime() >= warmupEnd) {
+                        endpointStats.record(latency, response);
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        executor.shutdown();
+        return endpointStats;
+    }
+
+    private void verifyBody(HttpResponse<byte[]> response) throws IOException {
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Request answered " + response.statusCode());
+        }
+        // Decoding fails unless a compressed body is complete, valid gzip of the JSON the endpoint serves.
+        objectMapper.readTree(decoded(response));
+    }
+
+    private HttpRequest request(Variant variant, Endpoint endpoint) {
+        String path = endpoint == Endpoint.LIST
+                ? BEERS_PATH + "?size=" + catalogSize
+                : BEERS_PATH + "/" + URLEncoder.encode(beerNames.get(ThreadLocalRandom.current().nextInt(beerNames.size())),
+                StandardCharsets.UTF_8).replace("+", "%20");
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri(path)).GET();
+        if (variant.gzip) {
+            request.header("Accept-Encoding", "gzip");
+        }
+        return request.build();
+    }
+
+    private static HttpClient client(HttpClient.Version version) {
+        return HttpClient.newBuilder()
+                .version(version)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    private static BeerDTO newBeer(int index) {
+        return BeerDTO.builder()
+                .name("Compression Beer " + index)
+                .brand("Compression Brand " + index % 20)
+                .max(MAX_STOCK)
+                .quantity(index % MAX_QUANTITY)
+                .type(BeerType.values()[index % BeerType.values().length])
+                .build();
+    }
+
+    private static InputStream decoded(HttpResponse<byte[]> response) throws IOException {
+        InputStream body = new ByteArrayInputStream(response.body());
+        return isGzip(response) ? new GZIPInputStream(body) : body;
+    }
+
+    private static boolean isGzip(HttpResponse<?> response) {
+        return response.headers().firstValue("Content-Encoding").filter("gzip"::equalsIgnoreCase).isPresent();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static void printSummary(Map<String, Map<Endpoint, EndpointStats>> stats, int durationSeconds) {
+        log.info(String.format("%-16s %-28s %10s %9s %9s %12s %12s %6s", "variant", "endpoint", "req/s", "p50 ms",
+                "p99 ms", "bytes/resp", "KB/s", "gzip"));
+        stats.forEach((variant, variantStats) -> variantStats.forEach((endpoint, endpointStats) -> {
+            Histogram histogram = endpointStats.histogram;
+            log.info(String.format("%-16s %-28s %10.1f %9.3f %9.3f %12.0f %12.1f %6d", variant, endpoint.endpoint,
+                    histogram.getTotalCount() / (double) durationSeconds, millis(histogram.getValueAtPercentile(50)),
+                    millis(histogram.getValueAtPercentile(99)), endpointStats.bytesPerResponse(),
+                    endpointStats.bytes.sum() / 1024.0 / durationSeconds, endpointStats.gzipResponses.sum()));
+        }));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private enum Variant {
+        HTTP_1_1("http1.1", HttpClient.Version.HTTP_1_1, false),
+        HTTP_1_1_GZIP("http1.1-gzip", HttpClient.Version.HTTP_1_1, true),
+        H2C_GZIP("h2c-gzip", HttpClient.Version.HTTP_2, true);
+
+        private final String name;
+        private final HttpClient.Version version;
+        private final boolean gzip;
+
+        Variant(String name, HttpClient.Version version, boolean gzip) {
+            this.name = name;
+            this.version = version;
+            this.gzip = gzip;
+        }
+    }
+
+    private enum Endpoint {
+        LIST("GET /api/v1/beers?size={all}"),
+        FIND("GET /api/v1/beers/{name}");
+
+        private final String endpoint;
+
+        Endpoint(String endpoint) {
+            this.endpoint = endpoint;
+        }
+    }
+
+    private static class EndpointStats {
+
+        private final Histogram histogram = new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3);
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder gzipResponses = new LongAdder();
+        private final LongAdder http2Responses = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+
+        private void record(long latencyNanos, HttpResponse<byte[]> response) {
+            histogram.recordValue(Math.min(latencyNanos, HIGHEST_TRACKABLE_NANOS));
+            bytes.add(response.body().length);
+            if (isGzip(response)) {
+                gzipResponses.increment();
+            }
+            if (response.version() == HttpClient.Version.HTTP_2) {
+                http2Responses.increment();
+            }
+            if (response.statusCode() != 200) {
+                failures.increment();
+            }
+        }
+
+        private double bytesPerResponse() {
+            return histogram.getTotalCount() == 0 ? 0 : bytes.sum() / (double) histogram.getTotalCount();
+        }
+
+        private Map<String, Object> toReport(int durationSeconds) {
+            Map<String, Object> latencyMillis = new LinkedHashMap<>();
+            latencyMillis.put("mean", histogram.getMean() / 1_000_000.0);
+            latencyMillis.put("p50", millis(histogram.getValueAtPercentile(50)));
+            latencyMillis.put("p99", millis(histogram.getValueAtPercentile(99)));
+            latencyMillis.put("p999", millis(histogram.getValueAtPercentile(99.9)));
+            latencyMillis.put("max", millis(histogram.getMaxValue()));
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("requests", histogram.getTotalCount());
+            report.put("failures", failures.sum());
+            report.put("throughputPerSecond", histogram.getTotalCount() / (double) durationSeconds);
+            report.put("latencyMillis", latencyMillis);
+            report.put("bodyBytesPerResponse", bytesPerResponse());
+            report.put("bandwidthBytesPerSecond", bytes.sum() / (double) durationSeconds);
+            report.put("gzipResponses", gzipResponses.sum());
+            report.put("http2Responses", http2Responses.sum());
+            return report;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package one.digitalinnovation.beerstock.load;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Runs the {@link BeerApiLoadTest} traffic against the WebFlux stack of the {@code reactive} profile, on a database
+ * of its own, so one {@code mvn -P loadtest test} run measures both stacks with the same settings. Its report goes to
+ * {@code loadtest.reactive-report}.
+ */
+@ActiveProfiles("reactive")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.main.web-application-type=reactive",
+        "spring.datasource.url=jdbc:h2:mem:beerstock-reactive-load;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.r2dbc.url=r2dbc:h2:mem:///beerstock-reactive-load?options=DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"
+})
+public class ReactiveBeerApiLoadTest extends BeerApiLoadTest {
+
+    @Override
+    protected Path reportPath() {
+        return Paths.get(System.getProperty("loadtest.reactive-report", "target/loadtest-reactive-report.json"));
+    }
+}
@@ -0,0 +1,221 @@
+package one.digitalinnovation.beerstock.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import one.digitalinnovation.beerstock.BeerstockApplication;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Startup benchmark that starts the application in fresh JVMs and reports the time until the readiness probe is up,
+ * the latency of the first API request and the resident memory once ready, to a JSON report.
+ * <p>
+ * It runs with {@code mvn -P loadtest test -Dtest=StartupLoadTest}. Each variant is started
+ * {@code loadtest.startup-runs} times: with the default configuration, with the {@code fast-startup} profile and, when
+ * {@code mvn -P startup package} has built {@code target/startup}, with the profile and the class data sharing
+ * archive. The application is started from {@code target/startup} when it exists, so the context index is used too,
+ * and from the test class path otherwise. The default variant ignores the index, which only lists this application's
+ * components and would hide the ones Swagger scans for. The report goes to {@code loadtest.startup-report}. Resident
+ * memory is read from {@code /proc} and reported as zero on other systems.
+ */
+@Slf4j
+@Tag("load")
+public class StartupLoadTest {
+
+    private static final Path STARTUP_DIRECTORY = Paths.get("target", "startup");
+    private static final Path ARCHIVE = STARTUP_DIRECTORY.resolve("beerstock.jsa");
+    private static final Duration READY_TIMEOUT = Duration.ofMinutes(2);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+
+    @Test
+    void whenTheApplicationStartsThenTimeToReadyAndMemoryAreReportedPerVariant() throws Exception {
+        int runs = Integer.getInteger("loadtest.startup-runs", 3);
+        Path reportPath = Paths.get(System.getProperty("loadtest.startup-report", "target/loadtest-startup-report.json"));
+
+        Map<String, List<String>> variants = new LinkedHashMap<>();
+        variants.put("default", Collections.singletonList("-Dspring.index.ignore=true"));
+        variants.put("fast-startup", Collections.singletonList("--spring.profiles.active=fast-startup"));
+        if (Files.exists(ARCHIVE)) {
+            variants.put("fast-startup-cds", Arrays.asList("-XX:SharedArchiveFile=" + ARCHIVE,
+                    "--spring.profiles.active=fast-startup"));
+        }
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> variant : variants.entrySet()) {
+            List<Run> variantRuns = new ArrayList<>();
+            for (int i = 0; i < runs; i++) {
+                variantRuns.add(start(variant.getValue()));
+            }
+            results.put(variant.getKey(), toReport(variantRuns));
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("runs", runs);
+        report.put("classPath", classPath());
+        report.put("javaVersion", Runtime.version().toString());
+        report.put("variants", results);
+        Files.createDirectories(reportPath.toAbsolutePath().getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(reportPath.toFile(), report);
+        printSummary(results);
+
+        assertThat(results.size(), equalTo(variants.size()));
+    }
+
+    private Run start(List<String> variantArguments) throws IOException, InterruptedException {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        variantArguments.stream().filter(argument -> !argument.startsWith("--")).forEach(command::add);
+        command.add("-cp");
+        command.add(classPath());
+        command.add(BeerstockApplication.class.getName());
+        command.add("--server.port=" + port);
+        variantArguments.stream().filter(argument -> argument.startsWith("--")).forEach(command::add);
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            awaitReady(process, port, start);
+            long readyNanos = System.nanoTime() - start;
+            long firstRequestStart = System.nanoTime();
+            int status = send(port, "/api/v1/beers");
+            long firstRequestNanos = System.nanoTime() - firstRequestStart;
+            if (status != 200) {
+                throw new IllegalStateException("First request answered " + status);
+            }
+            return new Run(readyNanos, firstRequestNanos, residentKilobytes(process.pid()));
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private void awaitReady(Process process, int port, long start) throws InterruptedException {
+        while (System.nanoTime() - start < READY_TIMEOUT.toNanos()) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Application exited with " + process.exitValue() + " before it was ready");
+            }
+            try {
+                if (send(port, "/actuator/health/readiness") == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // not listening yet
+            }
+            Thread.sleep(20);
+        }
+        throw new IllegalStateException("Application was not ready after " + READY_TIMEOUT);
+    }
+
+    private int send(int port, String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(10))
+                .GET()
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static String classPath() {
+        Path jar = STARTUP_DIRECTORY.resolve("beerstock.jar");
+        if (Files.exists(jar)) {
+            return jar + File.pathSeparator + STARTUP_DIRECTORY.resolve("lib") + File.separator + "*";
+        }
+        return System.getProperty("java.class.path");
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static long residentKilobytes(long pid) throws IOException {
+        Path status = Paths.get("/proc", String.valueOf(pid), "status");
+        if (!Files.exists(status)) {
+            return 0;
+        }
+        return Files.readAllLines(status).stream()
+                .filter(line -> line.startsWith("VmRSS:"))
+                .map(line -> line.replaceAll("[^0-9]", ""))
+                .mapToLong(Long::parseLong)
+                .findFirst()
+                .orElse(0);
+    }
+
+    private static Map<String, Object> toReport(List<Run> runs) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("readyMillis", summary(runs.stream().mapToDouble(run -> millis(run.readyNanos)).toArray()));
+        report.put("firstRequestMillis", summary(runs.stream().mapToDouble(run -> millis(run.firstRequestNanos)).toArray()));
+        report.put("residentMegabytes", summary(runs.stream().mapToDouble(run -> run.residentKilobytes / 1024.0).toArray()));
+        return report;
+    }
+
+    private static Map<String, Double> summary(double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        Map<String, Double> summary = new LinkedHashMap<>();
+        summary.put("min", sorted[0]);
+        summary.put("median", sorted[sorted.length / 2]);
+        summary.put("max", sorted[sorted.length - 1]);
+        return summary;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void printSummary(Map<String, Object> results) {
+        log.info(String.format("%-20s %14s %18s %12s", "variant", "ready ms", "first request ms", "RSS MB"));
+        results.forEach((variant, result) -> {
+            Map<String, Map<String, Double>> report = (Map<String, Map<String, Double>>) result;
+            log.info(String.format("%-20s %14.0f %18.1f %12.1f", variant, report.get("readyMillis").get("median"),
+                    report.get("firstRequestMillis").get("median"), report.get("residentMegabytes").get("median")));
+        });
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static class Run {
+
+        private final long readyNanos;
+        private final long firstRequestNanos;
+        private final long residentKilobytes;
+
+        private Run(long readyNanos, long firstRequestNanos, long residentKilobytes) {
+            this.readyNanos = readyNanos;
+            this.firstRequestNanos = firstRequestNanos;
+            this.residentKilobytes = residentKilobytes;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package one.digitalinnovation.beerstock.load;
+
+import one.digitalinnovation.beerstock.threads.VirtualThreads;
+import org.junit.jupiter.api.BeforeAll;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Runs the {@link BeerApiLoadTest} traffic with requests served on virtual threads. With more
+ * {@code loadtest.threads} than Tomcat's 200 platform workers, the servlet run queues the extra clients while this
+ * one keeps them all in flight, down to the connection pool. Skipped below Java 21. Its report goes to
+ * {@code loadtest.virtual-threads-report}.
+ */
+@ActiveProfiles("virtual-threads")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties =
+        "spring.datasource.url=jdbc:h2:mem:beerstock-virtual-threads-load;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+public class VirtualThreadBeerApiLoadTest extends BeerApiLoadTest {
+
+    @BeforeAll
+    static void requireVirtualThreads() {
+        assumeTrue(VirtualThreads.isSupported(), "virtual threads need Java 21 or later");
+    }
+
+    @Override
+    protected Path reportPath() {
+        return Paths.get(System.getProperty("loadtest.virtual-threads-report", "target/loadtest-virtual-threads-report.json"));
+    }
+}
@@ -0,0 +1,23 @@
+package one.digitalinnovation.beerstock.load;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Runs the {@link BeerApiLoadTest} traffic with write-behind deposits, on a database of its own, so increment
+ * latencies can be compared with the default mode. Use {@code -Dloadtest.mix=increment:80,find:20} to look at a
+ * promotion burst. Its report goes to {@code loadtest.write-behind-report}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:beerstock-write-behind-load;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "beerstock.ledger.write-behind.enabled=true"
+})
+public class WriteBehindBeerApiLoadTest extends BeerApiLoadTest {
+
+    @Override
+    protected Path reportPath() {
+        return Paths.get(System.getProperty("loadtest.write-behind-report", "target/loadtest-write-behind-report.json"));
+    }
+}
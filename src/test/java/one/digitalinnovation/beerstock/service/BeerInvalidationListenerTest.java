@@ -0,0 +1,121 @@
+package one.digitalinnovation.beerstock.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import one.digitalinnovation.beerstock.builder.BeerDTOBuilder;
+import one.digitalinnovation.beerstock.cluster.BeerInvalidation;
+import one.digitalinnovation.beerstock.cluster.LoopbackInvalidationChannel;
+import one.digitalinnovation.beerstock.entity.Beer;
+import one.digitalinnovation.beerstock.mapper.BeerMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class BeerInvalidationListenerTest {
+
+    @Mock
+    private StockLedger publishingNodeLedger;
+
+    @Mock
+    private StockLedger receivingNodeLedger;
+
+    @Mock
+    private BeerNameIndex publishingNodeNameIndex;
+
+    @Mock
+    private BeerNameIndex receivingNodeNameIndex;
+
+    @Mock
+    private ReorderIndex publishingNodeReorderIndex;
+
+    @Mock
+    private ReorderIndex receivingNodeReorderIndex;
+
+    @Mock
+    private InventoryStats publishingNodeInventoryStats;
+
+    @Mock
+    private InventoryStats receivingNodeInventoryStats;
+
+    private LoopbackInvalidationChannel publishingNodeChannel;
+
+    private BeerCache publishingNodeCache;
+
+    private BeerCache receivingNodeCache;
+
+    private Beer beer;
+
+    @BeforeEach
+    void setUp() {
+        LoopbackInvalidationChannel.Hub hub = new LoopbackInvalidationChannel.Hub();
+        publishingNodeChannel = new LoopbackInvalidationChannel(hub);
+        LoopbackInvalidationChannel receivingNodeChannel = new LoopbackInvalidationChannel(hub);
+        publishingNodeCache = newCache();
+        receivingNodeCache = newCache();
+        new BeerInvalidationListener(publishingNodeChannel, publishingNodeCache, publishingNodeLedger, publishingNodeNameIndex, publishingNodeReorderIndex, publishingNodeInventoryStats, new CatalogVersion()).subscribe();
+        new BeerInvalidationListener(receivingNodeChannel, receivingNodeCache, receivingNodeLedger, receivingNodeNameIndex, receivingNodeReorderIndex, receivingNodeInventoryStats, new CatalogVersion()).subscribe();
+
+        beer = BeerMapper.INSTANCE.toModel(BeerDTOBuilder.builder().build().toBeerDTO());
+        beer.setVersion(3L);
+        publishingNodeCache.get(beer.getName(), name -> beer);
+        receivingNodeCache.get(beer.getName(), name -> beer);
+    }
+
+    @Test
+    void whenNewerVersionIsPublishedThenOtherNodesDropTheirCopy() {
+        publishingNodeChannel.publish(new BeerInvalidation(beer.getId(), beer.getName(), 4L));
+
+        assertThat(isCached(receivingNodeCache), is(equalTo(false)));
+        assertThat(isCached(publishingNodeCache), is(equalTo(true)));
+        verify(receivingNodeLedger).refresh(beer.getId());
+        verify(publishingNodeLedger, never()).refresh(anyLong());
+        verify(receivingNodeReorderIndex).refresh(beer.getId());
+        verify(publishingNodeReorderIndex, never()).refresh(anyLong());
+        verify(receivingNodeInventoryStats).refresh(beer.getId());
+        verify(publishingNodeInventoryStats, never()).refresh(anyLong());
+        verify(receivingNodeNameIndex, never()).refresh(anyLong());
+    }
+
+    @Test
+    void whenAlreadyCachedVersionIsPublishedThenOtherNodesKeepTheirCopy() {
+        publishingNodeChannel.publish(new BeerInvalidation(beer.getId(), beer.getName(), 3L));
+
+        assertThat(isCached(receivingNodeCache), is(equalTo(true)));
+    }
+
+    @Test
+    void whenUnversionedInvalidationIsPublishedThenOtherNodesDropTheirCopy() {
+        publishingNodeChannel.publish(new BeerInvalidation(beer.getId(), beer.getName(), null));
+
+        assertThat(isCached(receivingNodeCache), is(equalTo(false)));
+        verify(receivingNodeNameIndex).refresh(beer.getId());
+    }
+
+    @Test
+    void whenStockFlushIsPublishedThenOtherNodesKeepTheirNameIndex() {
+        publishingNodeChannel.publish(BeerInvalidation.ofStock(beer.getId(), beer.getName()));
+
+        assertThat(isCached(receivingNodeCache), is(equalTo(false)));
+        verify(receivingNodeLedger).refresh(beer.getId());
+        verify(receivingNodeNameIndex, never()).refresh(anyLong());
+    }
+
+    private BeerCache newCache() {
+        return new BeerCache(100, Duration.ofMinutes(1), new SimpleMeterRegistry());
+    }
+
+    private boolean isCached(BeerCache beerCache) {
+        return beerCache.get(beer.getName(), name -> null) != null;
+    }
+}
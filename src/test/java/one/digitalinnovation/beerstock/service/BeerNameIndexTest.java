@@ -0,0 +1,96 @@
+package one.digitalinnovation.beerstock.service;
+
+import one.digitalinnovation.beerstock.dto.BeerSummaryDTO;
+import one.digitalinnovation.beerstock.repository.BeerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BeerNameIndexTest {
+
+    @Mock
+    private BeerRepository beerRepository;
+
+    private BeerNameIndex beerNameIndex;
+
+    @BeforeEach
+    void setUp() {
+        beerNameIndex = new BeerNameIndex(beerRepository);
+        beerNameIndex.put(1L, "Colorado Appia", "Colorado");
+        beerNameIndex.put(2L, "Colorado Indica", "Colorado");
+        beerNameIndex.put(3L, "Brahma Chopp", "Ambev");
+        beerNameIndex.put(4L, "Caçador de Lúpulo", "Bodebrown");
+    }
+
+    @Test
+    void whenPrefixIsGivenThenBeersWithMatchingWordsAreSuggestedShortestFirst() {
+        assertThat(namesOf(beerNameIndex.suggest("colo", 10)), contains("Colorado Appia", "Colorado Indica"));
+        assertThat(namesOf(beerNameIndex.suggest("ind", 10)), contains("Colorado Indica"));
+        assertThat(namesOf(beerNameIndex.suggest("amb", 10)), contains("Brahma Chopp"));
+    }
+
+    @Test
+    void whenSeveralWordsAreGivenThenEveryWordMustMatch() {
+        assertThat(namesOf(beerNameIndex.suggest("colorado ap", 10)), contains("Colorado Appia"));
+    }
+
+    @Test
+    void whenAccentsAreLeftOutThenBeerIsStillSuggested() {
+        assertThat(namesOf(beerNameIndex.suggest("cacador lup", 10)), contains("Caçador de Lúpulo"));
+    }
+
+    @Test
+    void whenQueryHasATypoThenCloseBeersAreSuggested() {
+        assertThat(namesOf(beerNameIndex.suggest("bramha", 10)), contains("Brahma Chopp"));
+    }
+
+    @Test
+    void whenLimitIsGivenThenOnlyThatManyBeersAreSuggested() {
+        assertThat(namesOf(beerNameIndex.suggest("c", 1)), contains("Colorado Appia"));
+    }
+
+    @Test
+    void whenBeerIsRemovedThenItIsNoLongerSuggested() {
+        beerNameIndex.remove(3L);
+
+        assertThat(beerNameIndex.suggest("brahma", 10), is(empty()));
+    }
+
+    @Test
+    void whenBeerIsRenamedManyTimesThenOnlyItsLatestNameIsSuggested() {
+        for (int i = 0; i < 3000; i++) {
+            beerNameIndex.put(1L, i % 2 == 0 ? "Colorado Appia" : "Colorado Vixnu", "Colorado");
+            beerNameIndex.put(2L, "Colorado Indica", "Colorado");
+        }
+
+        assertThat(beerNameIndex.suggest("appia", 10), is(empty()));
+        assertThat(namesOf(beerNameIndex.suggest("vixnu", 10)), contains("Colorado Vixnu"));
+        assertThat(namesOf(beerNameIndex.suggest("indica", 10)), contains("Colorado Indica"));
+    }
+
+    @Test
+    void whenRefreshedBeerNoLongerExistsThenItIsRemoved() {
+        when(beerRepository.findById(1L)).thenReturn(Optional.empty());
+
+        beerNameIndex.refresh(1L);
+
+        assertThat(namesOf(beerNameIndex.suggest("appia", 10)), is(empty()));
+    }
+
+    private List<String> namesOf(List<BeerSummaryDTO> suggestions) {
+        return suggestions.stream().map(BeerSummaryDTO::getName).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,224 @@
+package one.digitalinnovation.beerstock.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import one.digitalinnovation.beerstock.builder.BeerDTOBuilder;
+import one.digitalinnovation.beerstock.cluster.InvalidationChannel;
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.entity.Beer;
+import one.digitalinnovation.beerstock.enums.StockWriteDurability;
+import one.digitalinnovation.beerstock.exception.BeerStockExceededException;
+import one.digitalinnovation.beerstock.mapper.BeerMapper;
+import one.digitalinnovation.beerstock.repository.BeerRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+@Slf4j
+@SpringBootTest(properties =
+        "spring.datasource.url=jdbc:h2:mem:beerstock-concurrency;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+public class BeerServiceConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int INCREMENTS_PER_THREAD = 250;
+    private static final int TOTAL_INCREMENTS = THREADS * INCREMENTS_PER_THREAD;
+
+    @Autowired
+    private BeerService beerService;
+
+    @Autowired
+    private BeerRepository beerRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private InvalidationChannel invalidationChannel;
+
+    @Autowired
+    private StockEventLog stockEventLog;
+
+    @AfterEach
+    void tearDown() {
+        beerRepository.deleteAll();
+    }
+
+    @Test
+    void whenConcurrentIncrementsAreCalledOnOneBeerThenNoIncrementIsLost() throws Exception {
+        Beer hotBeer = saveBeer("Hot SKU", TOTAL_INCREMENTS);
+
+        AtomicInteger applied = new AtomicInteger();
+        AtomicInteger exceeded = new AtomicInteger();
+        long elapsedNanos = runConcurrently(() -> {
+            try {
+                beerService.increment(hotBeer.getId(), 1);
+                applied.incrementAndGet();
+            } catch (BeerStockExceededException e) {
+                exceeded.incrementAndGet();
+            }
+            return null;
+        });
+
+        assertThat(exceeded.get(), equalTo(0));
+        assertThat(applied.get(), equalTo(TOTAL_INCREMENTS));
+        assertThat(quantityOf(hotBeer), equalTo(TOTAL_INCREMENTS));
+        printThroughput("conditional update", elapsedNanos);
+    }
+
+    @Test
+    void whenConcurrentIncrementsExceedMaxThenStockStopsExactlyAtMax() throws Exception {
+        int max = TOTAL_INCREMENTS / 2;
+        Beer hotBeer = saveBeer("Capped SKU", max);
+
+        AtomicInteger applied = new AtomicInteger();
+        AtomicInteger exceeded = new AtomicInteger();
+        runConcurrently(() -> {
+            try {
+                beerService.increment(hotBeer.getId(), 1);
+                applied.incrementAndGet();
+            } catch (BeerStockExceededException e) {
+                exceeded.incrementAndGet();
+            }
+            return null;
+        });
+
+        assertThat(quantityOf(hotBeer), equalTo(max));
+        assertThat(applied.get(), equalTo(max));
+        assertThat(exceeded.get(), equalTo(TOTAL_INCREMENTS - max));
+    }
+
+    @Test
+    void whenTwoLedgersWithdrawTheSameUnitsThenOnlyTheSecondWithdrawalIsTurnedDownAndPutBack() throws Exception {
+        Beer sharedBeer = saveBeer("Shared SKU", 50, 10);
+        SimpleMeterRegistry secondNodeMeters = new SimpleMeterRegistry();
+        StockLedger firstNode = nodeLedger(new SimpleMeterRegistry());
+        StockLedger secondNode = nodeLedger(secondNodeMeters);
+
+        firstNode.withdraw(sharedBeer.getId(), 8);
+        secondNode.withdraw(sharedBeer.getId(), 8);
+        secondNode.deposit(sharedBeer.getId(), 1);
+        firstNode.flush();
+        secondNode.flush();
+
+        assertThat(quantityOf(sharedBeer), equalTo(3));
+        assertThat(secondNode.quantityOf(sharedBeer.getId()), equalTo(OptionalInt.of(11)));
+        assertThat(secondNodeMeters.get("beerstock.ledger.rejected-withdrawals").counter().count(), equalTo(8.0));
+    }
+
+    @Test
+    void whenDepositedUnitsAreWithdrawnBeforeTheFlushThenTheDatabaseKeepsTheNetChange() throws Exception {
+        Beer restockedBeer = saveBeer("Restocked SKU", 10, 0);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        StockLedger ledger = nodeLedger(meterRegistry);
+
+        ledger.deposit(restockedBeer.getId(), 5);
+        ledger.withdraw(restockedBeer.getId(), 3);
+        ledger.flush();
+
+        assertThat(quantityOf(restockedBeer), equalTo(2));
+        assertThat(ledger.quantityOf(restockedBeer.getId()), equalTo(OptionalInt.of(2)));
+        assertThat(meterRegistry.get("beerstock.ledger.rejected-withdrawals").counter().count(), equalTo(0.0));
+    }
+
+    /**
+     * The baseline the conditional update is compared with: the version check keeps read-modify-write from losing
+     * or over-applying increments silently, but it rejects the conflicting ones instead of applying them. Eight
+     * writers on one H2 row can keep the lock manager spinning for minutes on a single core, so it runs with the
+     * load tests.
+     */
+    @Test
+    @Tag("load")
+    void whenReadModifyWriteIncrementsRunConcurrentlyThenConflictingIncrementsAreRejected() throws Exception {
+        Beer hotBeer = saveBeer("Legacy SKU", TOTAL_INCREMENTS);
+
+        AtomicInteger applied = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        long elapsedNanos = runConcurrently(() -> {
+            try {
+                transactionTemplate.execute(status -> {
+                    Beer beer = beerRepository.findById(hotBeer.getId()).orElseThrow(IllegalStateException::new);
+                    if (beer.getQuantity() + 1 <= beer.getMax()) {
+                        beer.setQuantity(beer.getQuantity() + 1);
+                        beerRepository.save(beer);
+                    }
+                    return null;
+                });
+                applied.incrementAndGet();
+            } catch (ConcurrencyFailureException e) {
+                conflicts.incrementAndGet();
+            }
+            return null;
+        });
+
+        assertThat(quantityOf(hotBeer), equalTo(applied.get()));
+        assertThat(applied.get() + conflicts.get(), equalTo(TOTAL_INCREMENTS));
+        log.info("read-modify-write applied {} of {} increments ({} rejected by version check or lock timeout)",
+                applied.get(), TOTAL_INCREMENTS, conflicts.get());
+        printThroughput("read-modify-write", elapsedNanos);
+    }
+
+    private Beer saveBeer(String name, int max) {
+        return saveBeer(name, max, 0);
+    }
+
+    private Beer saveBeer(String name, int max, int quantity) {
+        BeerDTO beerDTO = BeerDTOBuilder.builder().id(null).name(name).max(max).quantity(quantity).build().toBeerDTO();
+        return beerRepository.save(BeerMapper.INSTANCE.toModel(beerDTO));
+    }
+
+    /**
+     * A second node's ledger over the same database, so both hand out units from their own counters.
+     */
+    private StockLedger nodeLedger(SimpleMeterRegistry meterRegistry) {
+        return new StockLedger(beerRepository, invalidationChannel, stockEventLog, transactionTemplate,
+                new CatalogVersion(), meterRegistry, true, StockWriteDurability.BUFFERED, 500);
+    }
+
+    private int quantityOf(Beer beer) {
+        return beerRepository.findById(beer.getId()).orElseThrow(IllegalStateException::new).getQuantity();
+    }
+
+    private long runConcurrently(Callable<Void> increment) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Void>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int thread = 0; thread < THREADS; thread++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < INCREMENTS_PER_THREAD; i++) {
+                    increment.call();
+                }
+                return null;
+            }));
+        }
+        for (Future<Void> future : futures) {
+            future.get();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        return elapsedNanos;
+    }
+
+    private void printThroughput(String path, long elapsedNanos) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        log.info("{}: {} increments on one SKU in {} s ({} ops/s)",
+                path, TOTAL_INCREMENTS, String.format("%.3f", seconds), String.format("%.0f", TOTAL_INCREMENTS / seconds));
+    }
+}
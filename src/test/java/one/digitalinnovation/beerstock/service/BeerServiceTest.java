@@ -1,11 +1,21 @@
 package one.digitalinnovation.beerstock.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import one.digitalinnovation.beerstock.builder.BeerDTOBuilder;
+import one.digitalinnovation.beerstock.cluster.BeerInvalidation;
+import one.digitalinnovation.beerstock.cluster.InvalidationChannel;
+import one.digitalinnovation.beerstock.dto.BatchItemResultDTO;
 import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.dto.BeerQuantityDTO;
+import one.digitalinnovation.beerstock.dto.BeerSearchDTO;
+import one.digitalinnovation.beerstock.dto.BeerSummaryDTO;
+import one.digitalinnovation.beerstock.dto.TaggedBeerDTO;
 import one.digitalinnovation.beerstock.entity.Beer;
+import one.digitalinnovation.beerstock.enums.StockEventType;
 import one.digitalinnovation.beerstock.exception.BeerAlreadyRegisteredException;
 import one.digitalinnovation.beerstock.exception.BeerNotFoundException;
 import one.digitalinnovation.beerstock.exception.BeerStockExceededException;
+import one.digitalinnovation.beerstock.exception.InvalidBeerFieldException;
 import one.digitalinnovation.beerstock.mapper.BeerMapper;
 import one.digitalinnovation.beerstock.repository.BeerRepository;
 import org.hamcrest.MatcherAssert;
@@ -15,11 +25,27 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.validation.Validator;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static org.hamcrest.MatcherAssert.*;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -31,6 +57,8 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.Mockito.*;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.times;
@@ -41,10 +69,50 @@ import static org.mockito.Mockito.when;
 public class BeerServiceTest {
 
     private static final long INVALID_BEER_ID = 1L;
+    private static final int PAGE_SIZE = 100;
 
     @Mock
     private BeerRepository beerRepository;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private StockLedger stockLedger;
+
+    @Mock
+    private StockEventLog stockEventLog;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private Validator validator;
+
+    @Mock
+    private InvalidationChannel invalidationChannel;
+
+    @Mock
+    private BeerNameIndex beerNameIndex;
+
+    @Mock
+    private ReorderIndex reorderIndex;
+
+    @Mock
+    private InventoryStats inventoryStats;
+
+    @Spy
+    private BeerCache beerCache = new BeerCache(100, Duration.ofMinutes(1), new SimpleMeterRegistry());
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private OptimisticRetry optimisticRetry = new OptimisticRetry(3, Duration.ZERO, Duration.ZERO, new SimpleMeterRegistry());
+
+    @Spy
+    private CatalogVersion catalogVersion = new CatalogVersion();
+
     private BeerMapper beerMapper = BeerMapper.INSTANCE;
 
     @InjectMocks
@@ -57,6 +125,7 @@ public class BeerServiceTest {
         Beer expectedSavedBeer = beerMapper.toModel(expectedBeerDTO);
 
         // when
+        runTransactionsInline();
         when(beerRepository.findByName(expectedBeerDTO.getName())).thenReturn(Optional.empty());
         when(beerRepository.save(expectedSavedBeer)).thenReturn(expectedSavedBeer);
 
@@ -66,6 +135,7 @@ public class BeerServiceTest {
         assertThat(createdBeerDTO.getId(), is(equalTo(expectedBeerDTO.getId())));
         assertThat(createdBeerDTO.getName(), is(equalTo(expectedBeerDTO.getName())));
         assertThat(createdBeerDTO.getQuantity(), is(equalTo(expectedBeerDTO.getQuantity())));
+        verify(stockEventLog).append(expectedBeerDTO.getId(), StockEventType.CREATED, expectedBeerDTO.getQuantity());
     }
 
     @Test
@@ -81,6 +151,53 @@ public class BeerServiceTest {
         assertThrows(BeerAlreadyRegisteredException.class, () -> beerService.createBeer(expectedBeerDTO));
     }
 
+    @Test
+    void whenBatchOfBeersInformedThenNewOnesAreCreatedAndDuplicatesAreReported() {
+        // given
+        BeerDTO newBeerDTO = BeerDTOBuilder.builder().id(null).name("Skol").build().toBeerDTO();
+        BeerDTO registeredBeerDTO = BeerDTOBuilder.builder().id(null).build().toBeerDTO();
+        BeerDTO repeatedBeerDTO = BeerDTOBuilder.builder().id(null).name("Skol").build().toBeerDTO();
+
+        // when
+        runTransactionsInline();
+        when(beerRepository.findByNameIn(anyCollection())).thenReturn(Collections.singletonList(beerMapper.toModel(registeredBeerDTO)));
+
+        // then
+        List<BatchItemResultDTO> results = beerService.createAll(Arrays.asList(newBeerDTO, registeredBeerDTO, repeatedBeerDTO));
+
+        assertThat(results.get(0).getStatus(), is(equalTo(HttpStatus.CREATED.value())));
+        assertThat(results.get(0).getBeer().getName(), is(equalTo(newBeerDTO.getName())));
+        assertThat(results.get(1).getStatus(), is(equalTo(HttpStatus.BAD_REQUEST.value())));
+        assertThat(results.get(2).getStatus(), is(equalTo(HttpStatus.BAD_REQUEST.value())));
+        verify(beerRepository, times(1)).findByNameIn(anyCollection());
+        verify(beerRepository, times(1)).saveAll(anyCollection());
+    }
+
+    @Test
+    void whenBatchChunkIsRejectedByTheDatabaseThenOnlyTheFailingBeerIsReported() {
+        // given
+        BeerDTO newBeerDTO = BeerDTOBuilder.builder().id(null).name("Skol").build().toBeerDTO();
+        BeerDTO conflictingBeerDTO = BeerDTOBuilder.builder().id(null).name("Conflicting").build().toBeerDTO();
+
+        // when
+        runTransactionsInline();
+        when(beerRepository.saveAll(anyCollection())).thenAnswer(invocation -> {
+            Collection<Beer> beers = invocation.getArgument(0);
+            if (beers.stream().anyMatch(beer -> beer.getName().equals(conflictingBeerDTO.getName()))) {
+                throw new DataIntegrityViolationException("unique constraint violated");
+            }
+            return new ArrayList<>(beers);
+        });
+
+        // then
+        List<BatchItemResultDTO> results = beerService.createAll(Arrays.asList(newBeerDTO, conflictingBeerDTO));
+
+        assertThat(results.get(0).getStatus(), is(equalTo(HttpStatus.CREATED.value())));
+        assertThat(results.get(1).getStatus(), is(equalTo(HttpStatus.CONFLICT.value())));
+        assertThat(results.get(1).getError(), is(equalTo("unique constraint violated")));
+        verify(beerRepository, times(3)).saveAll(anyCollection());
+    }
+
     @Test
     void whenValidBeerNameIsGivenThenReturnABeer() throws BeerNotFoundException {
         // given
@@ -96,6 +213,84 @@ public class BeerServiceTest {
         assertThat(foundBeerDTO, is(equalTo(expectedFoundBeerDTO)));
     }
 
+    @Test
+    void whenSameBeerNameIsGivenTwiceThenDatabaseIsQueriedOnce() throws BeerNotFoundException {
+        // given
+        BeerDTO expectedFoundBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        Beer expectedFoundBeer = beerMapper.toModel(expectedFoundBeerDTO);
+
+        // when
+        when(beerRepository.findByName(expectedFoundBeer.getName())).thenReturn(Optional.of(expectedFoundBeer));
+
+        // then
+        beerService.findByName(expectedFoundBeerDTO.getName());
+        BeerDTO foundBeerDTO = beerService.findByName(expectedFoundBeerDTO.getName());
+
+        assertThat(foundBeerDTO, is(equalTo(expectedFoundBeerDTO)));
+        assertThat(beerCache.stats().hitCount(), is(equalTo(1L)));
+        verify(beerRepository, times(1)).findByName(expectedFoundBeerDTO.getName());
+    }
+
+    @Test
+    void whenBeerIsIncrementedThenNextLookupByNameShowsNewQuantity() throws BeerNotFoundException, BeerStockExceededException {
+        // given
+        BeerDTO expectedFoundBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        Beer cachedBeer = beerMapper.toModel(expectedFoundBeerDTO);
+        Beer incrementedBeer = beerMapper.toModel(expectedFoundBeerDTO);
+        incrementedBeer.setQuantity(expectedFoundBeerDTO.getQuantity() + 10);
+        incrementedBeer.setVersion(cachedBeer.getVersion() + 1);
+
+        // when
+        when(beerRepository.findByName(expectedFoundBeerDTO.getName()))
+                .thenReturn(Optional.of(cachedBeer), Optional.of(incrementedBeer));
+        when(beerRepository.findById(expectedFoundBeerDTO.getId())).thenReturn(Optional.of(incrementedBeer));
+
+        // then
+        beerService.findByName(expectedFoundBeerDTO.getName());
+        beerService.increment(expectedFoundBeerDTO.getId(), 10);
+        BeerDTO foundBeerDTO = beerService.findByName(expectedFoundBeerDTO.getName());
+
+        assertThat(foundBeerDTO.getQuantity(), is(equalTo(incrementedBeer.getQuantity())));
+    }
+
+    @Test
+    void whenBeerStockChangesThenItsEntityTagChangesWithoutReloadingIt() throws BeerNotFoundException {
+        // given
+        BeerDTO expectedFoundBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        Beer expectedFoundBeer = beerMapper.toModel(expectedFoundBeerDTO);
+
+        // when
+        when(beerRepository.findByName(expectedFoundBeer.getName())).thenReturn(Optional.of(expectedFoundBeer));
+        when(stockLedger.quantityOf(expectedFoundBeer.getId()))
+                .thenReturn(OptionalInt.empty(), OptionalInt.empty(), OptionalInt.of(expectedFoundBeer.getQuantity() - 1));
+
+        // then
+        String entityTag = beerService.findTaggedByName(expectedFoundBeer.getName()).getEntityTag();
+        String unchangedEntityTag = beerService.findTaggedByName(expectedFoundBeer.getName()).getEntityTag();
+        TaggedBeerDTO withdrawnBeer = beerService.findTaggedByName(expectedFoundBeer.getName());
+
+        assertThat(unchangedEntityTag, is(equalTo(entityTag)));
+        assertThat(withdrawnBeer.getEntityTag(), is(not(equalTo(entityTag))));
+        assertThat(withdrawnBeer.getBeer().getQuantity(), is(equalTo(expectedFoundBeer.getQuantity() - 1)));
+        verify(beerRepository, times(1)).findByName(expectedFoundBeer.getName());
+    }
+
+    @Test
+    void whenBeerStockIsWithdrawnThenCatalogTagChanges() throws BeerNotFoundException, BeerStockExceededException {
+        // given
+        BeerDTO expectedBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        Beer expectedBeer = beerMapper.toModel(expectedBeerDTO);
+        String catalogTag = beerService.catalogTag();
+
+        // when
+        when(beerRepository.findById(expectedBeerDTO.getId())).thenReturn(Optional.of(expectedBeer));
+
+        // then
+        beerService.decrement(expectedBeerDTO.getId(), 1);
+
+        assertThat(beerService.catalogTag(), is(not(equalTo(catalogTag))));
+    }
+
     @Test
     void whenNotRegisteredBeerNameIsGivenThenThrowAnException() {
         // given
@@ -108,6 +303,47 @@ public class BeerServiceTest {
         assertThrows(BeerNotFoundException.class, () -> beerService.findByName(expectedFoundBeerDTO.getName()));
     }
 
+    @Test
+    void whenBeerLookupsAreTimedThenTheyAreTaggedByOutcome() throws BeerNotFoundException {
+        // given
+        BeerDTO expectedFoundBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        Beer expectedFoundBeer = beerMapper.toModel(expectedFoundBeerDTO);
+
+        // when
+        when(beerRepository.findByName(expectedFoundBeer.getName())).thenReturn(Optional.of(expectedFoundBeer));
+        when(beerRepository.findByName("Unknown")).thenReturn(Optional.empty());
+
+        // then
+        beerService.findByName(expectedFoundBeer.getName());
+        assertThrows(BeerNotFoundException.class, () -> beerService.findByName("Unknown"));
+
+        assertThat(meterRegistry.get("beerstock.service").tags("operation", "findByName", "outcome", "success").timer().count(), is(equalTo(1L)));
+        assertThat(meterRegistry.get("beerstock.service").tags("operation", "findByName", "outcome", "not-found").timer().count(), is(equalTo(1L)));
+    }
+
+    @Test
+    void whenSearchIsCalledThenLedgerQuantityIsShownOnMatchingBeers() throws InvalidBeerFieldException {
+        // given
+        BeerSearchDTO search = BeerSearchDTO.builder().lowStock(true).build();
+        List<String> fields = Arrays.asList("name", "quantity");
+        BeerSummaryDTO foundBeer = BeerSummaryDTO.builder().id(1L).name("Brahma").quantity(5).build();
+
+        // when
+        when(beerRepository.search(search, fields, 0L, PAGE_SIZE)).thenReturn(Collections.singletonList(foundBeer));
+        when(stockLedger.quantityOf(1L)).thenReturn(OptionalInt.of(3));
+
+        // then
+        List<BeerSummaryDTO> foundBeers = beerService.search(search, fields, null, PAGE_SIZE);
+
+        assertThat(foundBeers.get(0).getQuantity(), is(equalTo(3)));
+    }
+
+    @Test
+    void whenSearchIsCalledWithUnknownFieldThenThrowException() {
+        assertThrows(InvalidBeerFieldException.class, () -> beerService.search(new BeerSearchDTO(), Collections.singletonList("secret"), null, PAGE_SIZE));
+        verify(beerRepository, never()).search(any(), anyCollection(), anyLong(), anyInt());
+    }
+
     @Test
     void whenListBeerIsCalledThenReturnAListOfBeers() {
         // given
@@ -115,10 +351,11 @@ public class BeerServiceTest {
         Beer expectedFoundBeer = beerMapper.toModel(expectedFoundBeerDTO);
 
         //when
-        when(beerRepository.findAll()).thenReturn(Collections.singletonList(expectedFoundBeer));
+        when(beerRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, PAGE_SIZE)))
+                .thenReturn(Collections.singletonList(expectedFoundBeer));
 
         //then
-        List<BeerDTO> foundListBeersDTO = beerService.listAll();
+        List<BeerDTO> foundListBeersDTO = beerService.listAll(null, PAGE_SIZE);
 
         assertThat(foundListBeersDTO, is(not(empty())));
         assertThat(foundListBeersDTO.get(0), is(equalTo(expectedFoundBeerDTO)));
@@ -127,14 +364,48 @@ public class BeerServiceTest {
     @Test
     void whenListBeerIsCalledThenReturnAnEmptyListOfBeers() {
         //when
-        when(beerRepository.findAll()).thenReturn(Collections.EMPTY_LIST);
+        when(beerRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, PAGE_SIZE)))
+                .thenReturn(Collections.EMPTY_LIST);
 
         //then
-        List<BeerDTO> foundListBeersDTO = beerService.listAll();
+        List<BeerDTO> foundListBeersDTO = beerService.listAll(null, PAGE_SIZE);
 
         assertThat(foundListBeersDTO, is(empty()));
     }
 
+    @Test
+    void whenListBeerIsCalledWithCursorThenPageStartsAfterCursor() {
+        // given
+        BeerDTO expectedFoundBeerDTO = BeerDTOBuilder.builder().id(5L).build().toBeerDTO();
+        Beer expectedFoundBeer = beerMapper.toModel(expectedFoundBeerDTO);
+
+        //when
+        when(beerRepository.findByIdGreaterThanOrderByIdAsc(4L, PageRequest.of(0, BeerService.MAX_PAGE_SIZE)))
+                .thenReturn(Collections.singletonList(expectedFoundBeer));
+
+        //then
+        List<BeerDTO> foundListBeersDTO = beerService.listAll(4L, Integer.MAX_VALUE);
+
+        assertThat(foundListBeersDTO.get(0), is(equalTo(expectedFoundBeerDTO)));
+    }
+
+    @Test
+    void whenStreamAllIsCalledThenEveryBeerIsHandedToTheConsumer() {
+        // given
+        BeerDTO expectedFoundBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        Beer expectedFoundBeer = beerMapper.toModel(expectedFoundBeerDTO);
+        List<BeerDTO> streamedBeers = new ArrayList<>();
+
+        //when
+        when(beerRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(expectedFoundBeer));
+
+        //then
+        beerService.streamAll(streamedBeers::add);
+
+        assertThat(streamedBeers, contains(expectedFoundBeerDTO));
+        verify(entityManager).detach(expectedFoundBeer);
+    }
+
     @Test
     void whenExclusionIsCalledWithValidIdThenABeerShouldBeDeleted() throws BeerNotFoundException{
         // given
@@ -142,6 +413,7 @@ public class BeerServiceTest {
         Beer expectedDeletedBeer = beerMapper.toModel(expectedDeletedBeerDTO);
 
         // when
+        runTransactionsInline();
         when(beerRepository.findById(expectedDeletedBeerDTO.getId())).thenReturn(Optional.of(expectedDeletedBeer));
         doNothing().when(beerRepository).deleteById(expectedDeletedBeerDTO.getId());
 
@@ -150,6 +422,10 @@ public class BeerServiceTest {
 
         verify(beerRepository, times(1)).findById(expectedDeletedBeerDTO.getId());
         verify(beerRepository, times(1)).deleteById(expectedDeletedBeerDTO.getId());
+        verify(stockEventLog, times(1)).append(expectedDeletedBeerDTO.getId(), StockEventType.DELETED, 0);
+        verify(stockLedger, times(1)).evict(expectedDeletedBeerDTO.getId());
+        verify(beerNameIndex, times(1)).remove(expectedDeletedBeerDTO.getId());
+        verify(invalidationChannel, times(1)).publish(new BeerInvalidation(expectedDeletedBeerDTO.getId(), expectedDeletedBeerDTO.getName(), null));
     }
 
     @Test
@@ -158,100 +434,192 @@ public class BeerServiceTest {
         BeerDTO expectedBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
         Beer expectedBeer = beerMapper.toModel(expectedBeerDTO);
 
-        //when
-        when(beerRepository.findById(expectedBeerDTO.getId())).thenReturn(Optional.of(expectedBeer));
-        when(beerRepository.save(expectedBeer)).thenReturn(expectedBeer);
-
         int quantityToIncrement = 10;
         int expectedQuantityAfterIncrement = expectedBeerDTO.getQuantity() + quantityToIncrement;
+        expectedBeer.setQuantity(expectedQuantityAfterIncrement);
+
+        //when
+        when(beerRepository.findById(expectedBeerDTO.getId())).thenReturn(Optional.of(expectedBeer));
 
         // then
         BeerDTO incrementedBeerDTO = beerService.increment(expectedBeerDTO.getId(), quantityToIncrement);
 
+        verify(stockLedger).deposit(expectedBeerDTO.getId(), quantityToIncrement);
         assertThat(expectedQuantityAfterIncrement, equalTo(incrementedBeerDTO.getQuantity()));
         assertThat(expectedQuantityAfterIncrement, lessThan(expectedBeerDTO.getMax()));
     }
 
     @Test
-    void whenIncrementIsGreatherThanMaxThenThrowException() {
+    void whenIncrementIsGreatherThanMaxThenThrowException() throws BeerNotFoundException, BeerStockExceededException {
         BeerDTO expectedBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
-        Beer expectedBeer = beerMapper.toModel(expectedBeerDTO);
-
-        when(beerRepository.findById(expectedBeerDTO.getId())).thenReturn(Optional.of(expectedBeer));
 
         int quantityToIncrement = 80;
+        doThrow(BeerStockExceededException.class).when(stockLedger).deposit(expectedBeerDTO.getId(), quantityToIncrement);
+
         assertThrows(BeerStockExceededException.class, () -> beerService.increment(expectedBeerDTO.getId(), quantityToIncrement));
     }
 
     @Test
-    void whenIncrementAfterSumIsGreatherThanMaxThenThrowException() {
+    void whenIncrementAfterSumIsGreatherThanMaxThenThrowException() throws BeerNotFoundException, BeerStockExceededException {
         BeerDTO expectedBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
-        Beer expectedBeer = beerMapper.toModel(expectedBeerDTO);
-
-        when(beerRepository.findById(expectedBeerDTO.getId())).thenReturn(Optional.of(expectedBeer));
 
         int quantityToIncrement = 45;
+        doThrow(BeerStockExceededException.class).when(stockLedger).deposit(expectedBeerDTO.getId(), quantityToIncrement);
+
         assertThrows(BeerStockExceededException.class, () -> beerService.increment(expectedBeerDTO.getId(), quantityToIncrement));
     }
 
     @Test
-    void whenIncrementIsCalledWithInvalidIdThenThrowException() {
+    void whenIncrementIsCalledWithInvalidIdThenThrowException() throws BeerNotFoundException, BeerStockExceededException {
         int quantityToIncrement = 10;
 
-        when(beerRepository.findById(INVALID_BEER_ID)).thenReturn(Optional.empty());
+        doThrow(BeerNotFoundException.class).when(stockLedger).deposit(INVALID_BEER_ID, quantityToIncrement);
 
         assertThrows(BeerNotFoundException.class, () -> beerService.increment(INVALID_BEER_ID, quantityToIncrement));
     }
-//
-//    @Test
-//    void whenDecrementIsCalledThenDecrementBeerStock() throws BeerNotFoundException, BeerStockExceededException {
-//        BeerDTO expectedBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
-//        Beer expectedBeer = beerMapper.toModel(expectedBeerDTO);
-//
-//        when(beerRepository.findById(expectedBeerDTO.getId())).thenReturn(Optional.of(expectedBeer));
-//        when(beerRepository.save(expectedBeer)).thenReturn(expectedBeer);
-//
-//        int quantityToDecrement = 5;
-//        int expectedQuantityAfterDecrement = expectedBeerDTO.getQuantity() - quantityToDecrement;
-//        BeerDTO incrementedBeerDTO = beerService.decrement(expectedBeerDTO.getId(), quantityToDecrement);
-//
-//        assertThat(expectedQuantityAfterDecrement, equalTo(incrementedBeerDTO.getQuantity()));
-//        assertThat(expectedQuantityAfterDecrement, greaterThan(0));
-//    }
-//
-//    @Test
-//    void whenDecrementIsCalledToEmptyStockThenEmptyBeerStock() throws BeerNotFoundException, BeerStockExceededException {
-//        BeerDTO expectedBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
-//        Beer expectedBeer = beerMapper.toModel(expectedBeerDTO);
-//
-//        when(beerRepository.findById(expectedBeerDTO.getId())).thenReturn(Optional.of(expectedBeer));
-//        when(beerRepository.save(expectedBeer)).thenReturn(expectedBeer);
-//
-//        int quantityToDecrement = 10;
-//        int expectedQuantityAfterDecrement = expectedBeerDTO.getQuantity() - quantityToDecrement;
-//        BeerDTO incrementedBeerDTO = beerService.decrement(expectedBeerDTO.getId(), quantityToDecrement);
-//
-//        assertThat(expectedQuantityAfterDecrement, equalTo(0));
-//        assertThat(expectedQuantityAfterDecrement, equalTo(incrementedBeerDTO.getQuantity()));
-//    }
-//
-//    @Test
-//    void whenDecrementIsLowerThanZeroThenThrowException() {
-//        BeerDTO expectedBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
-//        Beer expectedBeer = beerMapper.toModel(expectedBeerDTO);
-//
-//        when(beerRepository.findById(expectedBeerDTO.getId())).thenReturn(Optional.of(expectedBeer));
-//
-//        int quantityToDecrement = 80;
-//        assertThrows(BeerStockExceededException.class, () -> beerService.decrement(expectedBeerDTO.getId(), quantityToDecrement));
-//    }
-//
-//    @Test
-//    void whenDecrementIsCalledWithInvalidIdThenThrowException() {
-//        int quantityToDecrement = 10;
-//
-//        when(beerRepository.findById(INVALID_BEER_ID)).thenReturn(Optional.empty());
-//
-//        assertThrows(BeerNotFoundException.class, () -> beerService.decrement(INVALID_BEER_ID, quantityToDecrement));
-//    }
+
+    @Test
+    void whenBatchIncrementIsCalledThenEachItemIsReportedOnItsOwn() {
+        // given
+        BeerDTO expectedBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        Beer expectedBeer = beerMapper.toModel(expectedBeerDTO);
+        BeerQuantityDTO validIncrement = new BeerQuantityDTO(expectedBeerDTO.getId(), 10);
+        BeerQuantityDTO exceedingIncrement = new BeerQuantityDTO(expectedBeerDTO.getId(), 45);
+        BeerQuantityDTO invalidIdIncrement = new BeerQuantityDTO(INVALID_BEER_ID + 1, 10);
+
+        // when
+        runTransactionsInline();
+        doAnswer(invocation -> ((Supplier<?>) invocation.getArgument(1)).get())
+                .when(stockLedger).depositAll(anyCollection(), any());
+        when(beerRepository.findAllById(anyCollection())).thenReturn(Collections.singletonList(expectedBeer));
+
+        // then
+        List<BatchItemResultDTO> results = beerService.incrementAll(Arrays.asList(validIncrement, exceedingIncrement, invalidIdIncrement));
+
+        assertThat(results.get(0).getStatus(), is(equalTo(HttpStatus.OK.value())));
+        assertThat(results.get(0).getBeer().getQuantity(), is(equalTo(expectedBeerDTO.getQuantity() + 10)));
+        assertThat(results.get(1).getStatus(), is(equalTo(HttpStatus.BAD_REQUEST.value())));
+        assertThat(results.get(2).getStatus(), is(equalTo(HttpStatus.NOT_FOUND.value())));
+        verify(stockEventLog, times(1)).append(expectedBeerDTO.getId(), StockEventType.INCREMENTED, 10);
+    }
+
+    @Test
+    void whenBatchIncrementHasANullItemThenOnlyThatItemIsRejected() {
+        // given
+        BeerDTO expectedBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        Beer expectedBeer = beerMapper.toModel(expectedBeerDTO);
+        BeerQuantityDTO validIncrement = new BeerQuantityDTO(expectedBeerDTO.getId(), 10);
+
+        // when
+        runTransactionsInline();
+        doAnswer(invocation -> ((Supplier<?>) invocation.getArgument(1)).get())
+                .when(stockLedger).depositAll(anyCollection(), any());
+        when(beerRepository.findAllById(anyCollection())).thenReturn(Collections.singletonList(expectedBeer));
+
+        // then
+        List<BatchItemResultDTO> results = beerService.incrementAll(Arrays.asList(null, validIncrement));
+
+        assertThat(results.get(0).getStatus(), is(equalTo(HttpStatus.BAD_REQUEST.value())));
+        assertThat(results.get(0).getError(), is(equalTo("item must not be null")));
+        assertThat(results.get(1).getStatus(), is(equalTo(HttpStatus.OK.value())));
+    }
+
+    @Test
+    void whenBatchIncrementConflictsWithAnotherWriterThenItIsRetried() {
+        // given
+        BeerDTO expectedBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        Beer staleBeer = beerMapper.toModel(expectedBeerDTO);
+        Beer freshBeer = beerMapper.toModel(expectedBeerDTO);
+        freshBeer.setQuantity(expectedBeerDTO.getQuantity() + 5);
+        freshBeer.setVersion(staleBeer.getVersion() + 1);
+        BeerQuantityDTO increment = new BeerQuantityDTO(expectedBeerDTO.getId(), 10);
+
+        // when
+        when(transactionTemplate.execute(any()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Beer.class, expectedBeerDTO.getId()))
+                .thenAnswer(invocation -> ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null));
+        doAnswer(invocation -> ((Supplier<?>) invocation.getArgument(1)).get())
+                .when(stockLedger).depositAll(anyCollection(), any());
+        when(beerRepository.findAllById(anyCollection())).thenReturn(Collections.singletonList(freshBeer));
+
+        // then
+        List<BatchItemResultDTO> results = beerService.incrementAll(Collections.singletonList(increment));
+
+        assertThat(results.get(0).getStatus(), is(equalTo(HttpStatus.OK.value())));
+        assertThat(results.get(0).getBeer().getQuantity(), is(equalTo(expectedBeerDTO.getQuantity() + 15)));
+        verify(transactionTemplate, times(2)).execute(any());
+        verify(stockLedger, times(2)).depositAll(anyCollection(), any());
+    }
+
+    @Test
+    void whenDecrementIsCalledThenDecrementBeerStock() throws BeerNotFoundException, BeerStockExceededException {
+        BeerDTO expectedBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        Beer expectedBeer = beerMapper.toModel(expectedBeerDTO);
+
+        int quantityToDecrement = 5;
+        int expectedQuantityAfterDecrement = expectedBeerDTO.getQuantity() - quantityToDecrement;
+
+        when(stockLedger.withdraw(expectedBeerDTO.getId(), quantityToDecrement)).thenReturn(expectedQuantityAfterDecrement);
+        when(stockLedger.quantityOf(expectedBeerDTO.getId())).thenReturn(OptionalInt.of(expectedQuantityAfterDecrement));
+        when(beerRepository.findById(expectedBeerDTO.getId())).thenReturn(Optional.of(expectedBeer));
+
+        BeerDTO decrementedBeerDTO = beerService.decrement(expectedBeerDTO.getId(), quantityToDecrement);
+
+        assertThat(expectedQuantityAfterDecrement, equalTo(decrementedBeerDTO.getQuantity()));
+        assertThat(expectedQuantityAfterDecrement, greaterThan(0));
+        verify(reorderIndex).put(expectedBeerDTO.getId(), expectedBeerDTO.getName(), expectedBeerDTO.getType(),
+                expectedBeerDTO.getMax(), expectedQuantityAfterDecrement);
+        verify(inventoryStats).put(expectedBeerDTO.getId(), expectedBeerDTO.getBrand(), expectedBeerDTO.getType(),
+                expectedBeerDTO.getMax(), expectedQuantityAfterDecrement);
+    }
+
+    @Test
+    void whenDecrementedBeerIsCachedThenItIsNotReadAgain() throws BeerNotFoundException, BeerStockExceededException {
+        // given
+        BeerDTO expectedBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        Beer expectedBeer = beerMapper.toModel(expectedBeerDTO);
+        int quantityToDecrement = 5;
+        int expectedQuantityAfterDecrement = expectedBeerDTO.getQuantity() - quantityToDecrement;
+
+        // when
+        when(beerRepository.findByName(expectedBeerDTO.getName())).thenReturn(Optional.of(expectedBeer));
+        when(beerNameIndex.nameOf(expectedBeerDTO.getId())).thenReturn(Optional.of(expectedBeerDTO.getName()));
+        when(stockLedger.withdraw(expectedBeerDTO.getId(), quantityToDecrement)).thenReturn(expectedQuantityAfterDecrement);
+
+        // then
+        beerService.findByName(expectedBeerDTO.getName());
+        BeerDTO decrementedBeerDTO = beerService.decrement(expectedBeerDTO.getId(), quantityToDecrement);
+
+        assertThat(decrementedBeerDTO.getQuantity(), is(equalTo(expectedQuantityAfterDecrement)));
+        assertThat(decrementedBeerDTO.getName(), is(equalTo(expectedBeerDTO.getName())));
+        verify(beerRepository, never()).findById(expectedBeerDTO.getId());
+        verify(inventoryStats).put(expectedBeerDTO.getId(), expectedBeerDTO.getBrand(), expectedBeerDTO.getType(),
+                expectedBeerDTO.getMax(), expectedQuantityAfterDecrement);
+    }
+
+    @Test
+    void whenDecrementIsLowerThanZeroThenThrowException() throws BeerNotFoundException, BeerStockExceededException {
+        BeerDTO expectedBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+
+        int quantityToDecrement = 80;
+        when(stockLedger.withdraw(expectedBeerDTO.getId(), quantityToDecrement)).thenThrow(BeerStockExceededException.class);
+
+        assertThrows(BeerStockExceededException.class, () -> beerService.decrement(expectedBeerDTO.getId(), quantityToDecrement));
+        assertThat(meterRegistry.get("beerstock.service").tags("operation", "decrement", "outcome", "stock-exceeded").timer().count(), is(equalTo(1L)));
+    }
+
+    @Test
+    void whenDecrementIsCalledWithInvalidIdThenThrowException() throws BeerNotFoundException, BeerStockExceededException {
+        int quantityToDecrement = 10;
+
+        when(stockLedger.withdraw(INVALID_BEER_ID, quantityToDecrement)).thenThrow(BeerNotFoundException.class);
+
+        assertThrows(BeerNotFoundException.class, () -> beerService.decrement(INVALID_BEER_ID, quantityToDecrement));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runTransactionsInline() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null));
+    }
 }
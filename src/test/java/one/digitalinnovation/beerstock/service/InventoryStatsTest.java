@@ -0,0 +1,164 @@
+package one.digitalinnovation.beerstock.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import one.digitalinnovation.beerstock.dto.BeerSummaryDTO;
+import one.digitalinnovation.beerstock.dto.InventoryStatsDTO;
+import one.digitalinnovation.beerstock.dto.StockTotalsDTO;
+import one.digitalinnovation.beerstock.entity.Beer;
+import one.digitalinnovation.beerstock.enums.BeerType;
+import one.digitalinnovation.beerstock.repository.BeerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class InventoryStatsTest {
+
+    @Mock
+    private BeerRepository beerRepository;
+
+    @Mock
+    private StockLedger stockLedger;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private InventoryStats inventoryStats;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        inventoryStats = new InventoryStats(beerRepository, stockLedger, meterRegistry);
+        when(stockLedger.quantityOf(anyLong())).thenReturn(OptionalInt.empty());
+    }
+
+    @Test
+    void whenBeersAreAddedThenTheyAreTotalledByTypeAndBrand() {
+        // when
+        inventoryStats.put(1L, "Ambev", BeerType.LAGER, 50, 10);
+        inventoryStats.put(2L, "Ambev", BeerType.MALZBIER, 100, 40);
+        inventoryStats.put(3L, "Heineken", BeerType.LAGER, 50, 50);
+
+        // then
+        InventoryStatsDTO stats = inventoryStats.stats();
+        assertThat(stats.getTotal(), is(equalTo(totals(3, 100, 200))));
+        assertThat(stats.getByType().get(BeerType.LAGER), is(equalTo(totals(2, 60, 100))));
+        assertThat(stats.getByType().get(BeerType.MALZBIER), is(equalTo(totals(1, 40, 100))));
+        assertThat(stats.getByBrand().get("Ambev"), is(equalTo(totals(2, 50, 150))));
+        assertThat(stats.getByBrand().keySet(), contains("Ambev", "Heineken"));
+    }
+
+    @Test
+    void whenStockChangesThenOnlyTheDifferenceIsApplied() {
+        // given
+        inventoryStats.put(1L, "Ambev", BeerType.LAGER, 50, 10);
+
+        // when
+        inventoryStats.put(1L, "Ambev", BeerType.LAGER, 50, 35);
+        inventoryStats.put(1L, "Ambev", BeerType.LAGER, 50, 30);
+
+        // then
+        assertThat(inventoryStats.stats().getTotal(), is(equalTo(totals(1, 30, 50))));
+    }
+
+    @Test
+    void whenLastBeerOfAGroupIsRemovedThenTheGroupIsDropped() {
+        // given
+        inventoryStats.put(1L, "Ambev", BeerType.LAGER, 50, 10);
+        inventoryStats.put(2L, "Heineken", BeerType.LAGER, 50, 20);
+
+        // when
+        inventoryStats.remove(1L);
+
+        // then
+        InventoryStatsDTO stats = inventoryStats.stats();
+        assertThat(stats.getByBrand().keySet(), contains("Heineken"));
+        assertThat(stats.getByType().get(BeerType.LAGER), is(equalTo(totals(1, 20, 50))));
+    }
+
+    @Test
+    void whenLedgerHoldsNewerQuantityThenItIsTotalled() {
+        // given
+        when(stockLedger.quantityOf(1L)).thenReturn(OptionalInt.of(4));
+
+        // when
+        inventoryStats.put(1L, "Ambev", BeerType.LAGER, 50, 30);
+
+        // then
+        assertThat(inventoryStats.stats().getTotal().getQuantity(), is(equalTo(4L)));
+    }
+
+    @Test
+    void whenBeerChangedOnAnotherNodeThenItIsReloaded() {
+        // given
+        inventoryStats.put(1L, "Ambev", BeerType.LAGER, 50, 30);
+        inventoryStats.put(2L, "Heineken", BeerType.LAGER, 50, 5);
+        when(beerRepository.findById(1L)).thenReturn(Optional.of(new Beer(1L, "Brahma", "Ambev", 50, 2, BeerType.LAGER, 4L)));
+        when(beerRepository.findById(2L)).thenReturn(Optional.empty());
+
+        // when
+        inventoryStats.refresh(1L);
+        inventoryStats.refresh(2L);
+
+        // then
+        assertThat(inventoryStats.stats().getTotal(), is(equalTo(totals(1, 2, 50))));
+    }
+
+    @Test
+    void whenTotalsDriftedFromTheDatabaseThenReconcileRepairsThem() {
+        // given
+        inventoryStats.put(1L, "Ambev", BeerType.LAGER, 50, 30);
+        inventoryStats.put(2L, "Heineken", BeerType.LAGER, 50, 5);
+        when(beerRepository.search(any(), any(), anyLong(), anyInt())).thenReturn(Arrays.asList(
+                new BeerSummaryDTO(1L, null, "Ambev", 50, 12, BeerType.LAGER),
+                new BeerSummaryDTO(3L, null, "Eisenbahn", 40, 40, BeerType.WEISS)));
+
+        // when
+        inventoryStats.reconcile();
+
+        // then
+        InventoryStatsDTO stats = inventoryStats.stats();
+        assertThat(stats.getTotal(), is(equalTo(totals(2, 52, 90))));
+        assertThat(stats.getByBrand().keySet(), contains("Ambev", "Eisenbahn"));
+        assertThat(meterRegistry.counter("beerstock.stats.reconciled").count(), is(equalTo(3.0)));
+    }
+
+    @Test
+    void whenDatabaseMatchesThenReconcileCountsNoDrift() {
+        // given
+        inventoryStats.put(1L, "Ambev", BeerType.LAGER, 50, 30);
+        when(beerRepository.search(any(), any(), anyLong(), anyInt()))
+                .thenReturn(Collections.singletonList(new BeerSummaryDTO(1L, null, "Ambev", 50, 30, BeerType.LAGER)));
+
+        // when
+        inventoryStats.reconcile();
+
+        // then
+        assertThat(inventoryStats.stats().getTotal(), is(equalTo(totals(1, 30, 50))));
+        assertThat(meterRegistry.counter("beerstock.stats.reconciled").count(), is(equalTo(0.0)));
+    }
+
+    private static StockTotalsDTO totals(long skus, long quantity, long capacity) {
+        return StockTotalsDTO.builder()
+                .skus(skus)
+                .quantity(quantity)
+                .capacity(capacity)
+                .utilization((double) quantity / capacity)
+                .build();
+    }
+}
@@ -0,0 +1,69 @@
+package one.digitalinnovation.beerstock.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import one.digitalinnovation.beerstock.entity.Beer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class OptimisticRetryTest {
+
+    private static final long BEER_ID = 1L;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private OptimisticRetry optimisticRetry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        optimisticRetry = new OptimisticRetry(3, Duration.ofMillis(1), Duration.ofMillis(2), meterRegistry);
+    }
+
+    @Test
+    void whenAttemptConflictsOnceThenItIsRetriedAndConflictIsCounted() {
+        // given
+        AtomicInteger attempts = new AtomicInteger();
+
+        // when
+        String result = optimisticRetry.execute("increment", () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw conflict();
+            }
+            return "done";
+        });
+
+        // then
+        assertThat(result, is(equalTo("done")));
+        assertThat(attempts.get(), is(equalTo(2)));
+        assertThat(meterRegistry.counter("beerstock.stock.conflicts", "operation", "increment", "beer", "1").count(), is(equalTo(1.0)));
+        assertThat(meterRegistry.counter("beerstock.stock.retries", "operation", "increment").count(), is(equalTo(1.0)));
+    }
+
+    @Test
+    void whenEveryAttemptConflictsThenLastConflictIsThrown() {
+        // given
+        AtomicInteger attempts = new AtomicInteger();
+
+        // then
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> optimisticRetry.execute("increment", () -> {
+            attempts.incrementAndGet();
+            throw conflict();
+        }));
+        assertThat(attempts.get(), is(equalTo(3)));
+        assertThat(meterRegistry.counter("beerstock.stock.conflicts", "operation", "increment", "beer", "1").count(), is(equalTo(3.0)));
+        assertThat(meterRegistry.counter("beerstock.stock.retries", "operation", "increment").count(), is(equalTo(2.0)));
+    }
+
+    private ObjectOptimisticLockingFailureException conflict() {
+        return new ObjectOptimisticLockingFailureException(Beer.class, BEER_ID);
+    }
+}
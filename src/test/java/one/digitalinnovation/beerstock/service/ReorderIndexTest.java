@@ -0,0 +1,154 @@
+package one.digitalinnovation.beerstock.service;
+
+import one.digitalinnovation.beerstock.dto.ReorderSuggestionDTO;
+import one.digitalinnovation.beerstock.entity.Beer;
+import one.digitalinnovation.beerstock.enums.BeerType;
+import one.digitalinnovation.beerstock.repository.BeerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ReorderIndexTest {
+
+    @Mock
+    private BeerRepository beerRepository;
+
+    @Mock
+    private StockLedger stockLedger;
+
+    private ReorderThresholds reorderThresholds;
+
+    private ReorderIndex reorderIndex;
+
+    @BeforeEach
+    void setUp() {
+        reorderThresholds = new ReorderThresholds();
+        reorderIndex = new ReorderIndex(beerRepository, stockLedger, reorderThresholds);
+        when(stockLedger.quantityOf(anyLong())).thenReturn(OptionalInt.empty());
+    }
+
+    @Test
+    void whenBeersAreAtOrBelowTheirReorderPointThenTheyAreListedEmptiestFirst() {
+        // when
+        reorderIndex.load(1L, "Brahma", BeerType.LAGER, 50, 10);
+        reorderIndex.load(2L, "Skol", BeerType.LAGER, 100, 5);
+        reorderIndex.load(3L, "Colorado Indica", BeerType.IPA, 100, 21);
+        reorderIndex.load(4L, "Guinness", BeerType.STOUT, 10, 0);
+
+        // then
+        List<ReorderSuggestionDTO> lowStock = reorderIndex.lowStock(10);
+        assertThat(namesOf(lowStock), contains("Guinness", "Skol", "Brahma"));
+        assertThat(lowStock.get(1).getReorderPoint(), is(equalTo(20)));
+        assertThat(lowStock.get(1).getReorderQuantity(), is(equalTo(95)));
+        assertThat(namesOf(reorderIndex.lowStock(1)), contains("Guinness"));
+    }
+
+    @Test
+    void whenThresholdIsSetForTypeOrBeerThenItOverridesTheDefault() {
+        // given
+        reorderThresholds.getTypeThresholdPercent().put(BeerType.IPA, 30);
+        reorderThresholds.getBeerThresholdPercent().put("Brahma", 5);
+
+        // when
+        reorderIndex.load(1L, "Brahma", BeerType.LAGER, 50, 10);
+        reorderIndex.load(3L, "Colorado Indica", BeerType.IPA, 100, 21);
+
+        // then
+        assertThat(namesOf(reorderIndex.lowStock(10)), contains("Colorado Indica"));
+    }
+
+    @Test
+    void whenChangeMakesBeerRunLowThenItIsQueuedOnce() {
+        // given
+        reorderIndex.load(1L, "Brahma", BeerType.LAGER, 50, 30);
+
+        // when
+        reorderIndex.put(1L, "Brahma", BeerType.LAGER, 50, 10);
+        reorderIndex.put(1L, "Brahma", BeerType.LAGER, 50, 5);
+
+        // then
+        List<ReorderSuggestionDTO> runLow = reorderIndex.takeRunLow();
+        assertThat(namesOf(runLow), contains("Brahma"));
+        assertThat(runLow.get(0).getQuantity(), is(equalTo(5)));
+        assertThat(reorderIndex.takeRunLow(), is(empty()));
+    }
+
+    @Test
+    void whenBeerIsRestockedBeforeTheJobRunsThenItIsNotQueued() {
+        // given
+        reorderIndex.load(1L, "Brahma", BeerType.LAGER, 50, 30);
+        reorderIndex.put(1L, "Brahma", BeerType.LAGER, 50, 10);
+
+        // when
+        reorderIndex.put(1L, "Brahma", BeerType.LAGER, 50, 40);
+
+        // then
+        assertThat(reorderIndex.takeRunLow(), is(empty()));
+        assertThat(reorderIndex.lowStock(10), is(empty()));
+    }
+
+    @Test
+    void whenLedgerHoldsNewerQuantityThenItIsRecorded() {
+        // given
+        when(stockLedger.quantityOf(1L)).thenReturn(OptionalInt.of(4));
+
+        // when
+        reorderIndex.put(1L, "Brahma", BeerType.LAGER, 50, 30);
+
+        // then
+        assertThat(reorderIndex.lowStock(10).get(0).getQuantity(), is(equalTo(4)));
+    }
+
+    @Test
+    void whenBeerChangedOnAnotherNodeThenItIsReloadedWithoutBeingQueued() {
+        // given
+        reorderIndex.load(1L, "Brahma", BeerType.LAGER, 50, 30);
+        reorderIndex.load(2L, "Skol", BeerType.LAGER, 50, 5);
+        when(beerRepository.findById(1L)).thenReturn(Optional.of(new Beer(1L, "Brahma", "Ambev", 50, 2, BeerType.LAGER, 4L)));
+        when(beerRepository.findById(2L)).thenReturn(Optional.empty());
+
+        // when
+        reorderIndex.refresh(1L);
+        reorderIndex.refresh(2L);
+
+        // then
+        assertThat(namesOf(reorderIndex.lowStock(10)), contains("Brahma"));
+        assertThat(reorderIndex.takeRunLow(), is(empty()));
+    }
+
+    @Test
+    void whenBeerIsRemovedThenItIsNeitherListedNorQueued() {
+        // given
+        reorderIndex.put(1L, "Brahma", BeerType.LAGER, 50, 5);
+
+        // when
+        reorderIndex.remove(1L);
+
+        // then
+        assertThat(reorderIndex.lowStock(10), is(empty()));
+        assertThat(reorderIndex.takeRunLow(), is(empty()));
+        assertThat(reorderIndex.lowStockCount(), is(equalTo(0)));
+    }
+
+    private static List<String> namesOf(List<ReorderSuggestionDTO> suggestions) {
+        return suggestions.stream()
+                .map(ReorderSuggestionDTO::getName)
+                .collect(Collectors.toList());
+    }
+}
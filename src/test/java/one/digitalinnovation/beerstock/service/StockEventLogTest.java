@@ -0,0 +1,108 @@
+package one.digitalinnovation.beerstock.service;
+
+import one.digitalinnovation.beerstock.builder.BeerDTOBuilder;
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.dto.StockEventDTO;
+import one.digitalinnovation.beerstock.enums.StockEventType;
+import one.digitalinnovation.beerstock.exception.BeerStockExceededException;
+import one.digitalinnovation.beerstock.repository.BeerRepository;
+import one.digitalinnovation.beerstock.repository.StockEventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties =
+        "spring.datasource.url=jdbc:h2:mem:beerstock-event-log;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+public class StockEventLogTest {
+
+    @Autowired
+    private BeerService beerService;
+
+    @Autowired
+    private StockEventLog stockEventLog;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Autowired
+    private BeerRepository beerRepository;
+
+    @Autowired
+    private StockEventRepository stockEventRepository;
+
+    private long since;
+
+    @BeforeEach
+    void setUp() {
+        stockEventLog.sequence();
+        since = stockEventRepository.maxOffset();
+    }
+
+    @AfterEach
+    void tearDown() {
+        beerRepository.deleteAll();
+    }
+
+    @Test
+    void whenStockChangesThenOneEventPerCommittedChangeIsLoggedInOrder() throws Exception {
+        // given
+        BeerDTO beerDTO = beerService.createBeer(BeerDTOBuilder.builder().id(null).name("Event SKU").max(50).quantity(10).build().toBeerDTO());
+
+        // when
+        beerService.increment(beerDTO.getId(), 5);
+        assertThrows(BeerStockExceededException.class, () -> beerService.increment(beerDTO.getId(), 100));
+        beerService.decrement(beerDTO.getId(), 5);
+        stockLedger.flush();
+        beerService.deleteById(beerDTO.getId());
+
+        // then
+        List<StockEventDTO> events = eventsOf(beerDTO.getId(), 4);
+        assertThat(events.stream().map(StockEventDTO::getType).collect(Collectors.toList()),
+                contains(StockEventType.CREATED, StockEventType.INCREMENTED, StockEventType.DECREMENTED, StockEventType.DELETED));
+        assertThat(events.stream().map(StockEventDTO::getDelta).collect(Collectors.toList()), contains(10, 5, -5, 0));
+        assertThat(events.stream().map(StockEventDTO::getQuantity).collect(Collectors.toList()), contains(10, 15, 10, 10));
+        assertThat(events.get(1).getBeerVersion(), is(equalTo(events.get(0).getBeerVersion() + 1)));
+    }
+
+    @Test
+    void whenPollIsWaitingThenItCompletesWithTheNextChange() throws Exception {
+        // given
+        CompletableFuture<List<StockEventDTO>> poll = stockEventLog.poll(since, 100);
+
+        // when
+        BeerDTO beerDTO = beerService.createBeer(BeerDTOBuilder.builder().id(null).name("Polled SKU").build().toBeerDTO());
+
+        // then
+        List<StockEventDTO> events = poll.get(5, TimeUnit.SECONDS);
+        assertThat(events.get(0).getOffset(), is(equalTo(since + 1)));
+        assertThat(eventsOf(beerDTO.getId(), 1).get(0).getType(), is(equalTo(StockEventType.CREATED)));
+    }
+
+    private List<StockEventDTO> eventsOf(Long beerId, int expected) throws Exception {
+        List<StockEventDTO> events = new ArrayList<>();
+        long offset = since;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (events.size() < expected && System.nanoTime() < deadline) {
+            List<StockEventDTO> page = stockEventLog.poll(offset, 100).get(5, TimeUnit.SECONDS);
+            offset = page.get(page.size() - 1).getOffset();
+            page.stream()
+                    .filter(event -> event.getBeerId().equals(beerId))
+                    .forEach(events::add);
+        }
+        return events;
+    }
+}
@@ -0,0 +1,337 @@
+package one.digitalinnovation.beerstock.service;
+
+import one.digitalinnovation.beerstock.builder.BeerDTOBuilder;
+import one.digitalinnovation.beerstock.cluster.BeerInvalidation;
+import one.digitalinnovation.beerstock.cluster.InvalidationChannel;
+import one.digitalinnovation.beerstock.entity.Beer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import one.digitalinnovation.beerstock.enums.StockEventType;
+import one.digitalinnovation.beerstock.enums.StockWriteDurability;
+import one.digitalinnovation.beerstock.exception.BeerNotFoundException;
+import one.digitalinnovation.beerstock.exception.BeerStockExceededException;
+import one.digitalinnovation.beerstock.mapper.BeerMapper;
+import one.digitalinnovation.beerstock.repository.BeerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class StockLedgerTest {
+
+    private static final long VALID_BEER_ID = 1L;
+    private static final long INVALID_BEER_ID = 2L;
+
+    @Mock
+    private BeerRepository beerRepository;
+
+    @Mock
+    private InvalidationChannel invalidationChannel;
+
+    @Mock
+    private StockEventLog stockEventLog;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private StockLedger stockLedger;
+
+    private Beer beer;
+
+    @BeforeEach
+    void setUp() {
+        stockLedger = ledger(false, StockWriteDurability.FLUSHED, 500);
+        beer = BeerMapper.INSTANCE.toModel(BeerDTOBuilder.builder().build().toBeerDTO());
+    }
+
+    @Test
+    void whenWithdrawIsCalledThenStockIsTakenFromTheLoadedCounter() throws Exception {
+        when(beerRepository.findById(VALID_BEER_ID)).thenReturn(Optional.of(beer));
+
+        int quantityAfterWithdraw = stockLedger.withdraw(VALID_BEER_ID, 4);
+
+        assertThat(quantityAfterWithdraw, is(equalTo(6)));
+        assertThat(stockLedger.quantityOf(VALID_BEER_ID), is(equalTo(OptionalInt.of(6))));
+        verify(beerRepository, never()).decrementQuantity(anyLong(), anyInt());
+    }
+
+    @Test
+    void whenWithdrawIsGreaterThanStockThenThrowException() {
+        when(beerRepository.findById(VALID_BEER_ID)).thenReturn(Optional.of(beer));
+
+        assertThrows(BeerStockExceededException.class, () -> stockLedger.withdraw(VALID_BEER_ID, 11));
+    }
+
+    @Test
+    void whenWithdrawIsCalledWithInvalidIdThenThrowException() {
+        when(beerRepository.findById(INVALID_BEER_ID)).thenReturn(Optional.empty());
+
+        assertThrows(BeerNotFoundException.class, () -> stockLedger.withdraw(INVALID_BEER_ID, 1));
+    }
+
+    @Test
+    void whenFlushIsCalledThenWithdrawalsAreWrittenAsOneUpdate() throws Exception {
+        when(beerRepository.findById(VALID_BEER_ID)).thenReturn(Optional.of(beer));
+        when(beerRepository.decrementQuantity(VALID_BEER_ID, 5)).thenReturn(1);
+
+        stockLedger.withdraw(VALID_BEER_ID, 2);
+        stockLedger.withdraw(VALID_BEER_ID, 3);
+        stockLedger.flush();
+        stockLedger.flush();
+
+        verify(beerRepository).decrementQuantity(VALID_BEER_ID, 5);
+        verify(stockEventLog).append(VALID_BEER_ID, StockEventType.DECREMENTED, -5);
+        verify(invalidationChannel).publish(BeerInvalidation.ofStock(VALID_BEER_ID, beer.getName()));
+    }
+
+    @Test
+    void whenRefreshIsCalledThenPendingWithdrawalsAreFlushedAndCounterIsReloaded() throws Exception {
+        Beer changedBeer = BeerMapper.INSTANCE.toModel(BeerDTOBuilder.builder().quantity(30).build().toBeerDTO());
+        when(beerRepository.findById(VALID_BEER_ID)).thenReturn(Optional.of(beer), Optional.of(changedBeer));
+        when(beerRepository.decrementQuantity(VALID_BEER_ID, 2)).thenReturn(1);
+
+        stockLedger.withdraw(VALID_BEER_ID, 2);
+        stockLedger.refresh(VALID_BEER_ID);
+
+        assertThat(stockLedger.quantityOf(VALID_BEER_ID), is(equalTo(OptionalInt.empty())));
+        verify(beerRepository).decrementQuantity(VALID_BEER_ID, 2);
+        assertThat(stockLedger.withdraw(VALID_BEER_ID, 2), is(equalTo(28)));
+    }
+
+    @Test
+    void whenDepositIsCalledThenPendingWithdrawalsAreFlushedBeforeIncrementing() throws Exception {
+        when(beerRepository.findById(VALID_BEER_ID)).thenReturn(Optional.of(beer));
+        when(beerRepository.decrementQuantity(VALID_BEER_ID, 4)).thenReturn(1);
+        when(beerRepository.incrementQuantity(VALID_BEER_ID, 30)).thenReturn(1);
+
+        stockLedger.withdraw(VALID_BEER_ID, 4);
+        stockLedger.deposit(VALID_BEER_ID, 30);
+
+        InOrder inOrder = inOrder(beerRepository, stockEventLog);
+        inOrder.verify(beerRepository).decrementQuantity(VALID_BEER_ID, 4);
+        inOrder.verify(stockEventLog).append(VALID_BEER_ID, StockEventType.DECREMENTED, -4);
+        inOrder.verify(beerRepository).incrementQuantity(VALID_BEER_ID, 30);
+        inOrder.verify(stockEventLog).append(VALID_BEER_ID, StockEventType.INCREMENTED, 30);
+        assertThat(stockLedger.quantityOf(VALID_BEER_ID), is(equalTo(OptionalInt.of(36))));
+    }
+
+    @Test
+    void whenDepositAfterSumIsGreaterThanMaxThenThrowException() {
+        when(beerRepository.incrementQuantity(VALID_BEER_ID, 45)).thenReturn(0);
+        when(beerRepository.existsById(VALID_BEER_ID)).thenReturn(true);
+
+        assertThrows(BeerStockExceededException.class, () -> stockLedger.deposit(VALID_BEER_ID, 45));
+        verify(stockEventLog, never()).append(anyLong(), any(), anyInt());
+    }
+
+    @Test
+    void whenDepositIsCalledWithInvalidIdThenThrowException() {
+        when(beerRepository.incrementQuantity(INVALID_BEER_ID, 10)).thenReturn(0);
+        when(beerRepository.existsById(INVALID_BEER_ID)).thenReturn(false);
+
+        assertThrows(BeerNotFoundException.class, () -> stockLedger.deposit(INVALID_BEER_ID, 10));
+    }
+
+    @Test
+    void whenConcurrentWithdrawalsAreCalledThenStockIsNeverOversold() throws Exception {
+        beer.setQuantity(1000);
+        when(beerRepository.findById(VALID_BEER_ID)).thenReturn(Optional.of(beer));
+
+        AtomicInteger succeeded = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 200; i++) {
+                    try {
+                        stockLedger.withdraw(VALID_BEER_ID, 1);
+                        succeeded.incrementAndGet();
+                    } catch (BeerStockExceededException | BeerNotFoundException ignored) {
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertThat(succeeded.get(), is(equalTo(1000)));
+        assertThat(stockLedger.quantityOf(VALID_BEER_ID), is(equalTo(OptionalInt.of(0))));
+    }
+
+    @Test
+    void whenWriteBehindDepositsAreFlushedThenTheyAreWrittenAsOneIncrement() throws Exception {
+        // given
+        stockLedger = ledger(true, StockWriteDurability.BUFFERED, 500);
+        when(beerRepository.findById(VALID_BEER_ID)).thenReturn(Optional.of(beer));
+        when(beerRepository.incrementQuantity(VALID_BEER_ID, 12)).thenReturn(1);
+
+        // when
+        stockLedger.deposit(VALID_BEER_ID, 5);
+        stockLedger.deposit(VALID_BEER_ID, 7);
+
+        // then
+        assertThat(stockLedger.quantityOf(VALID_BEER_ID), is(equalTo(OptionalInt.of(22))));
+        verify(beerRepository, never()).incrementQuantity(anyLong(), anyInt());
+        assertThat(meterRegistry.get("beerstock.ledger.pending").gauge().value(), is(equalTo(2.0)));
+
+        stockLedger.flush();
+
+        verify(beerRepository).incrementQuantity(VALID_BEER_ID, 12);
+        verify(stockEventLog).append(VALID_BEER_ID, StockEventType.INCREMENTED, 12);
+        verify(invalidationChannel).publish(BeerInvalidation.ofStock(VALID_BEER_ID, beer.getName()));
+        assertThat(meterRegistry.get("beerstock.ledger.pending").gauge().value(), is(equalTo(0.0)));
+        assertThat(meterRegistry.get("beerstock.ledger.flush").timer().count(), is(equalTo(1L)));
+    }
+
+    @Test
+    void whenWriteBehindDepositExceedsMaxThenItIsRejectedWithoutTouchingTheDatabase() {
+        // given
+        stockLedger = ledger(true, StockWriteDurability.BUFFERED, 500);
+        when(beerRepository.findById(VALID_BEER_ID)).thenReturn(Optional.of(beer));
+
+        // then
+        assertThrows(BeerStockExceededException.class, () -> stockLedger.deposit(VALID_BEER_ID, 41));
+        stockLedger.flush();
+        verify(beerRepository, never()).incrementQuantity(anyLong(), anyInt());
+    }
+
+    @Test
+    void whenWriteBehindQueueIsFullThenTheDepositFlushesIt() throws Exception {
+        // given
+        stockLedger = ledger(true, StockWriteDurability.BUFFERED, 2);
+        when(beerRepository.findById(VALID_BEER_ID)).thenReturn(Optional.of(beer));
+        when(beerRepository.incrementQuantity(VALID_BEER_ID, 3)).thenReturn(1);
+
+        // when
+        stockLedger.deposit(VALID_BEER_ID, 1);
+        stockLedger.deposit(VALID_BEER_ID, 2);
+
+        // then
+        verify(beerRepository).incrementQuantity(VALID_BEER_ID, 3);
+    }
+
+    @Test
+    void whenFlushedDurabilityIsUsedThenDepositReturnsOnlyAfterItsFlush() throws Exception {
+        // given
+        stockLedger = ledger(true, StockWriteDurability.FLUSHED, 500);
+        when(beerRepository.findById(VALID_BEER_ID)).thenReturn(Optional.of(beer));
+        when(beerRepository.incrementQuantity(VALID_BEER_ID, 5)).thenReturn(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        // when
+        Future<?> deposit = executor.submit(() -> {
+            stockLedger.deposit(VALID_BEER_ID, 5);
+            return null;
+        });
+        while (stockLedger.quantityOf(VALID_BEER_ID).orElse(0) != 15) {
+            Thread.sleep(1);
+        }
+
+        // then
+        assertThat(deposit.isDone(), is(false));
+        stockLedger.flush();
+        deposit.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+        verify(beerRepository).incrementQuantity(VALID_BEER_ID, 5);
+    }
+
+    @Test
+    void whenDatabaseTurnsDownFlushedDepositThenItIsTakenBackAndReported() throws Exception {
+        // given
+        stockLedger = ledger(true, StockWriteDurability.BUFFERED, 500);
+        when(beerRepository.findById(VALID_BEER_ID)).thenReturn(Optional.of(beer));
+        when(beerRepository.incrementQuantity(VALID_BEER_ID, 5)).thenReturn(0);
+        when(beerRepository.existsById(VALID_BEER_ID)).thenReturn(true);
+
+        // when
+        stockLedger.deposit(VALID_BEER_ID, 5);
+        stockLedger.flush();
+
+        // then
+        assertThat(stockLedger.quantityOf(VALID_BEER_ID), is(equalTo(OptionalInt.of(10))));
+        assertThat(meterRegistry.get("beerstock.ledger.rejected").counter().count(), is(equalTo(1.0)));
+        verify(stockEventLog, never()).append(anyLong(), any(), anyInt());
+    }
+
+    @Test
+    void whenDatabaseTurnsDownFlushedWithdrawalThenOnlyItIsPutBack() throws Exception {
+        // given
+        stockLedger = ledger(true, StockWriteDurability.BUFFERED, 500);
+        when(beerRepository.findById(VALID_BEER_ID)).thenReturn(Optional.of(beer));
+        when(beerRepository.incrementQuantity(VALID_BEER_ID, 2)).thenReturn(1);
+        when(beerRepository.decrementQuantity(VALID_BEER_ID, 4)).thenReturn(0);
+        when(beerRepository.existsById(VALID_BEER_ID)).thenReturn(true);
+
+        // when
+        stockLedger.withdraw(VALID_BEER_ID, 4);
+        stockLedger.deposit(VALID_BEER_ID, 2);
+        stockLedger.flush();
+
+        // then
+        assertThat(stockLedger.quantityOf(VALID_BEER_ID), is(equalTo(OptionalInt.of(12))));
+        assertThat(meterRegistry.get("beerstock.ledger.rejected-withdrawals").counter().count(), is(equalTo(4.0)));
+        assertThat(meterRegistry.get("beerstock.ledger.rejected").counter().count(), is(equalTo(0.0)));
+        verify(stockEventLog).append(VALID_BEER_ID, StockEventType.INCREMENTED, 2);
+        verify(stockEventLog, never()).append(VALID_BEER_ID, StockEventType.DECREMENTED, -4);
+        verify(invalidationChannel).publish(BeerInvalidation.ofStock(VALID_BEER_ID, beer.getName()));
+    }
+
+    @Test
+    void whenDepositedUnitsAreWithdrawnBeforeTheFlushThenTheNetChangeIsWritten() throws Exception {
+        // given
+        stockLedger = ledger(true, StockWriteDurability.BUFFERED, 500);
+        beer.setQuantity(0);
+        beer.setMax(10);
+        when(beerRepository.findById(VALID_BEER_ID)).thenReturn(Optional.of(beer));
+        when(beerRepository.adjustQuantity(VALID_BEER_ID, 2)).thenReturn(1);
+
+        // when
+        stockLedger.deposit(VALID_BEER_ID, 5);
+        int remaining = stockLedger.withdraw(VALID_BEER_ID, 3);
+        stockLedger.flush();
+
+        // then
+        assertThat(remaining, is(equalTo(2)));
+        assertThat(stockLedger.quantityOf(VALID_BEER_ID), is(equalTo(OptionalInt.of(2))));
+        verify(beerRepository, never()).decrementQuantity(anyLong(), anyInt());
+        verify(beerRepository, never()).incrementQuantity(anyLong(), anyInt());
+        verify(stockEventLog).append(VALID_BEER_ID, StockEventType.INCREMENTED, 5);
+        verify(stockEventLog).append(VALID_BEER_ID, StockEventType.DECREMENTED, -3);
+    }
+
+    private StockLedger ledger(boolean writeBehind, StockWriteDurability durability, int maxPendingDeposits) {
+        meterRegistry = new SimpleMeterRegistry();
+        return new StockLedger(beerRepository, invalidationChannel, stockEventLog, new TransactionTemplate(transactionManager),
+                new CatalogVersion(), meterRegistry, writeBehind, durability, maxPendingDeposits);
+    }
+}
@@ -0,0 +1,36 @@
+package one.digitalinnovation.beerstock.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+
+/**
+ * Starts the application with the {@code fast-startup} profile, whose lazy initialization would skip beans nothing
+ * injects, and checks that the stock gauges are registered anyway.
+ */
+@ActiveProfiles("fast-startup")
+@SpringBootTest(properties =
+        "spring.datasource.url=jdbc:h2:mem:beerstock-stock-metrics;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+class StockMetricsTest {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void whenContextIsLazilyInitializedThenStockGaugesAreRegistered() {
+        // when
+        Gauge total = meterRegistry.find("beerstock.stock.total").gauge();
+        Gauge nearMax = meterRegistry.find("beerstock.stock.near.max").gauge();
+
+        // then
+        assertThat(total, is(notNullValue()));
+        assertThat(nearMax, is(notNullValue()));
+    }
+}
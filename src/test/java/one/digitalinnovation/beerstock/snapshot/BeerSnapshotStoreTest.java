@@ -0,0 +1,126 @@
+package one.digitalinnovation.beerstock.snapshot;
+
+import one.digitalinnovation.beerstock.builder.BeerDTOBuilder;
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.entity.Beer;
+import one.digitalinnovation.beerstock.exception.BeerAlreadyRegisteredException;
+import one.digitalinnovation.beerstock.exception.BeerNotFoundException;
+import one.digitalinnovation.beerstock.mapper.BeerMapper;
+import one.digitalinnovation.beerstock.repository.BeerRepository;
+import one.digitalinnovation.beerstock.service.BeerService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:beerstock-snapshot;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "beerstock.snapshot.enabled=true",
+        BeerSnapshotStoreTest.SNAPSHOT_PATH_PROPERTY
+})
+public class BeerSnapshotStoreTest {
+
+    static final String SNAPSHOT_PATH = "target/snapshot-test/beerstock.snapshot";
+    static final String SNAPSHOT_PATH_PROPERTY = "beerstock.snapshot.path=" + SNAPSHOT_PATH;
+
+    @Autowired
+    private BeerSnapshotStore beerSnapshotStore;
+
+    @Autowired
+    private BeerService beerService;
+
+    @Autowired
+    private BeerRepository beerRepository;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        beerRepository.deleteAll();
+        Files.deleteIfExists(Paths.get(SNAPSHOT_PATH));
+    }
+
+    @Test
+    void whenSnapshotIsRestoredIntoAnEmptyTableThenBeersAreBackAndNewBeersGetFreshIds() throws Exception {
+        // given
+        BeerDTO snapshottedBeer = beerService.createBeer(BeerDTOBuilder.builder().id(null).build().toBeerDTO());
+        beerSnapshotStore.write();
+        beerRepository.deleteAll();
+
+        // when
+        int restored = beerSnapshotStore.restore();
+
+        // then
+        assertThat(restored, is(equalTo(1)));
+        assertThat(beerService.findByName(snapshottedBeer.getName()), is(equalTo(snapshottedBeer)));
+        assertThat(beerService.suggest("brah", 1).get(0).getId(), is(equalTo(snapshottedBeer.getId())));
+        BeerDTO newBeer = beerService.createBeer(BeerDTOBuilder.builder().id(null).name("Colorado Appia").build().toBeerDTO());
+        assertThat(newBeer.getId(), is(greaterThan(snapshottedBeer.getId())));
+    }
+
+    @Test
+    void whenTableIsNotEmptyThenSnapshotIsNotRestored() throws Exception {
+        // given
+        beerService.createBeer(BeerDTOBuilder.builder().id(null).build().toBeerDTO());
+        beerSnapshotStore.write();
+
+        // when
+        int restored = beerSnapshotStore.restore();
+
+        // then
+        assertThat(restored, is(equalTo(0)));
+        assertThat(beerRepository.count(), is(equalTo(1L)));
+    }
+
+    @Test
+    void whenRestoreFailsThenNoBeerIsIndexed() throws Exception {
+        // given
+        Files.createDirectories(Paths.get(SNAPSHOT_PATH).getParent());
+        try (OutputStream output = Files.newOutputStream(Paths.get(SNAPSHOT_PATH))) {
+            BeerSnapshot.write(Arrays.asList(snapshotBeer("Zuider One"), snapshotBeer("Zuider Two")).iterator(), output);
+        }
+
+        // when
+        assertThrows(DataAccessException.class, () -> beerSnapshotStore.restore());
+
+        // then
+        assertThat(beerRepository.count(), is(equalTo(0L)));
+        assertThat(beerService.suggest("zuider", 10), is(empty()));
+    }
+
+    @Test
+    void whenStoreIsStoppedThenSnapshotIsWritten() throws Exception {
+        // given
+        BeerDTO snapshottedBeer = beerService.createBeer(BeerDTOBuilder.builder().id(null).build().toBeerDTO());
+
+        // when
+        beerSnapshotStore.stop();
+        beerSnapshotStore.start();
+
+        // then
+        beerRepository.deleteAll();
+        assertThat(beerSnapshotStore.restore(), is(equalTo(1)));
+        assertThat(beerService.findByName(snapshottedBeer.getName()), is(equalTo(snapshottedBeer)));
+    }
+
+    /**
+     * Every snapshot beer gets the same id, so the second insert breaks the primary key.
+     */
+    private Beer snapshotBeer(String name) {
+        Beer beer = BeerMapper.INSTANCE.toModel(BeerDTOBuilder.builder().name(name).build().toBeerDTO());
+        beer.setVersion(0L);
+        return beer;
+    }
+}
@@ -0,0 +1,52 @@
+package one.digitalinnovation.beerstock.snapshot;
+
+import one.digitalinnovation.beerstock.builder.BeerDTOBuilder;
+import one.digitalinnovation.beerstock.entity.Beer;
+import one.digitalinnovation.beerstock.enums.BeerType;
+import one.digitalinnovation.beerstock.mapper.BeerMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BeerSnapshotTest {
+
+    @Test
+    void whenBeersAreWrittenThenTheyAreReadBackInOrder() throws IOException {
+        // given
+        Beer brahma = BeerMapper.INSTANCE.toModel(BeerDTOBuilder.builder().build().toBeerDTO());
+        brahma.setVersion(7L);
+        Beer colorado = BeerMapper.INSTANCE.toModel(BeerDTOBuilder.builder()
+                .id(2L).name("Colorado Appia").brand("Colorado").type(BeerType.WITBIER).build().toBeerDTO());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // when
+        int written = BeerSnapshot.write(Arrays.asList(brahma, colorado).iterator(), output);
+        List<Beer> readBeers = new ArrayList<>();
+        int read = BeerSnapshot.read(new ByteArrayInputStream(output.toByteArray()), readBeers::add);
+
+        // then
+        assertThat(written, is(equalTo(2)));
+        assertThat(read, is(equalTo(2)));
+        assertThat(readBeers, is(equalTo(Arrays.asList(brahma, colorado))));
+    }
+
+    @Test
+    void whenStreamIsNotASnapshotThenAnExceptionShouldBeThrown() {
+        // given
+        byte[] notASnapshot = "name,brand\n".getBytes();
+
+        // then
+        assertThrows(IOException.class, () -> BeerSnapshot.read(new ByteArrayInputStream(notASnapshot), beer -> {
+        }));
+    }
+}
@@ -0,0 +1,55 @@
+package one.digitalinnovation.beerstock.threads;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+public class PinningMonitorTest {
+
+    private static final String PINNED = "beerstock.threads.pinned";
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private PinningMonitor pinningMonitor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        pinningMonitor = new PinningMonitor(meterRegistry, Duration.ofMillis(20));
+    }
+
+    @Test
+    void whenPinnedInsideTheDriverThenInnermostDriverFrameIsTagged() {
+        // when
+        pinningMonitor.record(Arrays.asList(
+                "java.lang.VirtualThread.parkOnCarrierThread",
+                "java.util.concurrent.locks.LockSupport.park",
+                "org.h2.mvstore.tx.Transaction.waitForThisToEnd",
+                "org.h2.jdbc.JdbcPreparedStatement.executeUpdate",
+                "one.digitalinnovation.beerstock.service.StockLedger.flush"), Duration.ofMillis(30));
+
+        // then
+        assertThat(meterRegistry.timer(PINNED, "frame", "org.h2.mvstore.tx.Transaction.waitForThisToEnd").count(), is(equalTo(1L)));
+        assertThat(meterRegistry.timer(PINNED, "frame", "org.h2.mvstore.tx.Transaction.waitForThisToEnd").totalTime(TimeUnit.MILLISECONDS), is(equalTo(30.0)));
+    }
+
+    @Test
+    void whenPinnedOutsideWatchedPackagesThenTopFrameIsTagged() {
+        // when
+        pinningMonitor.record(Arrays.asList("java.lang.Object.wait", "java.lang.Thread.run"), Duration.ofMillis(25));
+        pinningMonitor.record(Collections.emptyList(), Duration.ofMillis(25));
+
+        // then
+        assertThat(meterRegistry.timer(PINNED, "frame", "java.lang.Object.wait").count(), is(equalTo(1L)));
+        assertThat(meterRegistry.timer(PINNED, "frame", "unknown").count(), is(equalTo(1L)));
+    }
+}
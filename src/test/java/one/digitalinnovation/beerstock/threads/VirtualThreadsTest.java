@@ -0,0 +1,44 @@
+package one.digitalinnovation.beerstock.threads;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class VirtualThreadsTest {
+
+    @Test
+    void whenRuntimeHasVirtualThreadsThenEachTaskRunsOnANewVirtualThread() throws Exception {
+        assumeTrue(VirtualThreads.isSupported(), "virtual threads need Java 21 or later");
+        ExecutorService executor = VirtualThreads.newPerTaskExecutor().orElseThrow(IllegalStateException::new);
+
+        try {
+            // when
+            Thread first = executor.submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+            Thread second = executor.submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+
+            // then
+            assertThat(isVirtual(first), is(equalTo(true)));
+            assertThat(first == second, is(equalTo(false)));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void whenRuntimeHasNoVirtualThreadsThenNoExecutorIsCreated() {
+        assumeFalse(VirtualThreads.isSupported(), "runtime has virtual threads");
+
+        assertThat(VirtualThreads.newPerTaskExecutor().isPresent(), is(equalTo(false)));
+    }
+
+    private static boolean isVirtual(Thread thread) throws ReflectiveOperationException {
+        return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+    }
+}